@@ -0,0 +1,101 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.noise;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per point sampling against the batch fill kernels over one chunk column window (16 x 16 x 16 points).
+ * Run with ./gradlew jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SimplexFillBenchmark {
+    private static final int N = 16 * 16 * 16;
+
+    @Param({"1", "4"})
+    public int octaves;
+
+    private FastNoiseDouble doubles;
+    private FastNoise floats;
+    private double[] dx;
+    private double[] dy;
+    private double[] dz;
+    private double[] dout;
+    private float[] fx;
+    private float[] fy;
+    private float[] fz;
+    private float[] fout;
+
+    @Setup
+    public void setup() {
+        doubles = new FastNoiseDouble(1337);
+        doubles.setFractalOctaves(octaves);
+        floats = new FastNoise(1337);
+        floats.SetFractalOctaves(octaves);
+        dx = new double[N];
+        dy = new double[N];
+        dz = new double[N];
+        dout = new double[N];
+        fx = new float[N];
+        fy = new float[N];
+        fz = new float[N];
+        fout = new float[N];
+
+        for (int i = 0; i < N; i++) {
+            dx[i] = fx[i] = i & 15;
+            dy[i] = fy[i] = (i >> 8) & 15;
+            dz[i] = fz[i] = (i >> 4) & 15;
+        }
+    }
+
+    @Benchmark
+    public void doublePerPoint(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            dout[i] = doubles.GetSimplexFractal(dx[i], dy[i], dz[i]);
+        }
+
+        b.consume(dout);
+    }
+
+    @Benchmark
+    public void doubleFill(Blackhole b) {
+        doubles.fillSimplexFractal(dx, dy, dz, dout, N);
+        b.consume(dout);
+    }
+
+    @Benchmark
+    public void floatPerPoint(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            fout[i] = floats.GetSimplexFractal(fx[i], fy[i], fz[i]);
+        }
+
+        b.consume(fout);
+    }
+
+    @Benchmark
+    public void floatFill(Blackhole b) {
+        floats.fillSimplexFractal(fx, fy, fz, fout, N);
+        b.consume(fout);
+    }
+}
@@ -60,6 +60,8 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -95,6 +97,15 @@ public class Iris extends VolmitPlugin implements Listener {
         installDataPacks();
     }
 
+    /**
+     * Creates Iris outside of a server for the headless entry point. Nothing is deleted or installed here, the caller
+     * owns the data folder.
+     */
+    public Iris(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+        instance = this;
+    }
+
     public File getDatapacksFolder() {
         File props = new File("server.properties");
 
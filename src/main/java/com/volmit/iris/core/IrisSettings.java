@@ -77,7 +77,28 @@ public class IrisSettings {
 
     @Data
     public static class IrisSettingsCache {
-        public int complexCacheSize = 131072;
+        public int complexCacheSizeMB = 2;
+        /**
+         * Legacy entry count from before the cache was sized in megabytes. Left null so it is
+         * never written out, but still read from older settings files.
+         */
+        public Integer complexCacheSize = null;
+        private transient boolean warnedLegacy = false;
+
+        public int getComplexCacheSizeMB() {
+            if (complexCacheSize == null || complexCacheSize <= 0) {
+                return complexCacheSizeMB;
+            }
+
+            int mb = (int) Math.max(1, (complexCacheSize * 8L + 1048575L) / 1048576L);
+
+            if (!warnedLegacy) {
+                warnedLegacy = true;
+                Iris.warn("settings.json cache.complexCacheSize (" + complexCacheSize + " entries) is deprecated, using " + mb + "MB. Replace it with cache.complexCacheSizeMB.");
+            }
+
+            return mb;
+        }
     }
 
     @Data
@@ -86,6 +107,13 @@ public class IrisSettings {
         public int engineThreadPriority = 6;
         public int pregenThreadCount = -1;
         public int pregenThreadPriority = 8;
+        public int pregenRegionsInFlight = 3;
+        public int pregenTargetMSPT = 60;
+        public int pregenMaxHeapPercent = 85;
+        public int pregenMaxWindowMultiplier = 4;
+        public int syndicateLeaseTimeoutMS = 30000;
+        public int syndicateLeaseTargetSeconds = 120;
+        public int syndicateMaxLeaseRegions = 8;
         public int miscThreadCount = -4;
         public int miscThreadPriority = 3;
     }
@@ -94,6 +122,7 @@ public class IrisSettings {
     public static class IrisSettingsParallax {
         public int parallaxRegionEvictionMS = 15000;
         public int parallaxChunkEvictionMS = 5000;
+        public int surfaceProfileRegions = 32;
     }
 
     @Data
@@ -120,6 +149,11 @@ public class IrisSettings {
 
         public String defaultWorldType = "overworld";
         public boolean disableMCA = false;
+        public String pregenOrder = "SPIRAL";
+        public int mcaMaxQueuedSaves = 8;
+        public int mcaMemoryBudgetMB = 1024;
+        public String mcaCompression = "ZLIB";
+        public int mcaCompressionLevel = -1;
         public boolean systemEffects = true;
         public boolean systemEntitySpawnOverrides = true;
         public boolean systemEntityInitialSpawns = true;
@@ -19,6 +19,7 @@
 package com.volmit.iris.core.command;
 
 import com.volmit.iris.Iris;
+import com.volmit.iris.core.gui.PregeneratorJob;
 import com.volmit.iris.core.tools.IrisWorlds;
 import com.volmit.iris.engine.framework.IrisAccess;
 import com.volmit.iris.util.collection.KList;
@@ -55,6 +56,10 @@ public class CommandIrisMetrics extends MortarCommand {
 
             try {
                 g.printMetrics(sender);
+
+                if (PregeneratorJob.getInstance() != null && PregeneratorJob.getInstance().getStatus() != null) {
+                    sender.sendMessage("Pregen: " + PregeneratorJob.getInstance().getStatus());
+                }
             } catch (Throwable e) {
                 Iris.reportError(e);
                 sender.sendMessage("You must be in an iris world.");
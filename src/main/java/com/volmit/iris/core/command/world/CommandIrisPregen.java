@@ -20,6 +20,7 @@ package com.volmit.iris.core.command.world;
 
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.gui.PregeneratorJob;
+import com.volmit.iris.core.pregenerator.PregenJournal;
 import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.core.pregenerator.methods.HybridPregenMethod;
 import com.volmit.iris.core.tools.IrisToolbelt;
@@ -41,7 +42,8 @@ public class CommandIrisPregen extends MortarCommand {
                         Pregen this world with optional parameters:\s
                         '1k' = 1000 by 1000 blocks, '1c' = 1 by 1 chunks, and '1r' = 32 by 32 chunks.
                         If you are using the console or want to pregen a world you're not in:
-                        also specify the name of the world. E.g. /ir pregen 5k world"""
+                        also specify the name of the world. E.g. /ir pregen 5k world
+                        Progress is journaled per world; '/ir pregen resume [world]' restarts the last unfinished pregen."""
         );
         requiresPermission(Iris.perm.studio);
         setCategory("Pregen");
@@ -88,6 +90,16 @@ public class CommandIrisPregen extends MortarCommand {
                 } else {
                     sender.sendMessage("Pregen Resumed");
                 }
+            } else if (args[0].equalsIgnoreCase("resume")) {
+                World world = args.length == 2 ? Bukkit.getWorld(args[1]) : sender.isPlayer() ? sender.player().getWorld() : null;
+
+                if (world == null) {
+                    sender.sendMessage("Please specify the name of the world to resume. E.g. /ir pregen resume world");
+                } else if (IrisToolbelt.resumePregenerate(world) != null) {
+                    sender.sendMessage("Resuming the last pregen of " + world.getName());
+                } else {
+                    sender.sendMessage("No unfinished pregen to resume in " + world.getName());
+                }
             } else {
                 sender.sendMessage("No Active Pregens");
             }
@@ -139,12 +151,13 @@ public class CommandIrisPregen extends MortarCommand {
             }
             World world = Bukkit.getWorld(args[1]);
             try {
-                new PregeneratorJob(PregenTask
-                        .builder()
-                        .center(new Position2(0, 0))
-                        .radius(((getVal(args[0]) >> 4) >> 5) + 1)
-                        .build(),
-                        new HybridPregenMethod(world, Runtime.getRuntime().availableProcessors()));
+                IrisToolbelt.pregenerate(PregenTask
+                                .builder()
+                                .center(new Position2(0, 0))
+                                .radius(((getVal(args[0]) >> 4) >> 5) + 1)
+                                .build(),
+                        new HybridPregenMethod(world, Runtime.getRuntime().availableProcessors()),
+                        PregenJournal.of(world.getWorldFolder()));
             } catch (NumberFormatException e) {
                 Iris.reportError(e);
                 sender.sendMessage("Invalid argument in command");
@@ -22,6 +22,7 @@ import com.volmit.iris.Iris;
 import com.volmit.iris.core.tools.IrisWorlds;
 import com.volmit.iris.engine.framework.IrisAccess;
 import com.volmit.iris.engine.parallax.ParallaxAccess;
+import com.volmit.iris.engine.parallax.ParallaxObjectInstance;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.math.BlockPosition;
 import com.volmit.iris.util.math.RNG;
@@ -37,7 +38,7 @@ public class DustRevealer {
     private final ParallaxAccess parallax;
     private final World world;
     private final BlockPosition block;
-    private final String key;
+    private final ParallaxObjectInstance key;
     private final KList<BlockPosition> hits;
 
     public static void spawn(Block block, VolmitSender sender) {
@@ -47,16 +48,18 @@ public class DustRevealer {
         if (access != null) {
             ParallaxAccess a = access.getEngineAccess(block.getY()).getParallaxAccess();
 
-            if (a.getObject(block.getX(), block.getY(), block.getZ()) != null) {
-                sender.sendMessage("Found object " + a.getObject(block.getX(), block.getY(), block.getZ()));
+            ParallaxObjectInstance instance = a.getObjectInstance(block.getX(), block.getY(), block.getZ());
+
+            if (instance != null) {
+                sender.sendMessage("Found object " + instance.getKey());
                 J.a(() -> {
-                    new DustRevealer(a, world, new BlockPosition(block.getX(), block.getY(), block.getZ()), a.getObject(block.getX(), block.getY(), block.getZ()), new KList<>());
+                    new DustRevealer(a, world, new BlockPosition(block.getX(), block.getY(), block.getZ()), instance, new KList<>());
                 });
             }
         }
     }
 
-    public DustRevealer(ParallaxAccess parallax, World world, BlockPosition block, String key, KList<BlockPosition> hits) {
+    public DustRevealer(ParallaxAccess parallax, World world, BlockPosition block, ParallaxObjectInstance key, KList<BlockPosition> hits) {
         this.parallax = parallax;
         this.world = world;
         this.block = block;
@@ -102,7 +105,7 @@ public class DustRevealer {
     }
 
     private boolean is(BlockPosition a) {
-        if (isValidTry(a) && parallax.getObject(a.getX(), a.getY(), a.getZ()) != null && parallax.getObject(a.getX(), a.getY(), a.getZ()).equals(key)) {
+        if (isValidTry(a) && key.contains(a.getX(), a.getY(), a.getZ()) && key.equals(parallax.getObjectInstance(a.getX(), a.getY(), a.getZ()))) {
             hits.add(a);
             new DustRevealer(parallax, world, a, key, hits);
             return true;
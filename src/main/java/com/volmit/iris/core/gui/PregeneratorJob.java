@@ -21,10 +21,12 @@ package com.volmit.iris.core.gui;
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.pregenerator.IrisPregenerator;
+import com.volmit.iris.core.pregenerator.PregenJournal;
 import com.volmit.iris.core.pregenerator.PregenListener;
 import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.format.Form;
 import com.volmit.iris.util.function.Consumer2;
 import com.volmit.iris.util.math.M;
@@ -56,13 +58,19 @@ public class PregeneratorJob implements PregenListener {
     private String[] info;
     private Position2 min;
     private Position2 max;
+    private final KMap<String, Color> nodeColors = new KMap<>();
+    private final KMap<Position2, Color> nodeRegions = new KMap<>();
 
     public PregeneratorJob(PregenTask task, PregeneratorMethod method) {
+        this(task, method, null);
+    }
+
+    public PregeneratorJob(PregenTask task, PregeneratorMethod method, PregenJournal journal) {
         instance = this;
         saving = false;
         info = new String[]{"Initializing..."};
         this.task = task;
-        this.pregenerator = new IrisPregenerator(task, method, this);
+        this.pregenerator = new IrisPregenerator(task, method, this, journal);
         max = new Position2(0, 0);
         min = new Position2(0, 0);
         KList<Runnable> draw = new KList<>();
@@ -185,14 +193,24 @@ public class PregeneratorJob implements PregenListener {
         });
     }
 
+    public String getStatus() {
+        return pregenerator.getStatus();
+    }
+
     @Override
     public void onTick(double chunksPerSecond, double chunksPerMinute, double regionsPerMinute, double percent, int generated, int totalChunks, int chunksRemaining, long eta, long elapsed, String method) {
-        info = new String[]{
-                (paused() ? "PAUSED" : (saving ? "Saving... " : "Generating")) + " " + Form.f(generated) + " of " + Form.f(totalChunks) + " (" + Form.pc(percent, 0) + " Complete)",
-                "Speed: " + Form.f(chunksPerSecond, 0) + " Chunks/s, " + Form.f(regionsPerMinute, 1) + " Regions/m, " + Form.f(chunksPerMinute, 0) + " Chunks/m",
-                Form.duration(eta, 2) + " Remaining " + " (" + Form.duration(elapsed, 2) + " Elapsed)",
-                "Generation Method: " + method,
-        };
+        KList<String> lines = new KList<>();
+        lines.add((paused() ? "PAUSED" : (saving ? "Saving... " : "Generating")) + " " + Form.f(generated) + " of " + Form.f(totalChunks) + " (" + Form.pc(percent, 0) + " Complete)");
+        lines.add("Speed: " + Form.f(chunksPerSecond, 0) + " Chunks/s, " + Form.f(regionsPerMinute, 1) + " Regions/m, " + Form.f(chunksPerMinute, 0) + " Chunks/m");
+        lines.add(Form.duration(eta, 2) + " Remaining " + " (" + Form.duration(elapsed, 2) + " Elapsed)");
+        lines.add("Generation Method: " + method);
+        String status = getStatus();
+
+        if (status != null) {
+            lines.add("Status: " + status);
+        }
+
+        info = lines.toArray(new String[0]);
 
         for (Consumer<Double> i : onProgress) {
             i.accept(percent);
@@ -230,8 +248,15 @@ public class PregeneratorJob implements PregenListener {
     }
 
     @Override
-    public void onNetworkFailed(int x, int z) {
+    public void onNetworkLeased(int x, int z, String node) {
+        Color c = nodeColors.computeIfAbsent(node, (n) -> Color.getHSBColor((n.hashCode() & 0xFFFF) / 65535F, 0.6F, 0.95F));
+        nodeRegions.put(new Position2(x, z), c);
+        drawRegion(x, z, c.darker().darker());
+    }
 
+    @Override
+    public void onNetworkFailed(int x, int z) {
+        nodeRegions.remove(new Position2(x, z));
     }
 
     @Override
@@ -241,12 +266,14 @@ public class PregeneratorJob implements PregenListener {
 
     @Override
     public void onNetworkGeneratedChunk(int x, int z) {
-        draw(x, z, COLOR_NETWORK_GENERATING);
+        Color c = nodeRegions.get(new Position2(x >> 5, z >> 5));
+        draw(x, z, c == null ? COLOR_NETWORK_GENERATING : c.darker());
     }
 
     @Override
     public void onNetworkDownloaded(int x, int z) {
-        drawRegion(x, z, COLOR_NETWORK);
+        Color c = nodeRegions.remove(new Position2(x, z));
+        drawRegion(x, z, c == null ? COLOR_NETWORK : c);
     }
 
     @Override
@@ -20,6 +20,7 @@ package com.volmit.iris.core.nms;
 
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.core.nms.headless.NMSBindingHeadless;
 import com.volmit.iris.core.nms.v16_1.NMSBinding16_1;
 import com.volmit.iris.core.nms.v16_2.NMSBinding16_2;
 import com.volmit.iris.core.nms.v16_3.NMSBinding16_3;
@@ -35,6 +36,7 @@ public class INMS {
             .qput("v1_16_R3", NMSBinding16_3 .class)
             .qput("v1_16_R2", NMSBinding16_2.class)
             .qput("v1_16_R1", NMSBinding16_1.class)
+            .qput("HEADLESS", NMSBindingHeadless.class)
             ;
     //@done
     private static final INMSBinding binding = bind();
@@ -44,6 +46,10 @@ public class INMS {
     }
 
     public static final String getNMSTag() {
+        if (Boolean.getBoolean("iris.headless")) {
+            return "HEADLESS";
+        }
+
         if (IrisSettings.get().getGeneral().isDisableNMS()) {
             return "BUKKIT";
         }
@@ -0,0 +1,64 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.nms.headless;
+
+import com.volmit.iris.core.nms.v1X.NMSBinding1X;
+import com.volmit.iris.util.collection.KMap;
+import org.bukkit.block.Biome;
+
+/**
+ * Binding used when Iris runs without a server (see HeadlessMain). There is no biome registry to ask, so biome ids
+ * come from the vanilla builtin table which is what the region files expect.
+ */
+public class NMSBindingHeadless extends NMSBinding1X {
+    //@builder
+    private static final KMap<String, Integer> ids = new KMap<String, Integer>()
+            .qput("OCEAN", 0).qput("PLAINS", 1).qput("DESERT", 2).qput("MOUNTAINS", 3).qput("FOREST", 4)
+            .qput("TAIGA", 5).qput("SWAMP", 6).qput("RIVER", 7).qput("NETHER_WASTES", 8).qput("THE_END", 9)
+            .qput("FROZEN_OCEAN", 10).qput("FROZEN_RIVER", 11).qput("SNOWY_TUNDRA", 12).qput("SNOWY_MOUNTAINS", 13)
+            .qput("MUSHROOM_FIELDS", 14).qput("MUSHROOM_FIELD_SHORE", 15).qput("BEACH", 16).qput("DESERT_HILLS", 17)
+            .qput("WOODED_HILLS", 18).qput("TAIGA_HILLS", 19).qput("MOUNTAIN_EDGE", 20).qput("JUNGLE", 21)
+            .qput("JUNGLE_HILLS", 22).qput("JUNGLE_EDGE", 23).qput("DEEP_OCEAN", 24).qput("STONE_SHORE", 25)
+            .qput("SNOWY_BEACH", 26).qput("BIRCH_FOREST", 27).qput("BIRCH_FOREST_HILLS", 28).qput("DARK_FOREST", 29)
+            .qput("SNOWY_TAIGA", 30).qput("SNOWY_TAIGA_HILLS", 31).qput("GIANT_TREE_TAIGA", 32)
+            .qput("GIANT_TREE_TAIGA_HILLS", 33).qput("WOODED_MOUNTAINS", 34).qput("SAVANNA", 35)
+            .qput("SAVANNA_PLATEAU", 36).qput("BADLANDS", 37).qput("WOODED_BADLANDS_PLATEAU", 38)
+            .qput("BADLANDS_PLATEAU", 39).qput("SMALL_END_ISLANDS", 40).qput("END_MIDLANDS", 41)
+            .qput("END_HIGHLANDS", 42).qput("END_BARRENS", 43).qput("WARM_OCEAN", 44).qput("LUKEWARM_OCEAN", 45)
+            .qput("COLD_OCEAN", 46).qput("DEEP_WARM_OCEAN", 47).qput("DEEP_LUKEWARM_OCEAN", 48)
+            .qput("DEEP_COLD_OCEAN", 49).qput("DEEP_FROZEN_OCEAN", 50).qput("THE_VOID", 127)
+            .qput("SUNFLOWER_PLAINS", 129).qput("DESERT_LAKES", 130).qput("GRAVELLY_MOUNTAINS", 131)
+            .qput("FLOWER_FOREST", 132).qput("TAIGA_MOUNTAINS", 133).qput("SWAMP_HILLS", 134).qput("ICE_SPIKES", 140)
+            .qput("MODIFIED_JUNGLE", 149).qput("MODIFIED_JUNGLE_EDGE", 151).qput("TALL_BIRCH_FOREST", 155)
+            .qput("TALL_BIRCH_HILLS", 156).qput("DARK_FOREST_HILLS", 157).qput("SNOWY_TAIGA_MOUNTAINS", 158)
+            .qput("GIANT_SPRUCE_TAIGA", 160).qput("GIANT_SPRUCE_TAIGA_HILLS", 161)
+            .qput("MODIFIED_GRAVELLY_MOUNTAINS", 162).qput("SHATTERED_SAVANNA", 163)
+            .qput("SHATTERED_SAVANNA_PLATEAU", 164).qput("ERODED_BADLANDS", 165)
+            .qput("MODIFIED_WOODED_BADLANDS_PLATEAU", 166).qput("MODIFIED_BADLANDS_PLATEAU", 167)
+            .qput("BAMBOO_JUNGLE", 168).qput("BAMBOO_JUNGLE_HILLS", 169).qput("SOUL_SAND_VALLEY", 170)
+            .qput("CRIMSON_FOREST", 171).qput("WARPED_FOREST", 172).qput("BASALT_DELTAS", 173)
+            .qput("DRIPSTONE_CAVES", 174).qput("LUSH_CAVES", 175);
+    //@done
+
+    @Override
+    public int getBiomeId(Biome biome) {
+        Integer id = ids.get(biome.name());
+        return id == null ? 1 : id;
+    }
+}
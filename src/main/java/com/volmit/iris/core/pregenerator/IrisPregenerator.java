@@ -18,6 +18,9 @@
 
 package com.volmit.iris.core.pregenerator;
 
+import com.volmit.iris.Iris;
+import com.volmit.iris.engine.parallel.MultiBurst;
+import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.collection.KSet;
 import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.math.Position2;
@@ -26,6 +29,10 @@ import com.volmit.iris.util.scheduling.ChronoLatch;
 import com.volmit.iris.util.scheduling.J;
 import com.volmit.iris.util.scheduling.Looper;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -48,13 +55,27 @@ public class IrisPregenerator {
     private final AtomicLong startTime;
     private final ChronoLatch minuteLatch;
     private final AtomicReference<String> currentGeneratorMethod;
-    private final KSet<Position2> generatedRegions;
+    private final Set<Position2> generatedRegions;
     private final KSet<Position2> retry;
     private final KSet<Position2> net;
+    private final PregenJournal journal;
+    private final KMap<Position2, Set<Position2>> unsavedChunks;
+    private final PregenFrontier frontier;
+    private final ChronoLatch journalLatch;
 
     public IrisPregenerator(PregenTask task, PregeneratorMethod generator, PregenListener listener) {
+        this(task, generator, listener, null);
+    }
+
+    /**
+     * @param journal records progress so a later run of the same task skips what is done. May be null.
+     */
+    public IrisPregenerator(PregenTask task, PregeneratorMethod generator, PregenListener listener, PregenJournal journal) {
+        this.journal = journal;
+        this.unsavedChunks = new KMap<>();
+        this.frontier = new PregenFrontier(task, journal);
         this.listener = listenify(listener);
-        generatedRegions = new KSet<>();
+        generatedRegions = ConcurrentHashMap.newKeySet();
         this.shutdown = new AtomicBoolean(false);
         this.paused = new AtomicBoolean(false);
         this.task = task;
@@ -63,6 +84,7 @@ public class IrisPregenerator {
         net = new KSet<>();
         currentGeneratorMethod = new AtomicReference<>("Void");
         minuteLatch = new ChronoLatch(60000, false);
+        journalLatch = new ChronoLatch(5000, false);
         chunksPerSecond = new RollingSequence(10);
         chunksPerMinute = new RollingSequence(10);
         regionsPerMinute = new RollingSequence(10);
@@ -70,7 +92,7 @@ public class IrisPregenerator {
         generatedLast = new AtomicInteger(0);
         generatedLastMinute = new AtomicInteger(0);
         totalChunks = new AtomicInteger(0);
-        task.iterateRegions((_a, _b) -> totalChunks.addAndGet(1024));
+        task.iterateRegions((x, z) -> totalChunks.addAndGet(journal == null ? 1024 : 1024 - journal.getCompletedChunks(x, z)));
         startTime = new AtomicLong(M.ms());
         ticker = new Looper() {
             @Override
@@ -92,13 +114,22 @@ public class IrisPregenerator {
                         (double) generated.get() / (double) totalChunks.get(),
                         generated.get(), totalChunks.get(),
                         totalChunks.get() - generated.get(),
-                        eta, M.ms() - startTime.get(), currentGeneratorMethod.get());
+                        eta, M.ms() - startTime.get(), getMethodStatus());
+
+                if (journal != null && journalLatch.flip()) {
+                    journal.flush();
+                }
 
                 return 1000;
             }
         };
     }
 
+    private String getMethodStatus() {
+        PregenThrottle throttle = generator.getThrottle();
+        return throttle == null ? currentGeneratorMethod.get() : currentGeneratorMethod.get() + " " + throttle.getStatus();
+    }
+
     private long computeETA() {
         return (long) ((totalChunks.get() - generated.get()) *
                 ((double) (M.ms() - startTime.get()) / (double) generated.get()));
@@ -109,14 +140,125 @@ public class IrisPregenerator {
     }
 
     public void start() {
+        if (journal != null) {
+            journal.started(task);
+        }
+
         init();
+        generator.retainParallax(frontier);
         ticker.start();
         checkRegions();
-        task.iterateRegions((x, z) -> visitRegion(x, z, true));
+
+        if (generator.supportsPipelining()) {
+            pipelineRegions();
+        } else {
+            task.iterateRegions((x, z) -> visitRegion(x, z, true));
+        }
+
         task.iterateRegions((x, z) -> visitRegion(x, z, false));
         shutdown();
     }
 
+    /**
+     * Generates every region the method supports with a few regions in flight at once. Their chunks all land in the
+     * method's (work-stealing) pool so it never drains between regions, and each region is saved in the background
+     * as soon as it finishes. Regions are still started in spiral order, so the centre comes first, but a slow
+     * region no longer holds back the ones after it.
+     */
+    private void pipelineRegions() {
+        int inFlight = generator.getRegionsInFlight();
+        Semaphore slots = new Semaphore(inFlight);
+        MultiBurst regions = new MultiBurst("Iris Pregen Region", 5, inFlight);
+
+        task.iterateRegions((x, z) -> {
+            while (paused.get() && !shutdown.get()) {
+                J.sleep(50);
+            }
+
+            if (shutdown.get()) {
+                listener.onRegionSkipped(x, z);
+                return;
+            }
+
+            if (generatedRegions.contains(new Position2(x, z)) || isJournaled(x, z)) {
+                return;
+            }
+
+            if (!generator.supportsRegions(x, z, listener)) {
+                frontier.regionDone(x, z);
+                return;
+            }
+
+            slots.acquireUninterruptibly();
+            regions.lazy(() -> {
+                try {
+                    generatePipelinedRegion(x, z);
+                } catch (Throwable e) {
+                    Iris.reportError(e);
+                    e.printStackTrace();
+                } finally {
+                    slots.release();
+                }
+            });
+        });
+
+        slots.acquireUninterruptibly(inFlight);
+        regions.shutdownAndAwait();
+    }
+
+    private void generatePipelinedRegion(int x, int z) {
+        currentGeneratorMethod.set(generator.getMethod(x, z));
+        listener.onRegionGenerating(x, z);
+        generator.generateRegion(x, z, task, listener);
+        listener.onRegionGenerated(x, z);
+        CompletableFuture<Void> saved = generator.saveRegion(x, z);
+        generatedRegions.add(new Position2(x, z));
+        saved.whenComplete((v, e) -> {
+            if (e == null) {
+                journalRegion(x, z);
+            } else {
+                Iris.warn("Region " + x + " " + z + " was not saved, it will not be marked done in the pregen journal");
+                unsavedChunks.remove(new Position2(x, z));
+            }
+        });
+    }
+
+    /**
+     * Chunks are held back until something saves them. Call once the whole region is on disk.
+     */
+    private void journalRegion(int x, int z) {
+        unsavedChunks.remove(new Position2(x, z));
+
+        if (journal != null) {
+            journal.regionGenerated(x, z);
+        }
+    }
+
+    private void chunkGenerated(int x, int z) {
+        frontier.chunkGenerated(x, z);
+
+        if (journal != null) {
+            unsavedChunks.computeIfAbsent(new Position2(x >> 5, z >> 5), (k) -> ConcurrentHashMap.newKeySet()).add(new Position2(x, z));
+        }
+    }
+
+    /**
+     * Call once everything generated so far is on disk, so regions that were only partly done can be resumed
+     */
+    private void journalChunks() {
+        if (journal == null) {
+            return;
+        }
+
+        for (Set<Position2> i : unsavedChunks.values()) {
+            for (Position2 j : i) {
+                journal.chunkGenerated(j.getX(), j.getZ());
+            }
+        }
+
+        unsavedChunks.clear();
+    }
+
     private void checkRegions() {
         task.iterateRegions(this::checkRegion);
     }
@@ -128,7 +270,14 @@ public class IrisPregenerator {
 
     private void shutdown() {
         listener.onSaving();
+        generator.retainParallax(null);
         generator.close();
+
+        if (journal != null) {
+            journalChunks();
+            journal.close();
+        }
+
         ticker.interrupt();
         listener.onClose();
     }
@@ -145,7 +294,7 @@ public class IrisPregenerator {
 
         Position2 pos = new Position2(x, z);
 
-        if (generatedRegions.contains(pos)) {
+        if (generatedRegions.contains(pos) || isJournaled(x, z)) {
             return;
         }
 
@@ -154,11 +303,15 @@ public class IrisPregenerator {
         if (generator.supportsRegions(x, z, listener) && regions) {
             hit = true;
             listener.onRegionGenerating(x, z);
-            generator.generateRegion(x, z, listener);
+            generator.generateRegion(x, z, task, listener);
         } else if (!regions) {
             hit = true;
             listener.onRegionGenerating(x, z);
-            PregenTask.iterateRegion(x, z, (xx, zz) -> generator.generateChunk(xx, zz, listener));
+            task.iterateChunks(x, z, (xx, zz) -> {
+                if (journal == null || !journal.isChunkComplete(xx, zz)) {
+                    generator.generateChunk(xx, zz, listener);
+                }
+            });
         }
 
         if (hit) {
@@ -166,12 +319,17 @@ public class IrisPregenerator {
             listener.onSaving();
             generator.save();
             generatedRegions.add(pos);
+            journalRegion(x, z);
             checkRegions();
         }
     }
 
+    private boolean isJournaled(int x, int z) {
+        return journal != null && journal.isRegionComplete(x, z);
+    }
+
     private void checkRegion(int x, int z) {
-        if (generatedRegions.contains(new Position2(x, z))) {
+        if (generatedRegions.contains(new Position2(x, z)) || isJournaled(x, z)) {
             return;
         }
 
@@ -202,6 +360,7 @@ public class IrisPregenerator {
             public void onChunkGenerated(int x, int z) {
                 listener.onChunkGenerated(x, z);
                 generated.addAndGet(1);
+                chunkGenerated(x, z);
             }
 
             @Override
@@ -224,6 +383,12 @@ public class IrisPregenerator {
                 net.add(new Position2(x, z));
             }
 
+            @Override
+            public void onNetworkLeased(int x, int z, String node) {
+                listener.onNetworkLeased(x, z, node);
+                net.add(new Position2(x, z));
+            }
+
             @Override
             public void onNetworkFailed(int x, int z) {
                 retry.add(new Position2(x, z));
@@ -257,10 +422,15 @@ public class IrisPregenerator {
             @Override
             public void onChunkExistsInRegionGen(int x, int z) {
                 listener.onChunkExistsInRegionGen(x, z);
+                chunkGenerated(x, z);
             }
         };
     }
 
+    public String getStatus() {
+        return generator.getStatus();
+    }
+
     public boolean paused() {
         return paused.get();
     }
@@ -0,0 +1,144 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.core.pregenerator;
+
+import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.engine.parallax.ParallaxRetention;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.documentation.ChunkCoordinates;
+import com.volmit.iris.util.documentation.RegionCoordinates;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The set of chunks a pregen task still has to generate. The parallax of a chunk is only needed while a planned
+ * chunk within the parallax radius is not generated yet, so this is what pregen hands to the parallax world
+ * in place of idle time eviction.
+ */
+public class PregenFrontier {
+    private final PregenTask task;
+    private final PregenJournal journal;
+    private final KMap<Long, Progress> progress;
+
+    public PregenFrontier(PregenTask task, PregenJournal journal) {
+        this.task = task;
+        this.journal = journal;
+        this.progress = new KMap<>();
+    }
+
+    @ChunkCoordinates
+    public void chunkGenerated(int x, int z) {
+        Progress p = progress.computeIfAbsent(Cache.key(x >> 5, z >> 5), (k) -> new Progress());
+        int index = (x & 31) + ((z & 31) << 5);
+        long mask = 1L << index;
+        long bits = p.bits.getAndUpdate(index >> 6, (b) -> b | mask);
+
+        if ((bits & mask) == 0) {
+            p.count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks a whole region as done, e.g. when it is left to a method that does not read this parallax
+     */
+    @RegionCoordinates
+    public void regionDone(int x, int z) {
+        progress.computeIfAbsent(Cache.key(x, z), (k) -> new Progress()).count.set(1024);
+    }
+
+    @RegionCoordinates
+    public boolean isRegionDone(int x, int z) {
+        if (journal != null && journal.isRegionComplete(x, z)) {
+            return true;
+        }
+
+        Progress p = progress.get(Cache.key(x, z));
+        return p != null && p.count.get() >= 1024;
+    }
+
+    @ChunkCoordinates
+    public boolean isChunkDone(int x, int z) {
+        if (journal != null && journal.isChunkComplete(x, z)) {
+            return true;
+        }
+
+        Progress p = progress.get(Cache.key(x >> 5, z >> 5));
+        int index = (x & 31) + ((z & 31) << 5);
+        return p != null && (p.count.get() >= 1024 || (p.bits.get(index >> 6) & (1L << index)) != 0);
+    }
+
+    /**
+     * @return true if a chunk of the task within radius chunks of the given one has not been generated yet
+     */
+    @ChunkCoordinates
+    public boolean isChunkNeeded(int x, int z, int radius) {
+        for (int i = x - radius; i <= x + radius; i++) {
+            for (int j = z - radius; j <= z + radius; j++) {
+                if (task.containsRegion(i >> 5, j >> 5) && !isChunkDone(i, j)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if a region of the task close enough to reach into the given one is not done yet
+     */
+    @RegionCoordinates
+    public boolean isRegionNeeded(int x, int z, int radius) {
+        int r = (radius + 31) >> 5;
+
+        for (int i = x - r; i <= x + r; i++) {
+            for (int j = z - r; j <= z + r; j++) {
+                if (task.containsRegion(i, j) && !isRegionDone(i, j)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param radius how many chunks around itself a chunk reads parallax from
+     * @return a retention keeping what the rest of this task will still read
+     */
+    public ParallaxRetention reach(int radius) {
+        return new ParallaxRetention() {
+            @Override
+            public boolean isChunkNeeded(int x, int z) {
+                return PregenFrontier.this.isChunkNeeded(x, z, radius);
+            }
+
+            @Override
+            public boolean isRegionNeeded(int x, int z) {
+                return PregenFrontier.this.isRegionNeeded(x, z, radius);
+            }
+        };
+    }
+
+    private static class Progress {
+        private final AtomicLongArray bits = new AtomicLongArray(16);
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.core.pregenerator;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.math.Position2;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * An append-only record of pregen progress for one world, so a pregen can pick up where it stopped after a restart.
+ * <p>
+ * In memory, finished regions are a bitmap of 32x32 region tiles. Regions that are only partly done keep one bit per
+ * chunk. Both lookups are a map get plus a bit test. On disk, the journal is a list of fixed size
+ * records that are appended as progress is made. Each time it is opened, it is compacted back down to a snapshot.
+ */
+public class PregenJournal {
+    private static final int MAGIC = 0x49504A32;
+    private static final int LEGACY_MAGIC = 0x49504A31;
+    private static final byte REGION = 1;
+    private static final byte CHUNK = 2;
+    private static final byte TASK = 3;
+
+    private final File file;
+    private final KMap<Long, long[]> regions;
+    private final KMap<Long, long[]> chunks;
+    private DataOutputStream out;
+    private boolean dirty;
+    @Getter
+    private PregenTask task;
+
+    public PregenJournal(File file) {
+        this.file = file;
+        this.regions = new KMap<>();
+        this.chunks = new KMap<>();
+
+        try {
+            load();
+            compact();
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        }
+    }
+
+    public static PregenJournal of(File worldFolder) {
+        return new PregenJournal(new File(worldFolder, "iris/pregen.journal"));
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return bits != null && (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    private static boolean set(long[] bits, int index) {
+        long mask = 1L << index;
+
+        if ((bits[index >> 6] & mask) != 0) {
+            return false;
+        }
+
+        bits[index >> 6] |= mask;
+        return true;
+    }
+
+    private static int count(long[] bits) {
+        int c = 0;
+
+        for (long i : bits) {
+            c += Long.bitCount(i);
+        }
+
+        return c;
+    }
+
+    public boolean isRegionComplete(int x, int z) {
+        return get(regions.get(Cache.key(x >> 5, z >> 5)), (x & 31) + ((z & 31) << 5));
+    }
+
+    public boolean isChunkComplete(int x, int z) {
+        return isRegionComplete(x >> 5, z >> 5) || get(chunks.get(Cache.key(x >> 5, z >> 5)), (x & 31) + ((z & 31) << 5));
+    }
+
+    /**
+     * @return How many chunks of the given region are known to be generated
+     */
+    public int getCompletedChunks(int x, int z) {
+        if (isRegionComplete(x, z)) {
+            return 1024;
+        }
+
+        long[] bits = chunks.get(Cache.key(x, z));
+        return bits == null ? 0 : count(bits);
+    }
+
+    /**
+     * @return True if every region of the given task is complete
+     */
+    public boolean isComplete(PregenTask task) {
+        boolean[] complete = {true};
+        task.iterateRegions((x, z) -> complete[0] &= isRegionComplete(x, z));
+        return complete[0];
+    }
+
+    public synchronized void regionGenerated(int x, int z) {
+        if (markRegion(x, z)) {
+            append(REGION, x, z);
+        }
+    }
+
+    public synchronized void chunkGenerated(int x, int z) {
+        if (markChunk(x, z)) {
+            append(CHUNK, x, z);
+
+            if (chunks.get(Cache.key(x >> 5, z >> 5)) == null) {
+                append(REGION, x >> 5, z >> 5);
+            }
+        }
+    }
+
+    /**
+     * Records the task being run. Progress from a different task (another area or chunk order) is still honoured,
+     * but the mismatch is logged.
+     */
+    public synchronized void started(PregenTask task) {
+        if (this.task != null && !this.task.equals(task)) {
+            Iris.warn("Pregen journal " + file.getPath() + " was written for " + describe(this.task) + ", now running " + describe(task));
+        }
+
+        this.task = task;
+
+        try {
+            writeTask(output(), task);
+            dirty = true;
+        } catch (IOException e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        }
+    }
+
+    private static String describe(PregenTask task) {
+        return task.getOrder() + " r" + task.getRadius() + " @ " + task.getCenter().getX() + " " + task.getCenter().getZ();
+    }
+
+    private static void writeTask(DataOutputStream o, PregenTask task) throws IOException {
+        o.writeByte(TASK);
+        o.writeInt(task.getCenter().getX());
+        o.writeInt(task.getCenter().getZ());
+        o.writeInt(task.getRadius());
+        o.writeByte(task.getOrder().ordinal());
+    }
+
+    private static PregenTask readTask(DataInputStream din, int x, int z, boolean legacy) throws IOException {
+        int radius = din.readInt();
+
+        if (legacy) {
+            // Older journals did not record the order, assume the configured one like they always did
+            return PregenTask.builder().center(new Position2(x, z)).radius(radius).build();
+        }
+
+        int order = din.readByte();
+
+        if (order < 0 || order >= PregenOrder.values().length) {
+            throw new IOException("Corrupt pregen journal order " + order);
+        }
+
+        return PregenTask.builder().center(new Position2(x, z)).radius(radius).order(PregenOrder.values()[order]).build();
+    }
+
+    private boolean markRegion(int x, int z) {
+        boolean changed = set(regions.computeIfAbsent(Cache.key(x >> 5, z >> 5), (k) -> new long[16]), (x & 31) + ((z & 31) << 5));
+        chunks.remove(Cache.key(x, z));
+        return changed;
+    }
+
+    /**
+     * Marks a chunk, promoting its region to complete once all 1024 of its chunks are
+     *
+     * @return true if the chunk was not already marked
+     */
+    private boolean markChunk(int x, int z) {
+        if (isChunkComplete(x, z)) {
+            return false;
+        }
+
+        long[] bits = chunks.computeIfAbsent(Cache.key(x >> 5, z >> 5), (k) -> new long[16]);
+        set(bits, (x & 31) + ((z & 31) << 5));
+
+        if (count(bits) == 1024) {
+            markRegion(x >> 5, z >> 5);
+        }
+
+        return true;
+    }
+
+    private void append(byte type, int x, int z) {
+        try {
+            DataOutputStream o = output();
+            o.writeByte(type);
+            o.writeInt(x);
+            o.writeInt(z);
+            dirty = true;
+        } catch (IOException e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        }
+    }
+
+    private DataOutputStream output() throws IOException {
+        if (out == null) {
+            boolean fresh = !file.exists() || file.length() == 0;
+            file.getParentFile().mkdirs();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 8192));
+
+            if (fresh) {
+                out.writeInt(MAGIC);
+            }
+        }
+
+        return out;
+    }
+
+    public synchronized void flush() {
+        if (!dirty || out == null) {
+            return;
+        }
+
+        try {
+            out.flush();
+            dirty = false;
+        } catch (IOException e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void close() {
+        flush();
+
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+
+            out = null;
+        }
+    }
+
+    /**
+     * Replays the journal. A torn record at the end (from a crash mid write) is dropped.
+     */
+    private void load() throws IOException {
+        if (!file.exists() || file.length() < 4) {
+            return;
+        }
+
+        try (DataInputStream din = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = din.readInt();
+            boolean legacy = magic == LEGACY_MAGIC;
+
+            if (magic != MAGIC && !legacy) {
+                Iris.warn("Ignoring unreadable pregen journal " + file.getPath());
+                return;
+            }
+
+            try {
+                while (true) {
+                    byte type = din.readByte();
+                    int x = din.readInt();
+                    int z = din.readInt();
+
+                    switch (type) {
+                        case REGION -> markRegion(x, z);
+                        case CHUNK -> markChunk(x, z);
+                        case TASK -> task = readTask(din, x, z, legacy);
+                        default -> throw new IOException("Corrupt pregen journal record " + type);
+                    }
+                }
+            } catch (EOFException ignored) {
+
+            }
+        }
+    }
+
+    /**
+     * Rewrites the journal as a snapshot: the last task, every finished region, then the chunks of partial regions
+     */
+    private synchronized void compact() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            dos.writeInt(MAGIC);
+
+            if (task != null) {
+                writeTask(dos, task);
+            }
+
+            for (Long i : regions.k()) {
+                long[] bits = regions.get(i);
+
+                for (int j = 0; j < 1024; j++) {
+                    if (get(bits, j)) {
+                        dos.writeByte(REGION);
+                        dos.writeInt((Cache.keyX(i) << 5) + (j & 31));
+                        dos.writeInt((Cache.keyZ(i) << 5) + (j >> 5));
+                    }
+                }
+            }
+
+            for (Long i : chunks.k()) {
+                long[] bits = chunks.get(i);
+
+                for (int j = 0; j < 1024; j++) {
+                    if (get(bits, j)) {
+                        dos.writeByte(CHUNK);
+                        dos.writeInt((Cache.keyX(i) << 5) + (j & 31));
+                        dos.writeInt((Cache.keyZ(i) << 5) + (j >> 5));
+                    }
+                }
+            }
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
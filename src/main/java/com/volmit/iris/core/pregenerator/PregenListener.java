@@ -33,6 +33,8 @@ public interface PregenListener {
 
     void onNetworkStarted(int x, int z);
 
+    void onNetworkLeased(int x, int z, String node);
+
     void onNetworkFailed(int x, int z);
 
     void onNetworkReclaim(int revert);
@@ -0,0 +1,108 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.core.pregenerator;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisSettings;
+
+/**
+ * The order chunks of a pregen task are visited in
+ */
+public enum PregenOrder {
+    /**
+     * Regions in a spiral from the centre, chunks of each region from its own centre outwards
+     */
+    SPIRAL,
+
+    /**
+     * A hilbert curve over every chunk of the task. It stays inside a region until the region is done and then
+     * steps into a neighbouring one, so consecutive chunks always share most of their parallax area.
+     */
+    HILBERT,
+
+    /**
+     * A z-order (morton) curve over every chunk of the task. Cheaper to compute than hilbert but it jumps
+     * at the edge of every power of two block.
+     */
+    MORTON;
+
+    public static PregenOrder fromSettings() {
+        try {
+            return valueOf(IrisSettings.get().getGenerator().getPregenOrder().trim().toUpperCase());
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            return SPIRAL;
+        }
+    }
+
+    /**
+     * The position of a point along this curve
+     *
+     * @param x    the x coordinate, 0 to (1 << bits) - 1
+     * @param z    the z coordinate, 0 to (1 << bits) - 1
+     * @param bits the size of the curve's square as a power of two
+     * @return the distance along the curve (always 0 for spiral)
+     */
+    public long index(int x, int z, int bits) {
+        return switch (this) {
+            case SPIRAL -> 0;
+            case HILBERT -> hilbert(x, z, bits);
+            case MORTON -> morton(x, z);
+        };
+    }
+
+    private static long hilbert(int x, int z, int bits) {
+        int n = 1 << bits;
+        long d = 0;
+
+        for (int s = n >> 1; s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int rz = (z & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ rz);
+
+            if (rz == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    z = n - 1 - z;
+                }
+
+                int t = x;
+                x = z;
+                z = t;
+            }
+        }
+
+        return d;
+    }
+
+    private static long morton(int x, int z) {
+        return spread(x) | (spread(z) << 1);
+    }
+
+    private static long spread(int v) {
+        long l = v & 0xFFFFFFFFL;
+        l = (l | (l << 16)) & 0x0000FFFF0000FFFFL;
+        l = (l | (l << 8)) & 0x00FF00FF00FF00FFL;
+        l = (l | (l << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        l = (l | (l << 2)) & 0x3333333333333333L;
+        l = (l | (l << 1)) & 0x5555555555555555L;
+        return l;
+    }
+}
@@ -19,6 +19,7 @@
 package com.volmit.iris.core.pregenerator;
 
 import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.documentation.RegionCoordinates;
 import com.volmit.iris.util.math.Position2;
 import com.volmit.iris.util.math.Spiraled;
 import com.volmit.iris.util.math.Spiraler;
@@ -36,22 +37,73 @@ public class PregenTask {
     @Builder.Default
     private int radius = 1;
 
-    private static final KList<Position2> order = computeChunkOrder();
+    @Builder.Default
+    private PregenOrder order = PregenOrder.fromSettings();
+
+    private static final KList<Position2> chunkOrder = computeChunkOrder();
 
     public void iterateRegions(Spiraled s) {
-        new Spiraler(radius * 2, radius * 2, s)
+        if (order == PregenOrder.SPIRAL) {
+            new Spiraler(radius * 2, radius * 2, s)
+                    .setOffset(center.getX(), center.getZ()).drain();
+            return;
+        }
+
+        KList<Position2> regions = new KList<>();
+        new Spiraler(radius * 2, radius * 2, (x, z) -> regions.add(new Position2(x, z)))
                 .setOffset(center.getX(), center.getZ()).drain();
+        int bits = getCurveBits();
+        int ox = center.getX() - radius;
+        int oz = center.getZ() - radius;
+        regions.sort(Comparator.comparingLong((i) -> order.index((i.getX() - ox) << 5, (i.getZ() - oz) << 5, bits)));
+
+        for (Position2 i : regions) {
+            s.on(i.getX(), i.getZ());
+        }
+    }
+
+    /**
+     * Iterates the chunks of one region of this task in the task's order. For the curve orders this continues the
+     * curve of the previous region, so the first chunks of a region sit next to the last chunks of the one before.
+     */
+    public void iterateChunks(int xr, int zr, Spiraled s) {
+        if (order == PregenOrder.SPIRAL) {
+            iterateRegion(xr, zr, s);
+            return;
+        }
+
+        int bits = getCurveBits();
+        int ox = (xr - (center.getX() - radius)) << 5;
+        int oz = (zr - (center.getZ() - radius)) << 5;
+        KList<Position2> chunks = chunkOrder.copy();
+        chunks.sort(Comparator.comparingLong((i) -> order.index(ox + i.getX(), oz + i.getZ(), bits)));
+
+        for (Position2 i : chunks) {
+            s.on(i.getX() + (xr << 5), i.getZ() + (zr << 5));
+        }
+    }
+
+    @RegionCoordinates
+    public boolean containsRegion(int x, int z) {
+        return Math.abs(x - center.getX()) <= radius && Math.abs(z - center.getZ()) <= radius;
+    }
+
+    /**
+     * @return the smallest power of two whose square holds every chunk of this task
+     */
+    private int getCurveBits() {
+        int side = ((radius * 2) + 1) << 5;
+        return 32 - Integer.numberOfLeadingZeros(side - 1);
     }
 
     public static void iterateRegion(int xr, int zr, Spiraled s) {
-        for (Position2 i : order) {
+        for (Position2 i : chunkOrder) {
             s.on(i.getX() + (xr << 5), i.getZ() + (zr << 5));
         }
     }
 
     public void iterateAllChunks(Spiraled s) {
-        new Spiraler(radius * 2, radius * 2, (x, z) -> iterateRegion(x, z, s))
-                .setOffset(center.getX(), center.getZ()).drain();
+        iterateRegions((x, z) -> iterateChunks(x, z, s));
     }
 
     private static KList<Position2> computeChunkOrder() {
@@ -0,0 +1,174 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.util.format.Form;
+import com.volmit.iris.util.math.M;
+import com.volmit.iris.util.scheduling.J;
+
+/**
+ * Adaptive window of chunks in flight for the in-world pregen methods (AIMD). Every second the window grows by one
+ * while it is full. It shrinks by 30% when the server ticks slower than the target, when the heap is nearly
+ * full, or when chunk latency climbs well above the best latency seen, which means requests are only queueing.
+ * Chunks are admitted one at a time as others finish, so the window never drains in batches.
+ */
+public class PregenThrottle {
+    private final Object lock = new Object();
+    private final int min;
+    private final int max;
+    private final double targetMSPT;
+    private final double maxHeap;
+    private double window;
+    private int inFlight = 0;
+    private boolean saturated = false;
+    private double latency = 0;
+    private double latencyFloor = 0;
+    private long lastAdjust = M.ms();
+    private volatile double mspt = 50;
+    private volatile long lastTick = 0;
+    private volatile String decision = "starting";
+    private int tickTask = -1;
+
+    public PregenThrottle(int threads) {
+        min = Math.max(1, threads / 4);
+        max = Math.max(min, threads * Math.max(1, IrisSettings.get().getConcurrency().getPregenMaxWindowMultiplier()));
+        window = threads;
+        targetMSPT = IrisSettings.get().getConcurrency().getPregenTargetMSPT();
+        maxHeap = IrisSettings.get().getConcurrency().getPregenMaxHeapPercent() / 100D;
+    }
+
+    /**
+     * Starts measuring the server tick time
+     */
+    public void start() {
+        lastTick = M.ms();
+        tickTask = J.sr(this::tick, 1);
+    }
+
+    public void stop() {
+        if (tickTask != -1) {
+            J.csr(tickTask);
+            tickTask = -1;
+        }
+    }
+
+    private void tick() {
+        long now = M.ms();
+        mspt = (mspt * 0.9) + ((now - lastTick) * 0.1);
+        lastTick = now;
+    }
+
+    /**
+     * Blocks until there is room in the window for another chunk
+     */
+    public void acquire() {
+        synchronized (lock) {
+            while (inFlight >= (int) window) {
+                saturated = true;
+
+                try {
+                    lock.wait(50);
+                } catch (InterruptedException e) {
+                    Iris.reportError(e);
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            inFlight++;
+        }
+    }
+
+    /**
+     * Gives a slot back once its chunk is done
+     *
+     * @param nanos how long the chunk took since it was admitted
+     */
+    public void release(long nanos) {
+        synchronized (lock) {
+            double ms = nanos / 1000000D;
+            inFlight--;
+            latency = latency <= 0 ? ms : (latency * 0.9) + (ms * 0.1);
+            // The floor follows new lows right away and drifts up slowly, so it tracks an uncongested latency
+            latencyFloor = latencyFloor <= 0 ? ms : Math.min(ms, latencyFloor * 1.001);
+
+            if (M.ms() - lastAdjust >= 1000) {
+                adjust();
+            }
+
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for everything in flight to finish
+     */
+    public void awaitIdle() {
+        synchronized (lock) {
+            while (inFlight > 0) {
+                try {
+                    lock.wait(50);
+                } catch (InterruptedException e) {
+                    Iris.reportError(e);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void adjust() {
+        Runtime r = Runtime.getRuntime();
+        double heap = (double) (r.totalMemory() - r.freeMemory()) / r.maxMemory();
+        double last = window;
+        // Without a tick task (or once it stops ticking) the tick time is the time since the last tick
+        double tickTime = tickTask == -1 ? 50 : Math.max(mspt, M.ms() - lastTick);
+
+        if (tickTime > targetMSPT) {
+            window = Math.max(min, window * 0.7);
+            decision = "slower, tick " + Form.f(tickTime, 0) + "ms";
+        } else if (heap > maxHeap) {
+            window = Math.max(min, window * 0.7);
+            decision = "slower, heap " + Form.pc(heap, 0);
+        } else if (latencyFloor > 0 && latency > latencyFloor * 4) {
+            window = Math.max(min, window * 0.7);
+            decision = "slower, latency " + Form.f(latency, 0) + "ms";
+        } else if (saturated && window < max) {
+            window = Math.min(max, window + 1);
+            decision = "faster";
+        } else {
+            decision = "holding";
+        }
+
+        if ((int) last != (int) window) {
+            Iris.verbose("Pregen window " + (int) last + " -> " + (int) window + " (" + decision + ")");
+        }
+
+        saturated = false;
+        lastAdjust = M.ms();
+    }
+
+    public String getStatus() {
+        synchronized (lock) {
+            return "[" + inFlight + "/" + (int) window + " in flight, " + decision + "]";
+        }
+    }
+}
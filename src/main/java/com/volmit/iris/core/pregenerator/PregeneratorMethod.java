@@ -18,6 +18,10 @@
 
 package com.volmit.iris.core.pregenerator;
 
+import com.volmit.iris.core.IrisSettings;
+
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Represents something that is capable of generating in chunks or regions, or both
  */
@@ -47,6 +51,39 @@ public interface PregeneratorMethod {
      */
     boolean supportsRegions(int x, int z, PregenListener listener);
 
+    /**
+     * Return true if generateRegion can run for several regions at once on different threads.
+     * The pregenerator then keeps a few regions in flight and calls saveRegion as each one finishes
+     * instead of saving everything between regions.
+     *
+     * @return true if regions can be pipelined
+     */
+    default boolean supportsPipelining() {
+        return false;
+    }
+
+    /**
+     * How many pipelined regions to keep in flight at once
+     *
+     * @return the number of regions
+     */
+    default int getRegionsInFlight() {
+        return Math.max(1, IrisSettings.get().getConcurrency().getPregenRegionsInFlight());
+    }
+
+    /**
+     * Called from any thread once a pipelined region is generated, so it can be written out
+     * while other regions keep generating
+     *
+     * @param x the x region
+     * @param z the z region
+     * @return a future completed once the region is on disk, or completed exceptionally if it could not be saved
+     */
+    default CompletableFuture<Void> saveRegion(int x, int z) {
+        save();
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Return the name of the method being used
      *
@@ -56,6 +93,24 @@ public interface PregeneratorMethod {
      */
     String getMethod(int x, int z);
 
+    /**
+     * Return a short status of what this method is holding in memory, or null if there is nothing to report
+     *
+     * @return the status
+     */
+    default String getStatus() {
+        return null;
+    }
+
+    /**
+     * Return the throttle deciding how many chunks this method keeps in flight, or null if it has none
+     *
+     * @return the throttle
+     */
+    default PregenThrottle getThrottle() {
+        return null;
+    }
+
     /**
      * Called to generate a region. Execute sync, if multicore internally, wait
      * for the task to complete
@@ -66,6 +121,29 @@ public interface PregeneratorMethod {
      */
     void generateRegion(int x, int z, PregenListener listener);
 
+    /**
+     * Called to generate a region as part of a task, visiting its chunks in the task's order.
+     * By default the order is left to {@link #generateRegion(int, int, PregenListener)}.
+     *
+     * @param x        the x
+     * @param z        the z
+     * @param task     the task being generated
+     * @param listener signal chunks generating & generated. Parallel capable.
+     */
+    default void generateRegion(int x, int z, PregenTask task, PregenListener listener) {
+        generateRegion(x, z, listener);
+    }
+
+    /**
+     * Called when a task starts and ends (with null). Methods generating with their own engine can use the
+     * frontier to keep parallax loaded exactly as long as the rest of the task still needs it.
+     *
+     * @param frontier the frontier of the running task or null
+     */
+    default void retainParallax(PregenFrontier frontier) {
+
+    }
+
     /**
      * Called to generate a chunk. You can go async so long as save will wait on the threads to finish
      *
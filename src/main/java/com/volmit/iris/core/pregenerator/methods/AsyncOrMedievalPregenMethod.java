@@ -19,6 +19,7 @@
 package com.volmit.iris.core.pregenerator.methods;
 
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenThrottle;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import io.papermc.lib.PaperLib;
 import org.bukkit.World;
@@ -50,6 +51,11 @@ public class AsyncOrMedievalPregenMethod implements PregeneratorMethod {
         return method.getMethod(x, z);
     }
 
+    @Override
+    public PregenThrottle getThrottle() {
+        return method.getThrottle();
+    }
+
     @Override
     public boolean supportsRegions(int x, int z, PregenListener listener) {
         return false;
@@ -20,20 +20,19 @@ package com.volmit.iris.core.pregenerator.methods;
 
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenThrottle;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.engine.parallel.MultiBurst;
-import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.scheduling.J;
 import io.papermc.lib.PaperLib;
 import org.bukkit.Chunk;
 import org.bukkit.World;
 
-import java.util.concurrent.CompletableFuture;
-
 public class AsyncPregenMethod implements PregeneratorMethod {
     private final World world;
     private final MultiBurst burst;
-    private final KList<CompletableFuture<?>> future;
+    private final PregenThrottle throttle;
 
     public AsyncPregenMethod(World world, int threads) {
         if (!PaperLib.isPaper()) {
@@ -42,7 +41,7 @@ public class AsyncPregenMethod implements PregeneratorMethod {
 
         this.world = world;
         burst = new MultiBurst("Iris Async Pregenerator", IrisSettings.get().getConcurrency().getPregenThreadPriority(), threads);
-        future = new KList<>(1024);
+        throttle = new PregenThrottle(threads);
     }
 
     private void unloadAndSaveAllChunks() {
@@ -58,29 +57,28 @@ public class AsyncPregenMethod implements PregeneratorMethod {
         }
     }
 
-    private void completeChunk(int x, int z, PregenListener listener) {
-        try {
-            PaperLib.getChunkAtAsync(world, x, z, true).get();
-            listener.onChunkGenerated(x, z);
-        } catch (Throwable e) {
-            J.sleep(5);
-            future.add(burst.complete(() -> completeChunk(x, z, listener)));
-        }
-    }
-
-    private void waitForChunks() {
-        for (CompletableFuture<?> i : future.copy()) {
-            try {
-                i.get();
-                future.remove(i);
-            } catch (Throwable e) {
-                e.printStackTrace();
+    /**
+     * Requests the chunk without holding a thread while paper loads it. The slot is kept through retries and
+     * given back once the chunk is there.
+     */
+    private void requestChunk(int x, int z, PregenListener listener, long start) {
+        PaperLib.getChunkAtAsync(world, x, z, true).whenComplete((chunk, error) -> {
+            if (error != null || chunk == null) {
+                burst.lazy(() -> {
+                    J.sleep(5);
+                    requestChunk(x, z, listener, start);
+                });
+                return;
             }
-        }
+
+            listener.onChunkGenerated(x, z);
+            throttle.release(M.ns() - start);
+        });
     }
 
     @Override
     public void init() {
+        throttle.start();
         unloadAndSaveAllChunks();
     }
 
@@ -91,17 +89,23 @@ public class AsyncPregenMethod implements PregeneratorMethod {
 
     @Override
     public void close() {
-        waitForChunks();
+        throttle.awaitIdle();
+        throttle.stop();
         burst.shutdownAndAwait();
         unloadAndSaveAllChunks();
     }
 
     @Override
     public void save() {
-        waitForChunks();
+        throttle.awaitIdle();
         unloadAndSaveAllChunks();
     }
 
+    @Override
+    public PregenThrottle getThrottle() {
+        return throttle;
+    }
+
     @Override
     public boolean supportsRegions(int x, int z, PregenListener listener) {
         return false;
@@ -114,11 +118,8 @@ public class AsyncPregenMethod implements PregeneratorMethod {
 
     @Override
     public void generateChunk(int x, int z, PregenListener listener) {
-        if (future.size() > IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())) {
-            waitForChunks();
-        }
-
+        throttle.acquire();
         listener.onChunkGenerating(x, z);
-        future.add(burst.complete(() -> completeChunk(x, z, listener)));
+        requestChunk(x, z, listener, M.ns());
     }
 }
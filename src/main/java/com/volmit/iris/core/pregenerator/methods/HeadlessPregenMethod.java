@@ -18,12 +18,16 @@
 
 package com.volmit.iris.core.pregenerator.methods;
 
+import com.volmit.iris.core.pregenerator.PregenFrontier;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.engine.headless.HeadlessGenerator;
 import com.volmit.iris.engine.headless.HeadlessWorld;
 import lombok.Getter;
 
+import java.util.concurrent.CompletableFuture;
+
 public class HeadlessPregenMethod implements PregeneratorMethod {
     private final HeadlessWorld world;
 
@@ -59,16 +63,41 @@ public class HeadlessPregenMethod implements PregeneratorMethod {
         return true;
     }
 
+    @Override
+    public boolean supportsPipelining() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> saveRegion(int x, int z) {
+        return generator.saveRegion(x, z);
+    }
+
     @Override
     public String getMethod(int x, int z) {
         return "Headless";
     }
 
+    @Override
+    public String getStatus() {
+        return generator.getWriter().getStatus();
+    }
+
     @Override
     public void generateRegion(int x, int z, PregenListener listener) {
         generator.generateRegion(x, z, listener);
     }
 
+    @Override
+    public void generateRegion(int x, int z, PregenTask task, PregenListener listener) {
+        generator.generateRegion(x, z, task, listener);
+    }
+
+    @Override
+    public void retainParallax(PregenFrontier frontier) {
+        generator.getGenerator().retainParallax(frontier);
+    }
+
     @Override
     public void generateChunk(int x, int z, PregenListener listener) {
         throw new UnsupportedOperationException();
@@ -20,7 +20,10 @@ package com.volmit.iris.core.pregenerator.methods;
 
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.core.pregenerator.PregenFrontier;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
+import com.volmit.iris.core.pregenerator.PregenThrottle;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.core.tools.IrisWorlds;
 import com.volmit.iris.engine.headless.HeadlessWorld;
@@ -28,6 +31,7 @@ import com.volmit.iris.util.math.Position2;
 import org.bukkit.World;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 public class HybridPregenMethod implements PregeneratorMethod {
     private final PregeneratorMethod headless;
@@ -50,6 +54,11 @@ public class HybridPregenMethod implements PregeneratorMethod {
         return "Hybrid<" + ((supportsRegions(x, z, null) ? headless.getMethod(x, z) : inWorld.getMethod(x, z)) + ">");
     }
 
+    @Override
+    public PregenThrottle getThrottle() {
+        return inWorld.getThrottle();
+    }
+
     @Override
     public void init() {
         headless.init();
@@ -89,11 +98,31 @@ public class HybridPregenMethod implements PregeneratorMethod {
         return r;
     }
 
+    @Override
+    public boolean supportsPipelining() {
+        return headless.supportsPipelining();
+    }
+
+    @Override
+    public CompletableFuture<Void> saveRegion(int x, int z) {
+        return headless.saveRegion(x, z);
+    }
+
     @Override
     public void generateRegion(int x, int z, PregenListener listener) {
         headless.generateRegion(x, z, listener);
     }
 
+    @Override
+    public void generateRegion(int x, int z, PregenTask task, PregenListener listener) {
+        headless.generateRegion(x, z, task, listener);
+    }
+
+    @Override
+    public void retainParallax(PregenFrontier frontier) {
+        headless.retainParallax(frontier);
+    }
+
     @Override
     public void generateChunk(int x, int z, PregenListener listener) {
         inWorld.generateChunk(x, z, listener);
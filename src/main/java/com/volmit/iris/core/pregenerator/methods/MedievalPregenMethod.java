@@ -20,37 +20,24 @@ package com.volmit.iris.core.pregenerator.methods;
 
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenThrottle;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
-import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.scheduling.J;
 import org.bukkit.Chunk;
 import org.bukkit.World;
 
-import java.util.concurrent.CompletableFuture;
-
 public class MedievalPregenMethod implements PregeneratorMethod {
     private final World world;
-    private final KList<CompletableFuture<?>> futures;
+    private final PregenThrottle throttle;
 
     public MedievalPregenMethod(World world) {
         this.world = world;
-        futures = new KList<>();
-    }
-
-    private void waitForChunks() {
-        for (CompletableFuture<?> i : futures) {
-            try {
-                i.get();
-            } catch (Throwable e) {
-                e.printStackTrace();
-            }
-        }
-
-        futures.clear();
+        throttle = new PregenThrottle(IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount()));
     }
 
     private void unloadAndSaveAllChunks() {
-        waitForChunks();
+        throttle.awaitIdle();
         try {
             J.sfut(() -> {
                 for (Chunk i : world.getLoadedChunks()) {
@@ -65,12 +52,14 @@ public class MedievalPregenMethod implements PregeneratorMethod {
 
     @Override
     public void init() {
+        throttle.start();
         unloadAndSaveAllChunks();
     }
 
     @Override
     public void close() {
         unloadAndSaveAllChunks();
+        throttle.stop();
     }
 
     @Override
@@ -78,6 +67,11 @@ public class MedievalPregenMethod implements PregeneratorMethod {
         unloadAndSaveAllChunks();
     }
 
+    @Override
+    public PregenThrottle getThrottle() {
+        return throttle;
+    }
+
     @Override
     public boolean supportsRegions(int x, int z, PregenListener listener) {
         return false;
@@ -95,14 +89,16 @@ public class MedievalPregenMethod implements PregeneratorMethod {
 
     @Override
     public void generateChunk(int x, int z, PregenListener listener) {
-        if (futures.size() > IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())) {
-            waitForChunks();
-        }
-
+        throttle.acquire();
         listener.onChunkGenerating(x, z);
-        futures.add(J.sfut(() -> {
-            world.getChunkAt(x, z);
-            listener.onChunkGenerated(x, z);
-        }));
+        long start = M.ns();
+        J.s(() -> {
+            try {
+                world.getChunkAt(x, z);
+                listener.onChunkGenerated(x, z);
+            } finally {
+                throttle.release(M.ns() - start);
+            }
+        });
     }
 }
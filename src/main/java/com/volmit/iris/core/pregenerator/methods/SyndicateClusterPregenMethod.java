@@ -0,0 +1,536 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.methods;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
+import com.volmit.iris.core.pregenerator.PregeneratorMethod;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicateNode;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicatePackSync;
+import com.volmit.iris.core.pregenerator.syndicate.command.*;
+import com.volmit.iris.engine.object.IrisDimension;
+import com.volmit.iris.engine.parallel.BurstExecutor;
+import com.volmit.iris.engine.parallel.MultiBurst;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.io.IO;
+import com.volmit.iris.util.math.M;
+import com.volmit.iris.util.math.Position2;
+import com.volmit.iris.util.scheduling.Looper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Coordinates many syndicate workers. Regions are leased out in batches sized to each worker's measured speed,
+ * leases are kept alive by heartbeats and expire (putting their regions back in the queue) when a worker stops
+ * answering. Finished regions are streamed back with a checksum and only moved into the world once it matches.
+ * When the queue runs dry, idle fast workers take unstarted regions from the leases of slow ones.
+ */
+public class SyndicateClusterPregenMethod implements PregeneratorMethod {
+    private final File worldFolder;
+    private final IrisDimension dimension;
+    private final long seed;
+    private final KList<SyndicateNode> nodes;
+    private final UUID pack = UUID.randomUUID();
+    private final KList<Position2> queue = new KList<>();
+    private final KMap<Position2, CountDownLatch> waiting = new KMap<>();
+    private final Set<Position2> downloaded = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicInteger expired = new AtomicInteger(0);
+    private final AtomicInteger corrupted = new AtomicInteger(0);
+    private final AtomicInteger stolen = new AtomicInteger(0);
+    private final long leaseTimeout;
+    private final int targetSeconds;
+    private final int maxLease;
+    private volatile PregenListener listener;
+    private Looper coordinator;
+
+    public SyndicateClusterPregenMethod(File worldFolder, IrisDimension dimension, long seed, KList<SyndicateNode> nodes) {
+        this.worldFolder = worldFolder;
+        this.dimension = dimension;
+        this.seed = seed;
+        this.nodes = nodes;
+        leaseTimeout = IrisSettings.get().getConcurrency().getSyndicateLeaseTimeoutMS();
+        targetSeconds = IrisSettings.get().getConcurrency().getSyndicateLeaseTargetSeconds();
+        maxLease = Math.max(1, IrisSettings.get().getConcurrency().getSyndicateMaxLeaseRegions());
+    }
+
+    @Override
+    public void init() {
+        coordinator = new Looper() {
+            @Override
+            protected long loop() {
+                if (closed.get()) {
+                    return -1;
+                }
+
+                coordinate();
+                return 250;
+            }
+        };
+        coordinator.setName("Iris Syndicate Coordinator");
+        coordinator.start();
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+
+        if (coordinator != null) {
+            coordinator.interrupt();
+        }
+
+        for (SyndicateNode i : nodes) {
+            try {
+                if (i.getLease() != null) {
+                    i.send(SyndicateRelease.builder().pack(pack).lease(i.getLease()).regions(i.getLeased().copy()).build());
+                }
+
+                if (i.isInstalled()) {
+                    i.send(SyndicateClose.builder().pack(pack).build());
+                }
+            } catch (Throwable e) {
+                Iris.reportError(e);
+            }
+        }
+
+        for (CountDownLatch i : waiting.values()) {
+            i.countDown();
+        }
+    }
+
+    @Override
+    public void save() {
+
+    }
+
+    @Override
+    public boolean supportsRegions(int x, int z, PregenListener listener) {
+        return true;
+    }
+
+    @Override
+    public boolean supportsPipelining() {
+        return true;
+    }
+
+    /**
+     * Enough regions in flight that every worker can hold a full lease and still have its next batch queued
+     */
+    @Override
+    public int getRegionsInFlight() {
+        return Math.max(1, nodes.size() * maxLease * 2);
+    }
+
+    /**
+     * Downloaded regions are already moved into the world. A region whose wait was cut short by closing never was.
+     */
+    @Override
+    public CompletableFuture<Void> saveRegion(int x, int z) {
+        if (downloaded.remove(new Position2(x, z))) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture.failedFuture(new IOException("Region " + x + " " + z + " was never downloaded"));
+    }
+
+    @Override
+    public String getMethod(int x, int z) {
+        return "Syndicate<" + nodes.size() + " nodes>";
+    }
+
+    @Override
+    public String getStatus() {
+        int online = 0;
+        int leased = 0;
+
+        for (SyndicateNode i : nodes) {
+            online += i.isInstalled() && i.isAvailable() ? 1 : 0;
+            leased += i.getLeased().size();
+        }
+
+        return "Syndicate " + online + "/" + nodes.size() + " nodes, " + leased + " leased, " + queue.size() + " queued, "
+                + expired.get() + " expired, " + stolen.get() + " rebalanced, " + corrupted.get() + " corrupt";
+    }
+
+    /**
+     * Queues the region for the next lease and waits until a worker's copy of it has been downloaded
+     */
+    @Override
+    public void generateRegion(int x, int z, PregenListener listener) {
+        this.listener = listener;
+        Position2 p = new Position2(x, z);
+        CountDownLatch latch = new CountDownLatch(1);
+        waiting.put(p, latch);
+
+        synchronized (queue) {
+            queue.add(p);
+        }
+
+        try {
+            while (!closed.get()) {
+                if (latch.await(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Iris.reportError(e);
+        }
+
+        waiting.remove(p);
+    }
+
+    @Override
+    public void generateChunk(int x, int z, PregenListener listener) {
+
+    }
+
+    private void coordinate() {
+        BurstExecutor b = MultiBurst.burst.burst(nodes.size());
+
+        for (SyndicateNode i : nodes) {
+            b.queue(() -> service(i));
+        }
+
+        b.complete();
+        rebalance();
+    }
+
+    private void service(SyndicateNode node) {
+        if (node.getLease() != null && M.ms() - node.getLastContact() > leaseTimeout) {
+            expire(node);
+        }
+
+        if (!node.isAvailable()) {
+            return;
+        }
+
+        try {
+            if (!node.isInstalled()) {
+                install(node);
+            }
+
+            if (node.getLease() != null) {
+                heartbeat(node);
+            }
+
+            topUp(node);
+        } catch (Throwable e) {
+            node.failed();
+
+            if (node.getFailures() == 1) {
+                Iris.warn("Syndicate node " + node.getName() + " is not responding: " + e.getMessage());
+            }
+        }
+    }
+
+    private void install(SyndicateNode node) throws Throwable {
+        SyndicateCommand r = SyndicatePackSync.install(node::connect, dimension.getLoader().getDataFolder(), SyndicateInstallPack.builder()
+                .pack(pack)
+                .seed(seed)
+                .dimensionKey(dimension.getLoadKey())
+                .build());
+
+        if (r instanceof SyndicateOK) {
+            node.contact();
+            node.setInstalled(true);
+            Iris.info("Syndicate node " + node.getName() + " installed " + dimension.getLoadKey());
+        } else {
+            node.failed();
+        }
+    }
+
+    private void heartbeat(SyndicateNode node) throws Throwable {
+        SyndicateCommand r = node.send(SyndicateHeartbeat.builder().pack(pack).lease(node.getLease()).build());
+
+        if (!(r instanceof SyndicateLeaseStatus)) {
+            // The worker no longer knows the lease (restarted or expired on its side)
+            node.setInstalled(!(r instanceof SyndicateInstallFirst));
+            expire(node);
+            return;
+        }
+
+        node.contact();
+        SyndicateLeaseStatus status = (SyndicateLeaseStatus) r;
+        node.sample(status);
+
+        if (status.getCurrent() != null) {
+            report(node, status.getCurrent(), status.getCurrentChunks());
+        }
+
+        KList<Position2> fetched = new KList<>();
+
+        for (Position2 i : status.getReady()) {
+            if (node.getLeased().contains(i) && fetch(node, i)) {
+                fetched.add(i);
+            }
+        }
+
+        if (fetched.isEmpty()) {
+            return;
+        }
+
+        node.send(SyndicateRelease.builder().pack(pack).lease(node.getLease()).regions(fetched).build());
+
+        for (Position2 i : fetched) {
+            report(node, i, 1024);
+            node.getLeased().remove(i);
+            node.getReported().remove(i);
+            node.setCompleted(node.getCompleted() + 1);
+            listener.onNetworkDownloaded(i.getX(), i.getZ());
+            downloaded.add(i);
+            CountDownLatch latch = waiting.get(i);
+
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Downloads a finished region into a temporary file and moves it into the world only if the checksum matches
+     */
+    private boolean fetch(SyndicateNode node, Position2 region) {
+        File target = new File(worldFolder, "region/r." + region.getX() + "." + region.getZ() + ".mca");
+        File part = new File(target.getPath() + ".part");
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            AtomicBoolean ok = new AtomicBoolean(false);
+
+            try {
+                node.connect().command(SyndicateFetchRegion.builder()
+                        .pack(pack).lease(node.getLease())
+                        .x(region.getX()).z(region.getZ())
+                        .build()).build().go((response, in) -> {
+                    if (!(response instanceof SyndicateRegionData)) {
+                        return;
+                    }
+
+                    SyndicateRegionData data = (SyndicateRegionData) response;
+                    CRC32 crc = new CRC32();
+                    part.getParentFile().mkdirs();
+
+                    try (OutputStream out = new CheckedOutputStream(new FileOutputStream(part), crc)) {
+                        long wrote = IO.transfer(in, out, 8192, data.getLength());
+
+                        if (wrote != data.getLength() || crc.getValue() != data.getChecksum()) {
+                            corrupted.incrementAndGet();
+                            return;
+                        }
+                    } catch (IOException e) {
+                        Iris.reportError(e);
+                        return;
+                    }
+
+                    ok.set(true);
+                });
+            } catch (Throwable e) {
+                Iris.reportError(e);
+            }
+
+            if (ok.get()) {
+                try {
+                    Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return true;
+                } catch (IOException e) {
+                    Iris.reportError(e);
+                    e.printStackTrace();
+                }
+            }
+
+            part.delete();
+        }
+
+        Iris.warn("Failed to fetch region " + region + " from " + node.getName());
+        return false;
+    }
+
+    /**
+     * Signals newly generated network chunks of a region, up to the given number of chunks done
+     */
+    private void report(SyndicateNode node, Position2 region, int chunks) {
+        int done = node.getReported().getOrDefault(region, 0);
+
+        if (chunks <= done) {
+            return;
+        }
+
+        AtomicInteger skip = new AtomicInteger(done);
+        AtomicInteger add = new AtomicInteger(chunks - done);
+        PregenTask.iterateRegion(region.getX(), region.getZ(), (xx, zz) -> {
+            if (skip.decrementAndGet() < 0 && add.decrementAndGet() >= 0) {
+                listener.onNetworkGeneratedChunk(xx, zz);
+            }
+        });
+        node.getReported().put(region, chunks);
+    }
+
+    /**
+     * Drops a node's lease and puts everything it had not delivered back at the front of the queue
+     */
+    private void expire(SyndicateNode node) {
+        if (node.getLease() == null) {
+            return;
+        }
+
+        int revert = 0;
+
+        for (Integer i : node.getReported().values()) {
+            revert += i;
+        }
+
+        KList<Position2> lost = node.getLeased().copy();
+
+        synchronized (queue) {
+            queue.addAll(0, lost);
+        }
+
+        if (listener != null) {
+            listener.onNetworkReclaim(revert);
+
+            for (Position2 i : lost) {
+                listener.onNetworkFailed(i.getX(), i.getZ());
+            }
+        }
+
+        expired.incrementAndGet();
+        Iris.warn("Syndicate lease on " + node.getName() + " expired, " + lost.size() + " region(s) requeued");
+        node.resetLease();
+    }
+
+    private void topUp(SyndicateNode node) throws Throwable {
+        int want = node.getDesiredRegions(targetSeconds, maxLease) - node.getLeased().size();
+
+        if (want <= 0) {
+            return;
+        }
+
+        KList<Position2> regions = new KList<>();
+
+        synchronized (queue) {
+            while (regions.size() < want && queue.isNotEmpty()) {
+                regions.add(queue.remove(0));
+            }
+        }
+
+        lease(node, regions);
+    }
+
+    private void lease(SyndicateNode node, KList<Position2> regions) throws Throwable {
+        if (regions.isEmpty()) {
+            return;
+        }
+
+        UUID id = node.getLease() == null ? UUID.randomUUID() : node.getLease();
+        SyndicateCommand r;
+
+        try {
+            r = node.send(SyndicateLease.builder().pack(pack).lease(id).regions(regions).timeout(leaseTimeout).build());
+        } catch (Throwable e) {
+            requeue(regions);
+            throw e;
+        }
+
+        if (!(r instanceof SyndicateOK)) {
+            requeue(regions);
+
+            if (r instanceof SyndicateInstallFirst) {
+                node.setInstalled(false);
+            }
+
+            return;
+        }
+
+        node.contact();
+        node.setLease(id);
+        node.getLeased().addAll(regions);
+
+        for (Position2 i : regions) {
+            listener.onNetworkLeased(i.getX(), i.getZ(), node.getName());
+        }
+    }
+
+    private void requeue(KList<Position2> regions) {
+        synchronized (queue) {
+            queue.addAll(0, regions);
+        }
+    }
+
+    /**
+     * Once nothing is queued, moves unstarted regions from the node that would take longest to finish them to
+     * an idle node that would finish one sooner
+     */
+    private void rebalance() {
+        synchronized (queue) {
+            if (queue.isNotEmpty()) {
+                return;
+            }
+        }
+
+        for (SyndicateNode i : nodes) {
+            if (i.getRate() <= 0 || i.getLease() == null || !i.isAvailable() || i.getLeased().size() >= i.getDesiredRegions(targetSeconds, maxLease)) {
+                continue;
+            }
+
+            SyndicateNode victim = null;
+
+            for (SyndicateNode j : nodes) {
+                if (j != i && j.getLease() != null && j.getPending().isNotEmpty() && (victim == null || j.getBacklogMS() > victim.getBacklogMS())) {
+                    victim = j;
+                }
+            }
+
+            if (victim == null || victim.getBacklogMS() <= (1024D * 1000D / i.getRate()) * (i.getLeased().size() + 1)) {
+                continue;
+            }
+
+            try {
+                Position2 region = victim.getPending().get(victim.getPending().size() - 1);
+                SyndicateCommand r = victim.send(SyndicateRelease.builder().pack(pack).lease(victim.getLease()).regions(new KList<>(region)).build());
+
+                if (r instanceof SyndicateLeaseStatus && ((SyndicateLeaseStatus) r).getReleased().contains(region)) {
+                    victim.getLeased().remove(region);
+                    victim.getReported().remove(region);
+                    victim.getPending().remove(region);
+                    lease(i, new KList<>(region));
+                    stolen.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                victim.failed();
+            }
+        }
+    }
+}
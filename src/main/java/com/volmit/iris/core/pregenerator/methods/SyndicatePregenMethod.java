@@ -19,20 +19,18 @@
 package com.volmit.iris.core.pregenerator.methods;
 
 import com.google.common.util.concurrent.AtomicDouble;
-import com.volmit.iris.Iris;
 import com.volmit.iris.core.pregenerator.PregenListener;
 import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.core.pregenerator.syndicate.SyndicateClient;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicatePackSync;
 import com.volmit.iris.core.pregenerator.syndicate.command.*;
 import com.volmit.iris.engine.object.IrisDimension;
 import com.volmit.iris.util.io.IO;
 import com.volmit.iris.util.scheduling.J;
 import lombok.Getter;
-import org.zeroturnaround.zip.ZipUtil;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -68,38 +66,15 @@ public class SyndicatePregenMethod implements PregeneratorMethod {
 
         ready = false;
         try {
-            connect().command(SyndicateInstallPack
+            SyndicateCommand response = SyndicatePackSync.install(this::connect, dimension.getLoader().getDataFolder(), SyndicateInstallPack
                     .builder()
                     .dimension(dimension)
                     .pack(pack)
                     .seed(seed)
-                    .build())
-                    .output((o) -> {
-                        File to = new File(Iris.getTemp(), "send-" + pack.toString() + ".zip");
-                        ZipUtil.pack(dimension.getLoader().getDataFolder(), to);
-
-                        try {
-                            IO.writeAll(to, o);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-
-                        to.deleteOnExit();
-                    })
-                    .build().go((response, data) -> {
-                if (response instanceof SyndicateBusy) {
-                    throw new RuntimeException("Service is busy, will try later");
-                }
-
-                ready = true;
-            });
-            ready = true;
+                    .build());
+            ready = response instanceof SyndicateOK;
         } catch (Throwable throwable) {
-            if (throwable instanceof RuntimeException) {
-                ready = false;
-                return;
-            }
-
+            ready = false;
             throwable.printStackTrace();
         }
     }
@@ -0,0 +1,118 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.syndicate;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.io.IO;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+/**
+ * Content addressed store of pack files on a worker. Blobs are named by their sha-256 and kept between runs, so a
+ * pack that changed a little only needs the changed files sent.
+ */
+public class PackCache {
+    private final File folder;
+
+    public PackCache(File folder) {
+        this.folder = folder;
+        folder.mkdirs();
+    }
+
+    public File getBlob(String hash) {
+        if (!hash.matches("[0-9A-F]{64}")) {
+            throw new IllegalArgumentException("Not a blob hash: " + hash);
+        }
+
+        return new File(folder, hash.substring(0, 2) + "/" + hash);
+    }
+
+    public boolean has(String hash) {
+        return getBlob(hash).exists();
+    }
+
+    public KList<String> missing(PackManifest manifest) {
+        KList<String> m = new KList<>();
+
+        for (String i : manifest.getHashes()) {
+            if (!has(i)) {
+                m.add(i);
+            }
+        }
+
+        return m;
+    }
+
+    /**
+     * Reads a blob of the given length and keeps it only if its content matches the hash
+     *
+     * @return true if the blob was stored
+     */
+    public boolean store(String hash, InputStream in, long length) throws IOException {
+        File blob = getBlob(hash);
+        File part = new File(blob.getPath() + ".part");
+        part.getParentFile().mkdirs();
+        MessageDigest d;
+
+        try {
+            d = MessageDigest.getInstance("SHA-256");
+        } catch (Throwable e) {
+            throw new IOException(e);
+        }
+
+        try (OutputStream out = new DigestOutputStream(new FileOutputStream(part), d)) {
+            IO.transfer(in, out, 8192, length);
+        }
+
+        if (!IO.bytesToHex(d.digest()).equals(hash)) {
+            part.delete();
+            return false;
+        }
+
+        Files.move(part.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Lays out a pack from the cache. Files are copied, not linked, so a generator writing into the installed pack
+     * can never change a cached blob under its hash.
+     */
+    public void install(PackManifest manifest, File into) throws IOException {
+        String root = into.getCanonicalPath() + File.separator;
+
+        for (String i : manifest.getFiles().k()) {
+            File blob = getBlob(manifest.getFiles().get(i));
+            File target = new File(into, i);
+
+            if (!target.getCanonicalPath().startsWith(root)) {
+                throw new IOException("Pack file outside of the pack: " + i);
+            }
+
+            target.getParentFile().mkdirs();
+            Files.copy(blob.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Iris.verbose("Installed " + manifest.getFiles().size() + " pack files into " + into.getPath());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.syndicate;
+
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.io.IO;
+import lombok.Data;
+
+import java.io.File;
+
+/**
+ * Every file of a pack by relative path with the sha-256 of its content. Workers compare it against their blob
+ * cache so only content they have never seen is sent.
+ */
+@Data
+public class PackManifest {
+    private static final KMap<String, String> hashCache = new KMap<>();
+    private KMap<String, String> files = new KMap<>();
+
+    public static PackManifest of(File folder) {
+        PackManifest m = new PackManifest();
+        m.add(folder, "");
+        return m;
+    }
+
+    private void add(File folder, String prefix) {
+        File[] list = folder.listFiles();
+
+        if (list == null) {
+            return;
+        }
+
+        for (File i : list) {
+            if (i.isDirectory()) {
+                add(i, prefix + i.getName() + "/");
+            } else if (i.isFile()) {
+                files.put(prefix + i.getName(), hash(i));
+            }
+        }
+    }
+
+    /**
+     * Hashes are kept for the session by path, size and modification time so repeated runs skip unchanged files
+     */
+    private static String hash(File f) {
+        String key = f.getAbsolutePath() + "@" + f.length() + "@" + f.lastModified();
+        return hashCache.computeIfAbsent(key, (k) -> IO.hash(f));
+    }
+
+    public KList<String> getHashes() {
+        return new KList<>(files.values()).removeDuplicates();
+    }
+
+    /**
+     * @return one path in the pack for every distinct hash
+     */
+    public KMap<String, String> getPathsByHash() {
+        KMap<String, String> paths = new KMap<>();
+
+        for (String i : files.k()) {
+            paths.putIfAbsent(files.get(i), i);
+        }
+
+        return paths;
+    }
+}
@@ -24,6 +24,9 @@ import lombok.Builder;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.function.Consumer;
 
@@ -33,9 +36,13 @@ public class SyndicateClient {
     private int port;
     private SyndicateCommand command;
     private Consumer<DataOutputStream> output;
+    @Builder.Default
+    private int timeout = 0;
 
     public void go(Consumer2<SyndicateCommand, DataInputStream> handler) throws Throwable {
-        Socket socket = new Socket(address, port);
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(address, port), timeout);
+        socket.setSoTimeout(timeout);
         DataInputStream i = new DataInputStream(socket.getInputStream());
         DataOutputStream o = new DataOutputStream(socket.getOutputStream());
         SyndicateCommandIO.write(command, o);
@@ -45,7 +52,16 @@ public class SyndicateClient {
         }
 
         o.flush();
-        handler.accept(SyndicateCommandIO.read(i), i);
+        SyndicateCommand response;
+
+        try {
+            response = SyndicateCommandIO.read(i);
+        } catch (EOFException e) {
+            socket.close();
+            throw new IOException("Syndicate node " + address + ":" + port + " closed the connection without answering. It may be running an older, incompatible version of Iris.", e);
+        }
+
+        handler.accept(response, i);
         socket.close();
     }
 }
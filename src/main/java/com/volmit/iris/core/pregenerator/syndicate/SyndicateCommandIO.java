@@ -21,20 +21,77 @@ package com.volmit.iris.core.pregenerator.syndicate;
 import com.google.gson.Gson;
 import com.volmit.iris.core.pregenerator.syndicate.command.SyndicateCommand;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 public class SyndicateCommandIO {
     private static final Gson gson = new Gson();
+    private static final int MAGIC = 0x49534E44;
+    private static final int VERSION = 2;
+    private static final int MAX_COMMAND = 64 * 1024 * 1024;
 
+    /**
+     * Every command starts with a zero short, the protocol magic and version. Older nodes read the zero short as an
+     * empty class name and fail at once instead of misreading the stream, and this side rejects their commands
+     * because they start with the non zero length of a class name.
+     */
     public static SyndicateCommand read(DataInputStream in) throws IOException, ClassNotFoundException {
+        if (in.readUnsignedShort() != 0) {
+            throw new IOException("Syndicate peer speaks an older protocol, update it to this version of Iris");
+        }
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a syndicate command stream");
+        }
+
+        int version = in.readUnsignedShort();
+
+        if (version != VERSION) {
+            throw new IOException("Syndicate peer speaks protocol " + version + " but this node speaks " + VERSION);
+        }
+
         String clazz = in.readUTF();
-        return (SyndicateCommand) gson.fromJson(in.readUTF(), Class.forName(clazz));
+        int length = in.readInt();
+
+        if (length < 0 || length > MAX_COMMAND) {
+            throw new IOException("Syndicate command " + clazz + " claims " + length + " bytes, the limit is " + MAX_COMMAND);
+        }
+
+        byte[] json = new byte[length];
+        in.readFully(json);
+        return (SyndicateCommand) gson.fromJson(new String(json, StandardCharsets.UTF_8), Class.forName(clazz));
     }
 
     public static void write(SyndicateCommand c, DataOutputStream out) throws IOException {
+        // Not writeUTF, pack manifests and dimensions easily go past its 64k limit
+        byte[] json = gson.toJson(c).getBytes(StandardCharsets.UTF_8);
+
+        if (json.length > MAX_COMMAND) {
+            throw new IOException("Syndicate command " + c.getClass().getSimpleName() + " is " + json.length + " bytes, the limit is " + MAX_COMMAND);
+        }
+
+        out.writeShort(0);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
         out.writeUTF(c.getClass().getCanonicalName());
-        out.writeUTF(gson.toJson(c));
+        out.writeInt(json.length);
+        out.write(json);
+    }
+
+    public static long checksum(File f) throws IOException {
+        CRC32 crc = new CRC32();
+
+        try (CheckedInputStream in = new CheckedInputStream(new FileInputStream(f), crc)) {
+            byte[] buf = new byte[8192];
+
+            //noinspection StatementWithEmptyBody
+            while (in.read(buf) != -1) {
+
+            }
+        }
+
+        return crc.getValue();
     }
 }
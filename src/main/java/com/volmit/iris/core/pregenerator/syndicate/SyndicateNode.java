@@ -0,0 +1,144 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.syndicate;
+
+import com.volmit.iris.core.pregenerator.syndicate.command.SyndicateCommand;
+import com.volmit.iris.core.pregenerator.syndicate.command.SyndicateLeaseStatus;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.collection.KSet;
+import com.volmit.iris.util.math.M;
+import com.volmit.iris.util.math.Position2;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The coordinator's view of one syndicate worker: what it holds, how fast it is and whether it is reachable.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class SyndicateNode {
+    private static final int TIMEOUT = 15000;
+    private final String address;
+    private final int port;
+    private boolean installed = false;
+    private UUID lease = null;
+    private final KList<Position2> leased = new KList<>();
+    private final KMap<Position2, Integer> reported = new KMap<>();
+    private KList<Position2> pending = new KList<>();
+    private long lastContact = M.ms();
+    private long retryAt = 0;
+    private int failures = 0;
+    private int completed = 0;
+    private double rate = 0;
+    private long sampledAt = 0;
+    private int sampledWork = 0;
+    private final KSet<Position2> finished = new KSet<>();
+
+    public static SyndicateNode parse(String node) {
+        int split = node.lastIndexOf(':');
+        return split < 0
+                ? new SyndicateNode(node, 8999)
+                : new SyndicateNode(node.substring(0, split), Integer.parseInt(node.substring(split + 1)));
+    }
+
+    public String getName() {
+        return address + ":" + port;
+    }
+
+    public SyndicateClient.SyndicateClientBuilder connect() {
+        return SyndicateClient.builder().address(address).port(port).timeout(TIMEOUT);
+    }
+
+    public SyndicateCommand send(SyndicateCommand command) throws Throwable {
+        AtomicReference<SyndicateCommand> response = new AtomicReference<>();
+        connect().command(command).build().go((r, i) -> response.set(r));
+        return response.get();
+    }
+
+    public boolean isAvailable() {
+        return M.ms() >= retryAt;
+    }
+
+    public void contact() {
+        lastContact = M.ms();
+        failures = 0;
+    }
+
+    /**
+     * Backs off exponentially (up to a minute) after failed calls
+     */
+    public void failed() {
+        failures++;
+        retryAt = M.ms() + Math.min(60000, 500L << Math.min(failures, 7));
+    }
+
+    /**
+     * Updates the measured speed from a heartbeat. Work is counted in chunks across the whole lease, so moving
+     * on to the next region does not look like a drop in speed.
+     */
+    public void sample(SyndicateLeaseStatus status) {
+        finished.addAll(status.getReady());
+        int work = (finished.size() * 1024) + status.getCurrentChunks();
+        long now = M.ms();
+
+        if (sampledAt > 0 && now > sampledAt && work >= sampledWork) {
+            double r = (work - sampledWork) * 1000D / (now - sampledAt);
+            rate = rate <= 0 ? r : (rate * 0.7) + (r * 0.3);
+        }
+
+        sampledAt = now;
+        sampledWork = work;
+        pending = status.getPending();
+    }
+
+    /**
+     * How many regions this node should hold so a lease covers about the given number of seconds of its work.
+     * Unmeasured nodes start with a single region.
+     */
+    public int getDesiredRegions(int targetSeconds, int max) {
+        if (rate <= 0) {
+            return 1;
+        }
+
+        return Math.max(1, Math.min(max, (int) Math.ceil((rate * targetSeconds) / 1024D)));
+    }
+
+    /**
+     * @return the estimated milliseconds until this node has worked through everything it holds
+     */
+    public double getBacklogMS() {
+        return rate <= 0 ? Double.MAX_VALUE : (leased.size() * 1024D * 1000D) / rate;
+    }
+
+    public void resetLease() {
+        lease = null;
+        leased.clear();
+        reported.clear();
+        pending = new KList<>();
+        finished.clear();
+        sampledAt = 0;
+        sampledWork = 0;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.syndicate;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.pregenerator.syndicate.command.*;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.io.IO;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Installs a pack on a worker by manifest. The worker answers with the blobs missing from its cache, only those
+ * are sent and the pack is then laid out from the cache.
+ */
+public class SyndicatePackSync {
+    public static SyndicateCommand install(Supplier<SyndicateClient.SyndicateClientBuilder> connect, File folder, SyndicateInstallPack install) throws Throwable {
+        PackManifest manifest = PackManifest.of(folder);
+        AtomicReference<SyndicateCommand> response = new AtomicReference<>();
+        connect.get().command(SyndicateSyncPack.builder()
+                .pack(install.getPack())
+                .manifest(manifest)
+                .build()).build().go((r, i) -> response.set(r));
+
+        if (!(response.get() instanceof SyndicateMissingBlobs)) {
+            return response.get();
+        }
+
+        KMap<String, String> paths = manifest.getPathsByHash();
+        KList<String> missing = new KList<>();
+
+        for (String i : ((SyndicateMissingBlobs) response.get()).getHashes()) {
+            if (paths.containsKey(i)) {
+                missing.add(i);
+            }
+        }
+
+        if (missing.isNotEmpty()) {
+            connect.get().command(SyndicateSendBlobs.builder()
+                    .pack(install.getPack())
+                    .hashes(missing)
+                    .build()).output((o) -> {
+                try {
+                    for (String i : missing) {
+                        File f = new File(folder, paths.get(i));
+                        o.writeLong(f.length());
+                        IO.writeAll(f, o);
+                    }
+                } catch (IOException e) {
+                    Iris.reportError(e);
+                    e.printStackTrace();
+                }
+            }).build().go((r, i) -> response.set(r));
+
+            if (!(response.get() instanceof SyndicateOK)) {
+                return response.get();
+            }
+        }
+
+        Iris.verbose("Synced pack " + folder.getName() + ", sent " + missing.size() + " of " + paths.size() + " blobs");
+        install.setSynced(true);
+        connect.get().command(install).build().go((r, i) -> response.set(r));
+        return response.get();
+    }
+}
@@ -18,12 +18,20 @@
 
 package com.volmit.iris.core.pregenerator.syndicate;
 
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisDataManager;
 import com.volmit.iris.core.pregenerator.PregenListener;
 import com.volmit.iris.core.pregenerator.syndicate.command.*;
 import com.volmit.iris.engine.headless.HeadlessGenerator;
 import com.volmit.iris.engine.headless.HeadlessWorld;
+import com.volmit.iris.engine.object.IrisDimension;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.io.IO;
+import com.volmit.iris.util.math.M;
+import com.volmit.iris.util.math.Position2;
 import com.volmit.iris.util.scheduling.J;
+import lombok.Getter;
 import org.zeroturnaround.zip.ZipUtil;
 
 import java.io.*;
@@ -37,7 +45,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class SyndicateServer extends Thread implements PregenListener {
     private int port;
     private String password;
-    private boolean busy;
+    private volatile boolean busy;
     private int tc;
     private HeadlessGenerator generator;
     private ServerSocket server;
@@ -45,15 +53,19 @@ public class SyndicateServer extends Thread implements PregenListener {
     private UUID currentId = null;
     private AtomicInteger g = new AtomicInteger(0);
     private File lastGeneratedRegion = null;
+    private volatile WorkerLease lease = null;
+    private final PackCache packCache;
+    private final KMap<UUID, PackManifest> manifests = new KMap<>();
 
     public SyndicateServer(File cache, int port, String password, int tc) throws IOException {
         this.port = port;
         this.cache = cache;
         this.password = password;
         this.tc = tc;
-        start();
+        packCache = new PackCache(new File(cache, "blobs"));
         server = new ServerSocket(port);
         server.setSoTimeout(1000);
+        start();
     }
 
     public void run() {
@@ -91,36 +103,171 @@ public class SyndicateServer extends Thread implements PregenListener {
         return new File(cache, id.toString().charAt(2) + "/" + id.toString().substring(0, 4) + "/" + id);
     }
 
+    private File getInstalledPack(UUID id) {
+        return new File(Iris.instance.getDataFolder("packs"), "syndicate-" + id);
+    }
+
+    private void uninstall() {
+        if (generator != null) {
+            generator.close();
+            IO.delete(generator.getWorld().getWorld().worldFolder());
+            generator = null;
+        }
+
+        if (currentId != null) {
+            IO.delete(getInstalledPack(currentId));
+            currentId = null;
+        }
+    }
+
     private SyndicateCommand handle(SyndicateCommand command, DataInputStream i, DataOutputStream o) throws Throwable {
+        if (command instanceof SyndicateSyncPack) {
+            SyndicateSyncPack sync = (SyndicateSyncPack) command;
+            manifests.put(sync.getPack(), sync.getManifest());
+            return SyndicateMissingBlobs.builder().hashes(packCache.missing(sync.getManifest())).build();
+        }
+
+        if (command instanceof SyndicateSendBlobs) {
+            boolean failed = false;
+
+            for (String h : ((SyndicateSendBlobs) command).getHashes()) {
+                if (!packCache.store(h, i, i.readLong())) {
+                    Iris.warn("Syndicate blob " + h + " does not match its hash");
+                    failed = true;
+                }
+            }
+
+            return failed ? new SyndicateError() : new SyndicateOK();
+        }
+
         if (command instanceof SyndicateInstallPack) {
             if (busy) {
                 return new SyndicateBusy();
             }
 
-            if (generator != null) {
-                generator.close();
-                IO.delete(generator.getWorld().getWorld().worldFolder());
-                generator = null;
-            }
-
-            UUID id = ((SyndicateInstallPack) command).getPack();
-            File cacheload = new File(cache, id.toString().charAt(2) + "/" + id.toString().substring(0, 4) + "/" + id + ".zip");
-            File cachestore = getCachedDim(id);
-            IO.delete(cachestore);
-            int len = i.readInt();
-            cacheload.getParentFile().mkdirs();
-            byte[] buf = new byte[8192];
-            FileOutputStream fos = new FileOutputStream(cacheload);
-            IO.transfer(i, fos, buf, len);
-            fos.close();
-            ZipUtil.unpack(cacheload, cachestore);
-            cacheload.deleteOnExit();
-            HeadlessWorld w = new HeadlessWorld("turbo/" + id.toString(), ((SyndicateInstallPack) command).getDimension(), ((SyndicateInstallPack) command).getSeed());
-            w.setStudio(true);
-            generator = w.generate();
+            uninstall();
+            SyndicateInstallPack install = (SyndicateInstallPack) command;
+            UUID id = install.getPack();
+            File world = new File("turbo/" + id);
+            IO.delete(world);
+
+            // The engine looks the dimension up in the packs folder first, then generates from the world's own copy
+            if (install.isSynced()) {
+                PackManifest manifest = manifests.remove(id);
+
+                if (manifest == null || packCache.missing(manifest).isNotEmpty()) {
+                    return new SyndicateError();
+                }
+
+                packCache.install(manifest, getInstalledPack(id));
+                packCache.install(manifest, new File(world, "iris/pack"));
+            } else {
+                File cacheload = new File(cache, id.toString().charAt(2) + "/" + id.toString().substring(0, 4) + "/" + id + ".zip");
+                File cachestore = getCachedDim(id);
+                IO.delete(cachestore);
+                int len = i.readInt();
+                cacheload.getParentFile().mkdirs();
+                byte[] buf = new byte[8192];
+                FileOutputStream fos = new FileOutputStream(cacheload);
+                IO.transfer(i, fos, buf, len);
+                fos.close();
+                ZipUtil.unpack(cacheload, cachestore);
+                cacheload.deleteOnExit();
+                ZipUtil.unpack(cacheload, getInstalledPack(id));
+                ZipUtil.unpack(cacheload, new File(world, "iris/pack"));
+            }
+
+            IrisDimension dimension = install.getDimensionKey() != null
+                    ? new IrisDataManager(new File(world, "iris/pack")).getDimensionLoader().load(install.getDimensionKey())
+                    : install.getDimension();
+
+            if (dimension == null) {
+                return new SyndicateError();
+            }
+
+            generator = new HeadlessWorld(world.getPath(), dimension, install.getSeed()).generate();
+            currentId = id;
             return new SyndicateOK();
         }
 
+        if (command instanceof SyndicateLease) {
+            SyndicateLease l = (SyndicateLease) command;
+
+            if (generator == null || !Objects.equals(currentId, l.getPack())) {
+                return new SyndicateInstallFirst();
+            }
+
+            WorkerLease current = lease;
+
+            if (current != null && current.getId().equals(l.getLease())) {
+                current.beat();
+                current.add(l.getRegions());
+                return new SyndicateOK();
+            }
+
+            if (busy) {
+                return new SyndicateBusy();
+            }
+
+            WorkerLease w = new WorkerLease(l.getLease(), l.getTimeout());
+            w.add(l.getRegions());
+            busy = true;
+            lease = w;
+            J.a(() -> work(w));
+            return new SyndicateOK();
+        }
+
+        if (command instanceof SyndicateHeartbeat) {
+            if (generator == null || !Objects.equals(currentId, ((SyndicateHeartbeat) command).getPack())) {
+                return new SyndicateInstallFirst();
+            }
+
+            WorkerLease l = lease;
+
+            if (l == null || !l.getId().equals(((SyndicateHeartbeat) command).getLease())) {
+                return new SyndicateError();
+            }
+
+            l.beat();
+            return l.status(g.get(), new KList<>());
+        }
+
+        if (command instanceof SyndicateFetchRegion) {
+            SyndicateFetchRegion f = (SyndicateFetchRegion) command;
+            WorkerLease l = lease;
+
+            if (l == null || !Objects.equals(currentId, f.getPack()) || !l.getId().equals(f.getLease())) {
+                return new SyndicateError();
+            }
+
+            Position2 p = new Position2(f.getX(), f.getZ());
+            File region = l.getReady().get(p);
+
+            if (region == null || !region.exists()) {
+                return new SyndicateError();
+            }
+
+            l.beat();
+            SyndicateCommandIO.write(SyndicateRegionData.builder()
+                    .x(p.getX()).z(p.getZ())
+                    .length(region.length())
+                    .checksum(l.getChecksums().get(p))
+                    .build(), o);
+            IO.writeAll(region, o);
+            return null;
+        }
+
+        if (command instanceof SyndicateRelease) {
+            WorkerLease l = lease;
+
+            if (l == null || !l.getId().equals(((SyndicateRelease) command).getLease())) {
+                return new SyndicateError();
+            }
+
+            l.beat();
+            return l.status(g.get(), l.release(((SyndicateRelease) command).getRegions()));
+        }
+
         if (command instanceof SyndicateGenerate) {
             if (busy) {
                 return new SyndicateBusy();
@@ -133,19 +280,22 @@ public class SyndicateServer extends Thread implements PregenListener {
             g.set(0);
             busy = true;
             J.a(() -> {
-                busy = false;
                 lastGeneratedRegion = generator.generateRegionToFile(((SyndicateGenerate) command).getX(), ((SyndicateGenerate) command).getZ(), this);
+                busy = false;
             });
             return new SyndicateOK();
         }
 
         if (command instanceof SyndicateClose) {
-            if (generator != null && Objects.equals(currentId, ((SyndicateClose) command).getPack()) && !busy) {
-                generator.close();
-                IO.delete(generator.getWorld().getWorld().worldFolder());
-                generator = null;
-                currentId = null;
+            if (generator != null && Objects.equals(currentId, ((SyndicateClose) command).getPack())) {
+                lease = null;
+
+                if (!busy) {
+                    uninstall();
+                }
             }
+
+            return new SyndicateOK();
         }
 
         if (command instanceof SyndicateGetProgress) {
@@ -169,9 +319,51 @@ public class SyndicateServer extends Thread implements PregenListener {
         throw new IllegalStateException("Unexpected value: " + command.getClass());
     }
 
+    /**
+     * Generates the regions of a lease one after another until the coordinator stops sending heartbeats or
+     * the lease is replaced. Finished regions are kept with their checksum until the coordinator fetches and
+     * releases them.
+     */
+    private void work(WorkerLease l) {
+        try {
+            while (lease == l && generator != null) {
+                if (l.isExpired()) {
+                    Iris.warn("Syndicate lease " + l.getId() + " expired, no heartbeat for " + l.getTimeout() + "ms");
+                    break;
+                }
+
+                Position2 r = l.next();
+
+                if (r == null) {
+                    J.sleep(50);
+                    continue;
+                }
+
+                g.set(0);
+                File region = generator.generateRegionToFile(r.getX(), r.getZ(), this);
+                l.finish(r, region, SyndicateCommandIO.checksum(region));
+            }
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        } finally {
+            if (lease == l) {
+                lease = null;
+            }
+
+            l.discard();
+            busy = false;
+        }
+    }
+
     public void close() throws IOException {
         interrupt();
-        generator.close();
+        lease = null;
+
+        if (generator != null) {
+            generator.close();
+        }
+
         server.close();
     }
 
@@ -210,6 +402,11 @@ public class SyndicateServer extends Thread implements PregenListener {
 
     }
 
+    @Override
+    public void onNetworkLeased(int x, int z, String node) {
+
+    }
+
     @Override
     public void onNetworkFailed(int x, int z) {
 
@@ -244,4 +441,88 @@ public class SyndicateServer extends Thread implements PregenListener {
     public void onChunkExistsInRegionGen(int x, int z) {
 
     }
+
+    private static class WorkerLease {
+        @Getter
+        private final UUID id;
+        @Getter
+        private final long timeout;
+        private final KList<Position2> pending = new KList<>();
+        @Getter
+        private final KMap<Position2, File> ready = new KMap<>();
+        @Getter
+        private final KMap<Position2, Long> checksums = new KMap<>();
+        private volatile Position2 current;
+        private volatile long heartbeat;
+
+        public WorkerLease(UUID id, long timeout) {
+            this.id = id;
+            this.timeout = timeout;
+            heartbeat = M.ms();
+        }
+
+        public void beat() {
+            heartbeat = M.ms();
+        }
+
+        public boolean isExpired() {
+            return M.ms() - heartbeat > timeout;
+        }
+
+        public synchronized void add(KList<Position2> regions) {
+            for (Position2 i : regions) {
+                if (!pending.contains(i) && !ready.containsKey(i) && !i.equals(current)) {
+                    pending.add(i);
+                }
+            }
+        }
+
+        public synchronized Position2 next() {
+            current = pending.isEmpty() ? null : pending.remove(0);
+            return current;
+        }
+
+        public synchronized void finish(Position2 region, File file, long checksum) {
+            checksums.put(region, checksum);
+            ready.put(region, file);
+            current = null;
+        }
+
+        public synchronized KList<Position2> release(KList<Position2> regions) {
+            KList<Position2> released = new KList<>();
+
+            for (Position2 i : regions) {
+                if (pending.remove(i)) {
+                    released.add(i);
+                } else if (ready.containsKey(i)) {
+                    ready.remove(i).delete();
+                    checksums.remove(i);
+                    released.add(i);
+                }
+            }
+
+            return released;
+        }
+
+        public synchronized SyndicateLeaseStatus status(int currentChunks, KList<Position2> released) {
+            return SyndicateLeaseStatus.builder()
+                    .lease(id)
+                    .current(current)
+                    .currentChunks(current == null ? 0 : currentChunks)
+                    .ready(ready.k())
+                    .pending(pending.copy())
+                    .released(released)
+                    .build();
+        }
+
+        public synchronized void discard() {
+            for (File i : ready.values()) {
+                i.delete();
+            }
+
+            ready.clear();
+            checksums.clear();
+            pending.clear();
+        }
+    }
 }
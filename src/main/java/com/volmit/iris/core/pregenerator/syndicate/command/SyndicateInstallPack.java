@@ -39,4 +39,16 @@ public class SyndicateInstallPack implements SyndicateCommand {
 
     @Builder.Default
     private IrisDimension dimension = null;
+
+    /**
+     * Load the dimension with this key from the sent pack instead of sending the whole dimension
+     */
+    @Builder.Default
+    private String dimensionKey = null;
+
+    /**
+     * Install from the manifest sent with {@link SyndicateSyncPack} instead of a zip following this command
+     */
+    @Builder.Default
+    private boolean synced = false;
 }
@@ -0,0 +1,45 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.syndicate.command;
+
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.Position2;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Takes regions back from a lease. Ready regions are deleted (they have been fetched), pending ones are dropped
+ * so they can go to another worker. Regions already being generated are kept.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SyndicateRelease implements SyndicateCommand {
+    @Builder.Default
+    private UUID pack = UUID.randomUUID();
+    @Builder.Default
+    private UUID lease = UUID.randomUUID();
+    @Builder.Default
+    private KList<Position2> regions = new KList<>();
+}
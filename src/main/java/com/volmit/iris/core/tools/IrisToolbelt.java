@@ -22,6 +22,7 @@ import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisDataManager;
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.gui.PregeneratorJob;
+import com.volmit.iris.core.pregenerator.PregenJournal;
 import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.core.pregenerator.PregeneratorMethod;
 import com.volmit.iris.core.pregenerator.methods.HeadlessPregenMethod;
@@ -104,6 +105,19 @@ public class IrisToolbelt {
         return new PregeneratorJob(task, method);
     }
 
+    /**
+     * Start a pregenerator task which records its progress in the given journal
+     * and skips anything the journal already has
+     *
+     * @param task    the scheduled task
+     * @param method  the method to execute the task
+     * @param journal the progress journal of the world
+     * @return the pregenerator job (already started)
+     */
+    public static PregeneratorJob pregenerate(PregenTask task, PregeneratorMethod method, PregenJournal journal) {
+        return new PregeneratorJob(task, method, journal);
+    }
+
     /**
      * Start a pregenerator task. If the supplied generator is headless, headless mode is used,
      * otherwise Hybrid mode is used.
@@ -114,10 +128,13 @@ public class IrisToolbelt {
      */
     public static PregeneratorJob pregenerate(PregenTask task, IrisAccess access) {
         if (access.isHeadless()) {
-            return pregenerate(task, new HeadlessPregenMethod(access.getHeadlessGenerator().getWorld(), access.getHeadlessGenerator()));
+            return pregenerate(task, new HeadlessPregenMethod(access.getHeadlessGenerator().getWorld(), access.getHeadlessGenerator()),
+                    PregenJournal.of(access.getHeadlessGenerator().getWorld().getWorld().worldFolder()));
         }
 
-        return pregenerate(task, new HybridPregenMethod(access.getCompound().getWorld().realWorld(), IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())));
+        World world = access.getCompound().getWorld().realWorld();
+        return pregenerate(task, new HybridPregenMethod(world, IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())),
+                PregenJournal.of(world.getWorldFolder()));
     }
 
     /**
@@ -133,7 +150,24 @@ public class IrisToolbelt {
             return pregenerate(task, access(world));
         }
 
-        return pregenerate(task, new HybridPregenMethod(world, IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())));
+        return pregenerate(task, new HybridPregenMethod(world, IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount())),
+                PregenJournal.of(world.getWorldFolder()));
+    }
+
+    /**
+     * Restart the last pregenerator task recorded in the world's journal. Regions and chunks it already
+     * finished are skipped.
+     *
+     * @param world the World
+     * @return the pregenerator job (already started) or null if there is no unfinished task to resume
+     */
+    public static PregeneratorJob resumePregenerate(World world) {
+        PregenJournal journal = PregenJournal.of(world.getWorldFolder());
+        PregenTask task = journal.getTask();
+        boolean resumable = task != null && !journal.isComplete(task);
+        journal.close();
+
+        return resumable ? pregenerate(task, world) : null;
     }
 
     /**
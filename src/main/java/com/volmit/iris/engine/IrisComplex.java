@@ -21,16 +21,23 @@ package com.volmit.iris.engine;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisDataManager;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.engine.actuator.CarveLattice;
 import com.volmit.iris.engine.actuator.IrisTerrainNormalActuator;
+import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.engine.cache.TileCache;
 import com.volmit.iris.engine.data.DataProvider;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.modifier.IrisCaveModifier;
 import com.volmit.iris.engine.noise.CNG;
 import com.volmit.iris.engine.object.*;
 import com.volmit.iris.engine.object.common.CaveResult;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.engine.stream.ProceduralStream;
 import com.volmit.iris.engine.stream.interpolation.Interpolated;
+import com.volmit.iris.engine.stream.utility.MeteredCache;
 import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.math.RNG;
 import lombok.Data;
@@ -39,6 +46,7 @@ import org.bukkit.block.Biome;
 import org.bukkit.block.data.BlockData;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Data
 public class IrisComplex implements DataProvider {
@@ -49,11 +57,11 @@ public class IrisComplex implements DataProvider {
     private KList<IrisGenerator> generators;
     private static final BlockData AIR = Material.AIR.createBlockData();
     private ProceduralStream<IrisRegion> regionStream;
-    private ProceduralStream<Double> regionStyleStream;
-    private ProceduralStream<Double> regionIdentityStream;
+    private ProceduralDoubleStream regionStyleStream;
+    private ProceduralDoubleStream regionIdentityStream;
     private ProceduralStream<Boolean> islandStream;
-    private ProceduralStream<Double> islandHeightStream;
-    private ProceduralStream<Double> islandDepthStream;
+    private ProceduralDoubleStream islandHeightStream;
+    private ProceduralDoubleStream islandDepthStream;
     private ProceduralStream<InferredType> bridgeStream;
     private ProceduralStream<IrisBiome> landBiomeStream;
     private ProceduralStream<IrisBiome> caveBiomeStream;
@@ -62,13 +70,14 @@ public class IrisComplex implements DataProvider {
     private ProceduralStream<IrisBiome> baseBiomeStream;
     private ProceduralStream<IrisBiome> trueBiomeStream;
     private ProceduralStream<Biome> trueBiomeDerivativeStream;
-    private ProceduralStream<Double> heightStream;
-    private ProceduralStream<Double> objectChanceStream;
-    private ProceduralStream<Double> maxHeightStream;
-    private ProceduralStream<Double> overlayStream;
-    private ProceduralStream<Double> heightFluidStream;
+    private ProceduralDoubleStream heightStream;
+    private ProceduralDoubleStream objectChanceStream;
+    private ProceduralDoubleStream maxHeightStream;
+    private ProceduralDoubleStream overlayStream;
+    private ProceduralDoubleStream heightFluidStream;
+    private ProceduralStream<Integer> trueHeightSourceStream;
     private ProceduralStream<Integer> trueHeightStream;
-    private ProceduralStream<Double> slopeStream;
+    private ProceduralDoubleStream slopeStream;
     private ProceduralStream<RNG> rngStream;
     private ProceduralStream<RNG> chunkRngStream;
     private ProceduralStream<IrisDecorator> terrainSurfaceDecoration;
@@ -81,6 +90,8 @@ public class IrisComplex implements DataProvider {
     private ProceduralStream<BlockData> rockStream;
     private ProceduralStream<BlockData> fluidStream;
     private IrisBiome focus;
+    private final KMap<String, TileCache> caches = new KMap<>();
+    private final AtomicReferenceArray<LatticeTile> carveLattices = new AtomicReferenceArray<>(256);
 
     public ProceduralStream<IrisBiome> getBiomeStream(InferredType type) {
         switch (type) {
@@ -107,7 +118,7 @@ public class IrisComplex implements DataProvider {
     }
 
     public IrisComplex(Engine engine, boolean simple) {
-        int cacheSize = 131072;
+        int cacheSize = IrisSettings.get().getCache().getComplexCacheSizeMB();
         IrisBiome emptyBiome = new IrisBiome();
         this.rng = new RNG(engine.getWorld().seed());
         this.data = engine.getData();
@@ -128,10 +139,10 @@ public class IrisComplex implements DataProvider {
                 .getAllBiomes(this).forEach((b) -> b
                         .getGenerators()
                         .forEach((c) -> registerGenerator(c.getCachedGenerator(this)))));
-        overlayStream = ProceduralStream.ofDouble((x, z) -> 0D);
-        engine.getDimension().getOverlayNoise().forEach((i) -> overlayStream.add((x, z) -> i.get(rng, x, z)));
-        rngStream = ProceduralStream.of((x, z) -> new RNG(((x.longValue()) << 32) | (z.longValue() & 0xffffffffL))
-                .nextParallelRNG(engine.getWorld().seed()), Interpolated.RNG);
+        overlayStream = ProceduralDoubleStream.of(0D);
+        engine.getDimension().getOverlayNoise().forEach((i) -> overlayStream.add(ProceduralDoubleStream.of((x, z) -> i.get(rng, x, z))));
+        rngStream = ProceduralStream.of((x, z) -> RNG.at(((x.longValue()) << 32) | (z.longValue() & 0xffffffffL),
+                engine.getWorld().seed()), Interpolated.RNG);
         chunkRngStream = rngStream.blockToChunkCoords();
         rockStream = engine.getDimension().getRockPalette().getLayerGenerator(rng.nextParallelRNG(45), data).stream()
                 .select(engine.getDimension().getRockPalette().getBlockData(data));
@@ -198,12 +209,12 @@ public class IrisComplex implements DataProvider {
                 bridgeStream.convertAware2D((t, x, z) -> t.equals(InferredType.SEA)
                         ? seaBiomeStream.get(x, z) : landBiomeStream.get(x, z))
                         .convertAware2D(this::implode).cache2D(cacheSize);
-        heightStream = ProceduralStream.of((x, z) -> {
+        heightStream = ProceduralDoubleStream.of((x, z) -> {
             IrisBiome b = focus != null ? focus : baseBiomeStream.get(x, z);
             return getHeight(engine, b, x, z, engine.getWorld().seed());
-        }, Interpolated.DOUBLE).clamp(0, engine.getHeight()).cache2D(cacheSize);
+        }).clamp(0, engine.getHeight()).cache2D(cacheSize);
         slopeStream = heightStream.slope(3).cache2D(cacheSize);
-        objectChanceStream = ProceduralStream.ofDouble((x, z) -> {
+        objectChanceStream = ProceduralDoubleStream.of((x, z) -> {
             if (engine.getDimension().hasFeatures(engine)) {
                 AtomicDouble str = new AtomicDouble(1D);
                 engine.getFramework().getEngineParallax().forEachFeature(x, z, (i)
@@ -221,7 +232,7 @@ public class IrisComplex implements DataProvider {
                                 regionStream.get(x, z), x, z, fluidHeight)).cache2D(cacheSize);
         trueBiomeDerivativeStream = trueBiomeStream.convert(IrisBiome::getDerivative).cache2D(cacheSize);
         heightFluidStream = heightStream.max(fluidHeight).cache2D(cacheSize);
-        maxHeightStream = ProceduralStream.ofDouble((x, z) -> height);
+        maxHeightStream = ProceduralDoubleStream.of(height);
         terrainSurfaceDecoration = trueBiomeStream
                 .convertAware2D((b, xx, zz) -> decorateFor(b, xx, zz, DecorationPart.NONE)).cache2D(cacheSize);
         terrainCeilingDecoration = trueBiomeStream
@@ -236,17 +247,27 @@ public class IrisComplex implements DataProvider {
                 .convertAware2D((b, xx, zz) -> decorateFor(b, xx, zz, DecorationPart.SEA_SURFACE)).cache2D(cacheSize);
         seaFloorDecoration = trueBiomeStream
                 .convertAware2D((b, xx, zz) -> decorateFor(b, xx, zz, DecorationPart.SEA_FLOOR)).cache2D(cacheSize);
-        trueHeightStream = ProceduralStream.of((x, z) -> {
+        trueHeightSourceStream = ProceduralStream.of((x, z) -> {
             int rx = (int) Math.round(engine.modifyX(x));
             int rz = (int) Math.round(engine.modifyZ(z));
-            int heightf = (int) Math.round(getHeightStream().get(rx, rz));
+            int heightf = (int) Math.round(getHeightStream().getDouble(rx, rz));
             int m = heightf;
 
             if (engine.getDimension().isCarving() && engine.getDimension().getTerrainMode().equals(IrisTerrainMode.NORMAL)) {
-                if (engine.getDimension().isCarved(rx, m, rz, ((IrisTerrainNormalActuator) engine.getFramework().getTerrainActuator()).getRng(), heightf)) {
+                RNG carveRng = ((IrisTerrainNormalActuator) engine.getFramework().getTerrainActuator()).getRng();
+
+                if (engine.getDimension().getCarvePrecision().equals(CarvePrecision.LATTICE) && engine.getDimension().getCarveLayers().isNotEmpty()) {
+                    int bx = (int) x.doubleValue();
+                    int bz = (int) z.doubleValue();
+                    CarveLattice lattice = getCarveLattice(engine, carveRng, bx >> 4, bz >> 4);
+
+                    while (lattice.isCarved(bx & 15, m, bz & 15, heightf)) {
+                        m--;
+                    }
+                } else if (engine.getDimension().isCarved(rx, m, rz, carveRng, heightf)) {
                     m--;
 
-                    while (engine.getDimension().isCarved(rx, m, rz, ((IrisTerrainNormalActuator) engine.getFramework().getTerrainActuator()).getRng(), heightf)) {
+                    while (engine.getDimension().isCarved(rx, m, rz, carveRng, heightf)) {
                         m--;
                     }
                 }
@@ -268,8 +289,39 @@ public class IrisComplex implements DataProvider {
             }
 
             return m;
-        }, Interpolated.INT).cache2D(cacheSize);
+        }, Interpolated.INT);
+        trueHeightStream = trueHeightSourceStream.cache2D(cacheSize);
         //@done
+        trackCaches();
+    }
+
+    private void trackCaches() {
+        trackCache("region", regionStream);
+        trackCache("caveBiome", caveBiomeStream);
+        trackCache("landBiome", landBiomeStream);
+        trackCache("seaBiome", seaBiomeStream);
+        trackCache("shoreBiome", shoreBiomeStream);
+        trackCache("bridge", bridgeStream);
+        trackCache("baseBiome", baseBiomeStream);
+        trackCache("height", heightStream);
+        trackCache("slope", slopeStream);
+        trackCache("trueBiome", trueBiomeStream);
+        trackCache("trueBiomeDerivative", trueBiomeDerivativeStream);
+        trackCache("heightFluid", heightFluidStream);
+        trackCache("terrainSurfaceDecoration", terrainSurfaceDecoration);
+        trackCache("terrainCeilingDecoration", terrainCeilingDecoration);
+        trackCache("terrainCaveSurfaceDecoration", terrainCaveSurfaceDecoration);
+        trackCache("terrainCaveCeilingDecoration", terrainCaveCeilingDecoration);
+        trackCache("shoreSurfaceDecoration", shoreSurfaceDecoration);
+        trackCache("seaSurfaceDecoration", seaSurfaceDecoration);
+        trackCache("seaFloorDecoration", seaFloorDecoration);
+        trackCache("trueHeight", trueHeightStream);
+    }
+
+    private void trackCache(String name, ProceduralStream<?> stream) {
+        if (stream instanceof MeteredCache c) {
+            caches.put(name, c.getCache());
+        }
     }
 
     private IrisRegion findRegion(IrisBiome focus, Engine engine) {
@@ -300,6 +352,42 @@ public class IrisComplex implements DataProvider {
         return null;
     }
 
+    /**
+     * The carve lattice the terrain actuator builds for chunk cx, cz, so trueHeight follows the same
+     * carving as the generated terrain. Kept in a small direct mapped cache, a racing rebuild is harmless.
+     */
+    private CarveLattice getCarveLattice(Engine engine, RNG carveRng, int cx, int cz) {
+        long key = Cache.key(cx, cz);
+        int slot = (int) (RNG.mix(key) >>> 56);
+        LatticeTile tile = carveLattices.get(slot);
+
+        if (tile != null && tile.key == key) {
+            return tile.lattice;
+        }
+
+        double[] xs = new double[16];
+        double[] zs = new double[16];
+
+        for (int i = 0; i < 16; i++) {
+            xs[i] = (int) engine.modifyX((cx << 4) + i);
+            zs[i] = (int) engine.modifyZ((cz << 4) + i);
+        }
+
+        CarveLattice lattice = new CarveLattice(engine.getDimension(), carveRng, xs, zs);
+        carveLattices.set(slot, new LatticeTile(key, lattice));
+        return lattice;
+    }
+
+    private static class LatticeTile {
+        private final long key;
+        private final CarveLattice lattice;
+
+        private LatticeTile(long key, CarveLattice lattice) {
+            this.key = key;
+            this.lattice = lattice;
+        }
+    }
+
     private IrisBiome implode(IrisBiome b, Double x, Double z) {
         if (b.getChildren().isEmpty()) {
             return b;
@@ -384,7 +472,7 @@ public class IrisComplex implements DataProvider {
             h += M.lerp(lo, hi, gen.getHeight(x, z, seed + 239945));
         }
 
-        AtomicDouble noise = new AtomicDouble(h + fluidHeight + overlayStream.get(x, z));
+        AtomicDouble noise = new AtomicDouble(h + fluidHeight + overlayStream.getDouble(x, z));
         engine.getFramework().getEngineParallax().forEachFeature(x, z, (i)
                 -> noise.set(i.filter(x, z, noise.get(), rng)));
         return Math.min(engine.getHeight(), Math.max(noise.get(), 0));
@@ -245,5 +245,6 @@ public class IrisEngine extends BlockPopulator implements Engine {
     @Override
     public void hotload() {
         cacheId = RNG.r.nextInt();
+        getFramework().getEngineParallax().getSurfaceProfiles().invalidate();
     }
 }
@@ -21,6 +21,7 @@ package com.volmit.iris.engine;
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisDataManager;
 import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.engine.cache.TileCache;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.framework.EngineCompound;
 import com.volmit.iris.engine.framework.EngineData;
@@ -206,6 +207,18 @@ public class IrisEngineCompound implements EngineCompound {
 
             sender.sendMessage("  " + befb + num + afb + ": " + C.BOLD + C.WHITE + Form.pc(weights.get(i), 0));
         }
+
+        sender.sendMessage("Caches: ");
+
+        for (int i = 0; i < getSize(); i++) {
+            Engine e = getEngine(i);
+            KMap<String, TileCache> caches = e.getFramework().getComplex().getCaches();
+
+            for (String j : caches.k()) {
+                TileCache c = caches.get(j);
+                sender.sendMessage("  " + C.GREEN + e.getName() + C.GRAY + "[" + C.GOLD + e.getIndex() + C.GRAY + "]." + C.AQUA + j + C.GRAY + ": " + C.BOLD + C.WHITE + Form.pc(c.getHitRate(), 1) + C.RESET + C.GRAY + " hit (" + Form.f(c.getHits()) + " / " + Form.f(c.getMisses()) + ")");
+            }
+        }
     }
 
     private File getEngineMetadataFile() {
@@ -18,11 +18,11 @@
 
 package com.volmit.iris.engine;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.engine.cache.FeatureIndex;
+import com.volmit.iris.engine.cache.SurfaceProfileCache;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.framework.EngineParallaxManager;
-import com.volmit.iris.engine.object.IrisFeaturePositional;
-import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.scheduling.IrisLock;
 import lombok.Getter;
 
@@ -37,14 +37,20 @@ public class IrisEngineParallax implements EngineParallaxManager {
     private final IrisLock featureLock = new IrisLock("Feature");
 
     @Getter
-    private final ConcurrentLinkedHashMap<Long, KList<IrisFeaturePositional>> featureCache = new ConcurrentLinkedHashMap.Builder<Long, KList<IrisFeaturePositional>>()
-            .initialCapacity(1024)
-            .maximumWeightedCapacity(1024)
-            .concurrencyLevel(32)
-            .build();
+    private final FeatureIndex featureIndex;
+
+    @Getter
+    private final SurfaceProfileCache surfaceProfiles;
 
     public IrisEngineParallax(Engine engine) {
         this.engine = engine;
         parallaxSize = computeParallaxSize();
+        surfaceProfiles = new SurfaceProfileCache(engine, Math.max(1, IrisSettings.get().getParallax().getSurfaceProfileRegions()));
+        featureIndex = new FeatureIndex(engine, (int) Math.ceil(parallaxSize / 2D), 32);
+    }
+
+    @Override
+    public void close() {
+        surfaceProfiles.invalidate();
     }
 }
@@ -20,7 +20,6 @@ package com.volmit.iris.engine;
 
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisSettings;
-import com.volmit.iris.engine.cache.Cache;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.framework.EngineAssignedWorldManager;
 import com.volmit.iris.engine.object.*;
@@ -53,7 +52,7 @@ public class IrisWorldManager extends EngineAssignedWorldManager {
 
     @Override
     public void spawnInitialEntities(Chunk c) {
-        RNG rng = new RNG(Cache.key(c));
+        RNG rng = RNG.fastAt(getEngine().getWorld().seed(), c.getX(), c.getZ());
 
         getEngine().getParallaxAccess().getEntitiesR(c.getX(), c.getZ()).iterateSync((x, y, z, e) -> {
             if (e != null) {
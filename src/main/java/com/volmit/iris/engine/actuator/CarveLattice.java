@@ -0,0 +1,170 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.actuator;
+
+import com.volmit.iris.engine.noise.CNG;
+import com.volmit.iris.engine.object.IrisCarveLayer;
+import com.volmit.iris.engine.object.IrisDimension;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.RNG;
+
+/**
+ * Approximates {@link IrisDimension#isCarved(int, int, int, RNG, int)} for one 16x16 column
+ * window. Each carve layer's noise is sampled every 4 blocks on all three axes and
+ * trilinearly interpolated. Cells whose corner bounds cannot cross the layer threshold are
+ * resolved without interpolation.
+ */
+public class CarveLattice {
+    private static final int STEP = 4;
+    private static final int CELLS = 16 / STEP;
+    private static final int POINTS = CELLS + 1;
+    private static final byte NONE = 0;
+    private static final byte ALL = 1;
+    private static final byte MIXED = 2;
+    private final boolean carving;
+    private final int fluidHeight;
+    private final Layer[] layers;
+
+    public CarveLattice(IrisDimension dimension, RNG rng, double[] xs, double[] zs) {
+        this(dimension.getCarveLayers(), dimension.isCarving(), dimension.getFluidHeight(), rng, xs, zs);
+    }
+
+    public CarveLattice(KList<IrisCarveLayer> carveLayers, boolean carving, int fluidHeight, RNG rng, double[] xs, double[] zs) {
+        this.carving = carving;
+        this.fluidHeight = fluidHeight;
+        double[] lx = lattice(xs);
+        double[] lz = lattice(zs);
+        layers = new Layer[carveLayers.size()];
+
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new Layer(carveLayers.get(i), rng, lx, lz);
+        }
+    }
+
+    private static double[] lattice(double[] axis) {
+        double[] l = new double[POINTS];
+
+        for (int i = 0; i < CELLS; i++) {
+            l[i] = axis[i * STEP];
+        }
+
+        l[CELLS] = axis[15] + (axis[15] - axis[14]);
+        return l;
+    }
+
+    public boolean isCarved(int xf, int y, int zf, int terrainHeight) {
+        if (carving && terrainHeight > fluidHeight || y < terrainHeight) {
+            for (Layer i : layers) {
+                if (i.isCarved(xf, y, zf)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static class Layer {
+        private final IrisCarveLayer layer;
+        private final int minY;
+        private final int maxY;
+        private final int cellsY;
+        private final double[] values;
+        private final byte[] states;
+
+        private Layer(IrisCarveLayer layer, RNG rng, double[] lx, double[] lz) {
+            this.layer = layer;
+            minY = layer.getMinHeight();
+            maxY = layer.getMaxHeight();
+            cellsY = Math.max(0, (maxY - minY + STEP) / STEP);
+            values = new double[POINTS * POINTS * (cellsY + 1)];
+            states = new byte[CELLS * CELLS * cellsY];
+            CNG cng = layer.getGenerator(rng);
+
+            for (int c = 0; c <= cellsY; c++) {
+                for (int b = 0; b < POINTS; b++) {
+                    for (int a = 0; a < POINTS; a++) {
+                        values[point(a, b, c)] = cng.fitDouble(0D, 1D, lx[a], minY + (c * STEP), lz[b]);
+                    }
+                }
+            }
+
+            for (int c = 0; c < cellsY; c++) {
+                double minOpacity = Double.MAX_VALUE;
+                double maxOpacity = 0;
+
+                for (int y = minY + (c * STEP); y <= Math.min(maxY, minY + (c * STEP) + STEP); y++) {
+                    double o = layer.getOpacity(y);
+                    minOpacity = Math.min(minOpacity, o);
+                    maxOpacity = Math.max(maxOpacity, o);
+                }
+
+                for (int b = 0; b < CELLS; b++) {
+                    for (int a = 0; a < CELLS; a++) {
+                        double min = Double.MAX_VALUE;
+                        double max = -Double.MAX_VALUE;
+
+                        for (int k = 0; k < 8; k++) {
+                            double v = values[point(a + (k & 1), b + ((k >> 1) & 1), c + (k >> 2))];
+                            min = Math.min(min, v);
+                            max = Math.max(max, v);
+                        }
+
+                        states[(((c * CELLS) + b) * CELLS) + a] = max * maxOpacity <= layer.getThreshold() ? NONE
+                                : min * minOpacity > layer.getThreshold() ? ALL : MIXED;
+                    }
+                }
+            }
+        }
+
+        private int point(int a, int b, int c) {
+            return (((c * POINTS) + b) * POINTS) + a;
+        }
+
+        private boolean isCarved(int xf, int y, int zf) {
+            if (y > maxY || y < minY) {
+                return false;
+            }
+
+            int a = xf / STEP;
+            int b = zf / STEP;
+            int c = Math.min(cellsY - 1, (y - minY) / STEP);
+            byte state = states[(((c * CELLS) + b) * CELLS) + a];
+
+            if (state != MIXED) {
+                return state == ALL;
+            }
+
+            double tx = (xf - (a * STEP)) / (double) STEP;
+            double tz = (zf - (b * STEP)) / (double) STEP;
+            double ty = (y - minY - (c * STEP)) / (double) STEP;
+            double v00 = lerp(values[point(a, b, c)], values[point(a + 1, b, c)], tx);
+            double v10 = lerp(values[point(a, b + 1, c)], values[point(a + 1, b + 1, c)], tx);
+            double v01 = lerp(values[point(a, b, c + 1)], values[point(a + 1, b, c + 1)], tx);
+            double v11 = lerp(values[point(a, b + 1, c + 1)], values[point(a + 1, b + 1, c + 1)], tx);
+            double v = lerp(lerp(v00, v10, tz), lerp(v01, v11, tz), ty);
+
+            return v * layer.getOpacity(y) > layer.getThreshold();
+        }
+
+        private static double lerp(double a, double b, double f) {
+            return a + ((b - a) * f);
+        }
+    }
+}
@@ -67,11 +67,24 @@ public class IrisBiomeActuator extends EngineAssignedActuator<Biome> {
         PrecisionStopwatch p = PrecisionStopwatch.start();
         int zf, maxHeight;
         IrisBiome ib;
+        double[] xs = new double[h.getWidth()];
+        double[] zs = new double[h.getDepth()];
+        IrisBiome[] biomes = new IrisBiome[xs.length * zs.length];
+
+        for (int xf = 0; xf < xs.length; xf++) {
+            xs[xf] = modX(xf + x);
+        }
+
+        for (zf = 0; zf < zs.length; zf++) {
+            zs[zf] = modZ(zf + z);
+        }
+
+        getComplex().getTrueBiomeStream().fill(xs, zs, biomes);
 
         for (int xf = 0; xf < h.getWidth(); xf++) {
             for (zf = 0; zf < h.getDepth(); zf++) {
 
-                ib = getComplex().getTrueBiomeStream().get(modX(xf + x), modZ(zf + z));
+                ib = biomes[(zf * xs.length) + xf];
                 maxHeight = (int) (getComplex().getFluidHeight() + ib.getMaxWithObjectHeight(getData()));
                 if (ib.isCustom()) {
                     try {
@@ -70,17 +70,37 @@ public class IrisDecorantActuator extends EngineAssignedActuator<BlockData> {
 
         int j, realX, realZ, height;
         IrisBiome biome, cave;
+        double[] xs = new double[output.getWidth()];
+        double[] zs = new double[output.getDepth()];
+        double[] heights = new double[xs.length * zs.length];
+        IrisBiome[] biomes = new IrisBiome[heights.length];
+        IrisBiome[] caves = shouldRay ? new IrisBiome[heights.length] : null;
+
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = (int) Math.round(modX(x + i));
+        }
+
+        for (j = 0; j < zs.length; j++) {
+            zs[j] = (int) Math.round(modZ(z + j));
+        }
+
+        getComplex().getHeightStream().fillDouble(xs, zs, heights);
+        getComplex().getTrueBiomeStream().fill(xs, zs, biomes);
+
+        if (caves != null) {
+            getComplex().getCaveBiomeStream().fill(xs, zs, caves);
+        }
 
         for (int i = 0; i < output.getWidth(); i++) {
             for (j = 0; j < output.getDepth(); j++) {
                 boolean solid;
                 int emptyFor = 0;
                 int lastSolid = 0;
-                realX = (int) Math.round(modX(x + i));
-                realZ = (int) Math.round(modZ(z + j));
-                height = (int) Math.round(getComplex().getHeightStream().get(realX, realZ));
-                biome = getComplex().getTrueBiomeStream().get(realX, realZ);
-                cave = shouldRay ? getComplex().getCaveBiomeStream().get(realX, realZ) : null;
+                realX = (int) xs[i];
+                realZ = (int) zs[j];
+                height = (int) Math.round(heights[(j * xs.length) + i]);
+                biome = biomes[(j * xs.length) + i];
+                cave = caves != null ? caves[(j * xs.length) + i] : null;
 
                 if (biome.getDecorators().isEmpty() && (cave == null || cave.getDecorators().isEmpty())) {
                     continue;
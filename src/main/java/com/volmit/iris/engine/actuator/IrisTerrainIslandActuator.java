@@ -65,8 +65,8 @@ public class IrisTerrainIslandActuator extends EngineAssignedActuator<BlockData>
                 realZ = (int) modZ(zf + z);
 
                 if (getComplex().getIslandStream().get(realX, realZ)) {
-                    surface = getComplex().getIslandHeightStream().get(realX, realZ).intValue();
-                    depth = getComplex().getIslandDepthStream().get(realX, realZ).intValue();
+                    surface = (int) getComplex().getIslandHeightStream().getDouble(realX, realZ);
+                    depth = (int) getComplex().getIslandDepthStream().getDouble(realX, realZ);
 
                     for (i = surface - depth; i < surface; i++) {
                         h.set(xf, i, zf, BEDROCK);
@@ -21,6 +21,7 @@ package com.volmit.iris.engine.actuator;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.framework.EngineAssignedActuator;
 import com.volmit.iris.engine.hunk.Hunk;
+import com.volmit.iris.engine.object.CarvePrecision;
 import com.volmit.iris.engine.object.IrisBiome;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.documentation.BlockCoordinates;
@@ -55,15 +56,32 @@ public class IrisTerrainNormalActuator extends EngineAssignedActuator<BlockData>
         int i, zf, depth, realX, realZ, hf, he, b, fdepth;
         IrisBiome biome;
         KList<BlockData> blocks, fblocks;
+        double[] xs = new double[h.getWidth()];
+        double[] zs = new double[h.getDepth()];
+        double[] heights = new double[xs.length * zs.length];
+        IrisBiome[] biomes = new IrisBiome[heights.length];
+
+        for (int xf = 0; xf < xs.length; xf++) {
+            xs[xf] = (int) modX(xf + x);
+        }
+
+        for (zf = 0; zf < zs.length; zf++) {
+            zs[zf] = (int) modZ(zf + z);
+        }
+
+        getComplex().getHeightStream().fillDouble(xs, zs, heights);
+        getComplex().getTrueBiomeStream().fill(xs, zs, biomes);
+        CarveLattice lattice = carving && xs.length == 16 && zs.length == 16 && getDimension().getCarvePrecision().equals(CarvePrecision.LATTICE)
+                ? new CarveLattice(getDimension(), rng, xs, zs) : null;
 
         for (int xf = 0; xf < h.getWidth(); xf++) {
             for (zf = 0; zf < h.getDepth(); zf++) {
-                realX = (int) modX(xf + x);
-                realZ = (int) modZ(zf + z);
+                realX = (int) xs[xf];
+                realZ = (int) zs[zf];
                 b = hasUnder ? (int) Math.round(getDimension().getUndercarriage().get(rng, realX, realZ)) : 0;
-                he = (int) Math.round(Math.min(h.getHeight(), getComplex().getHeightStream().get(realX, realZ)));
+                he = (int) Math.round(Math.min(h.getHeight(), heights[(zf * xs.length) + xf]));
                 hf = Math.round(Math.max(Math.min(h.getHeight(), getDimension().getFluidHeight()), he));
-                biome = getComplex().getTrueBiomeStream().get(realX, realZ);
+                biome = biomes[(zf * xs.length) + xf];
                 blocks = null;
                 fblocks = null;
 
@@ -84,7 +102,7 @@ public class IrisTerrainNormalActuator extends EngineAssignedActuator<BlockData>
                         }
                     }
 
-                    if (carving && getDimension().isCarved(realX, i, realZ, rng, he)) {
+                    if (carving && (lattice != null ? lattice.isCarved(xf, i, zf, he) : getDimension().isCarved(realX, i, realZ, rng, he))) {
                         continue;
                     }
 
@@ -0,0 +1,129 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.engine.cache;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.volmit.iris.Iris;
+import com.volmit.iris.engine.framework.Engine;
+import com.volmit.iris.engine.object.IrisFeaturePositional;
+import com.volmit.iris.engine.parallax.ParallaxChunkMeta;
+import com.volmit.iris.util.collection.KList;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A chunk keyed grid of positional features grouped per region (32x32 chunks). Each chunk holds the features
+ * from its parallax neighbourhood whose outer radius actually reaches into that chunk, so a lookup is a single
+ * array read. Adding a feature invalidates every chunk whose neighbourhood covers the chunk it was added to.
+ */
+public class FeatureIndex {
+    private static final IrisFeaturePositional[] EMPTY = new IrisFeaturePositional[0];
+    private final Engine engine;
+    private final int radius;
+    private final AtomicLong generation;
+    private final ConcurrentLinkedHashMap<Long, AtomicReferenceArray<IrisFeaturePositional[]>> regions;
+
+    public FeatureIndex(Engine engine, int radius, int maxRegions) {
+        this.engine = engine;
+        this.radius = radius;
+        generation = new AtomicLong(0);
+        regions = new ConcurrentLinkedHashMap.Builder<Long, AtomicReferenceArray<IrisFeaturePositional[]>>()
+                .initialCapacity(maxRegions)
+                .maximumWeightedCapacity(maxRegions)
+                .concurrencyLevel(32)
+                .build();
+    }
+
+    public IrisFeaturePositional[] get(int chunkX, int chunkZ) {
+        AtomicReferenceArray<IrisFeaturePositional[]> region = regions.computeIfAbsent(Cache.key(chunkX >> 5, chunkZ >> 5), (k) -> new AtomicReferenceArray<>(1024));
+        int index = ((chunkZ & 31) << 5) | (chunkX & 31);
+        IrisFeaturePositional[] features = region.get(index);
+
+        if (features == null) {
+            long g = generation.get();
+            features = compute(chunkX, chunkZ);
+            region.set(index, features);
+
+            if (generation.get() != g) {
+                region.compareAndSet(index, features, null);
+            }
+        }
+
+        return features;
+    }
+
+    public void invalidate(int chunkX, int chunkZ) {
+        generation.incrementAndGet();
+
+        for (int i = -radius; i <= radius; i++) {
+            for (int j = -radius; j <= radius; j++) {
+                int x = chunkX + i;
+                int z = chunkZ + j;
+                AtomicReferenceArray<IrisFeaturePositional[]> region = regions.getQuietly(Cache.key(x >> 5, z >> 5));
+
+                if (region != null) {
+                    region.set(((z & 31) << 5) | (x & 31), null);
+                }
+            }
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        regions.clear();
+    }
+
+    private IrisFeaturePositional[] compute(int chunkX, int chunkZ) {
+        KList<IrisFeaturePositional> found = null;
+        double minX = chunkX << 4;
+        double minZ = chunkZ << 4;
+        double maxX = minX + 16;
+        double maxZ = minZ + 16;
+
+        for (int i = -radius; i <= radius; i++) {
+            for (int j = -radius; j <= radius; j++) {
+                ParallaxChunkMeta m = engine.getFramework().getEngineParallax().getParallaxAccess().getMetaR(chunkX + i, chunkZ + j);
+
+                try {
+                    for (IrisFeaturePositional k : m.getFeatures()) {
+                        double r = k.getFeature().getBlockRadius() + k.getFeature().getActualRadius();
+                        double dx = Math.max(Math.max(minX - k.getX(), k.getX() - maxX), 0);
+                        double dz = Math.max(Math.max(minZ - k.getZ(), k.getZ() - maxZ), 0);
+
+                        if ((dx * dx) + (dz * dz) <= r * r) {
+                            if (found == null) {
+                                found = new KList<>();
+                            }
+
+                            found.add(k);
+                        }
+                    }
+                } catch (Throwable e) {
+                    Iris.error("FILTER ERROR" + " AT " + (chunkX + i) + " " + (chunkZ + j));
+                    e.printStackTrace();
+                    Iris.reportError(e);
+                }
+            }
+        }
+
+        return found == null ? EMPTY : found.toArray(new IrisFeaturePositional[0]);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.cache;
+
+import com.volmit.iris.engine.stream.ProceduralStream;
+import lombok.Getter;
+
+/**
+ * True surface heights of one chunk plus a one block apron on every side (18x18), so
+ * per-column consumers can read their x/z neighbours without resolving carving and
+ * caves again.
+ */
+public class SurfaceProfile {
+    public static final int SIZE = 18;
+    @Getter
+    private final int chunkX;
+    @Getter
+    private final int chunkZ;
+    private final int[] trueHeight;
+
+    private SurfaceProfile(int chunkX, int chunkZ, int[] trueHeight) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.trueHeight = trueHeight;
+    }
+
+    public static SurfaceProfile compute(int chunkX, int chunkZ, ProceduralStream<Integer> trueHeight) {
+        int[] heights = new int[SIZE * SIZE];
+        int bx = (chunkX << 4) - 1;
+        int bz = (chunkZ << 4) - 1;
+
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                heights[(j * SIZE) + i] = trueHeight.get(bx + i, bz + j);
+            }
+        }
+
+        return new SurfaceProfile(chunkX, chunkZ, heights);
+    }
+
+    public boolean contains(int x, int z) {
+        int i = x - (chunkX << 4) + 1;
+        int j = z - (chunkZ << 4) + 1;
+        return i >= 0 && j >= 0 && i < SIZE && j < SIZE;
+    }
+
+    public int getTrueHeight(int x, int z) {
+        return trueHeight[((z - (chunkZ << 4) + 1) * SIZE) + (x - (chunkX << 4) + 1)];
+    }
+}
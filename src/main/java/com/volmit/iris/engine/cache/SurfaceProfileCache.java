@@ -0,0 +1,67 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.cache;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.volmit.iris.engine.framework.Engine;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Surface profiles grouped per region (32x32 chunks). Whole regions are evicted least
+ * recently used once more than the configured number of regions are resident.
+ */
+public class SurfaceProfileCache {
+    private final Engine engine;
+    private final ConcurrentLinkedHashMap<Long, AtomicReferenceArray<SurfaceProfile>> regions;
+
+    public SurfaceProfileCache(Engine engine, int maxRegions) {
+        this.engine = engine;
+        regions = new ConcurrentLinkedHashMap.Builder<Long, AtomicReferenceArray<SurfaceProfile>>()
+                .initialCapacity(maxRegions)
+                .maximumWeightedCapacity(maxRegions)
+                .concurrencyLevel(32)
+                .build();
+    }
+
+    public SurfaceProfile get(int chunkX, int chunkZ) {
+        AtomicReferenceArray<SurfaceProfile> region = regions.computeIfAbsent(Cache.key(chunkX >> 5, chunkZ >> 5), (k) -> new AtomicReferenceArray<>(1024));
+        int index = ((chunkZ & 31) << 5) | (chunkX & 31);
+        SurfaceProfile profile = region.get(index);
+
+        if (profile == null) {
+            profile = SurfaceProfile.compute(chunkX, chunkZ, engine.getFramework().getComplex().getTrueHeightStream());
+
+            if (!region.compareAndSet(index, null, profile)) {
+                profile = region.get(index);
+            }
+        }
+
+        return profile;
+    }
+
+    public SurfaceProfile getIfPresent(int chunkX, int chunkZ) {
+        AtomicReferenceArray<SurfaceProfile> region = regions.getQuietly(Cache.key(chunkX >> 5, chunkZ >> 5));
+        return region == null ? null : region.get(((chunkZ & 31) << 5) | (chunkX & 31));
+    }
+
+    public void invalidate() {
+        regions.clear();
+    }
+}
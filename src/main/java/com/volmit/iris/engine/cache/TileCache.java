@@ -0,0 +1,179 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.cache;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slot bookkeeping for caches that hold whole 16x16 chunk tiles. Slots are grouped into
+ * 4-way sets keyed by packed chunk coordinates and evicted with a CLOCK (second chance)
+ * hand per set. Each slot is guarded by a seqlock stamp: readers never block and simply
+ * retry or recompute when a stamp changed under them. The tile data itself lives in the
+ * owner's primitive or typed array at {@code slot * TILE_SIZE}.
+ */
+public class TileCache {
+    public static final int TILE_SIZE = 256;
+    private static final int WAYS = 4;
+    private static final int SLOT_OVERHEAD = 24;
+    private static final int MAX_SETS = 1 << 24;
+    private final int setMask;
+    private final long[] keys;
+    private final AtomicLongArray stamps;
+    private final byte[] referenced;
+    private final int[] hands;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public TileCache(int tiles) {
+        int sets = setsFor(tiles);
+        setMask = sets - 1;
+        keys = new long[sets * WAYS];
+        stamps = new AtomicLongArray(keys.length);
+        referenced = new byte[keys.length];
+        hands = new int[sets];
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Rounds the set count up to a power of two so the mask keeps every set reachable and
+     * the cache never ends up with less than the requested tiles.
+     */
+    private static int setsFor(int tiles) {
+        int want = Math.min(MAX_SETS, Math.max(1, (tiles + WAYS - 1) / WAYS));
+        return want == 1 ? 1 : Integer.highestOneBit(want - 1) << 1;
+    }
+
+    public static int tilesFor(int megabytes, int bytesPerEntry) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        return (int) Math.max(WAYS, bytes / ((long) TILE_SIZE * bytesPerEntry + SLOT_OVERHEAD));
+    }
+
+    public static int index(int x, int z) {
+        return ((z & 15) << 4) | (x & 15);
+    }
+
+    public int getTiles() {
+        return keys.length;
+    }
+
+    public int slot(long key, int way) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (((int) (h >>> 32) & setMask) * WAYS) + way;
+    }
+
+    public int getWays() {
+        return WAYS;
+    }
+
+    /**
+     * Starts an optimistic read. The returned stamp is 0 when the slot is being written or
+     * has never been written, in which case the caller should treat it as a miss.
+     */
+    public long read(int slot, long key) {
+        long s = stamps.getAcquire(slot);
+
+        if (s == 0 || (s & 1) != 0 || keys[slot] != key) {
+            return 0;
+        }
+
+        return s;
+    }
+
+    public boolean validate(int slot, long stamp) {
+        VarHandle.acquireFence();
+
+        if (stamps.get(slot) != stamp) {
+            return false;
+        }
+
+        if (referenced[slot] == 0) {
+            referenced[slot] = 1;
+        }
+
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * Picks a victim in the key's set and locks it for writing. Returns -1 when another
+     * thread already holds the key or is writing the victim; the caller then just uses its
+     * computed tile without caching it.
+     */
+    public int claim(long key) {
+        misses.increment();
+        int base = slot(key, 0);
+
+        for (int i = 0; i < WAYS; i++) {
+            if (read(base + i, key) != 0) {
+                return -1;
+            }
+        }
+
+        int set = base / WAYS;
+        int victim = base;
+
+        for (int i = 0; i < WAYS * 2; i++) {
+            int hand = hands[set];
+            hands[set] = (hand + 1) & (WAYS - 1);
+            victim = base + hand;
+
+            if (referenced[victim] == 0) {
+                break;
+            }
+
+            referenced[victim] = 0;
+        }
+
+        long s = stamps.get(victim);
+
+        if ((s & 1) != 0 || !stamps.compareAndSet(victim, s, s + 1)) {
+            return -1;
+        }
+
+        keys[victim] = key;
+        return victim;
+    }
+
+    public void publish(int slot) {
+        referenced[slot] = 1;
+        stamps.setRelease(slot, stamps.get(slot) + 1);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = getHits();
+        long t = h + getMisses();
+        return t == 0 ? 0 : (double) h / (double) t;
+    }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+    }
+}
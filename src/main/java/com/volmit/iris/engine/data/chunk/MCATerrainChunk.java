@@ -92,7 +92,7 @@ public class MCATerrainChunk implements TerrainChunk {
             return;
         }
 
-        mcaChunk.setBlockStateAt(xx, y, zz, NBTWorld.getCompound(blockData), false);
+        mcaChunk.setBlockStateIdAt(xx, y, zz, NBTWorld.getBlockStateId(blockData));
     }
 
     @NotNull
@@ -106,7 +106,7 @@ public class MCATerrainChunk implements TerrainChunk {
             y = 0;
         }
 
-        return NBTWorld.getBlockData(mcaChunk.getBlockStateAt((x + ox) & 15, y, (z + oz) & 15));
+        return NBTWorld.getBlockStateData(mcaChunk.getBlockStateIdAt((x + ox) & 15, y, (z + oz) & 15));
     }
 
     @Override
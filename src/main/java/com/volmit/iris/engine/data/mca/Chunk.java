@@ -154,18 +154,43 @@ public class Chunk {
      * @throws IOException                   When something went wrong during writing.
      */
     public int serialize(RandomAccessFile raf, int xPos, int zPos) throws IOException {
+        byte[] record = compress(xPos, zPos, new ChunkCompression());
+        raf.write(record);
+        return record.length;
+    }
+
+    /**
+     * Compresses this chunk into its complete region record: the data length, the compression type and the
+     * compressed nbt. This does not touch any shared state so chunks of one region can be compressed in parallel.
+     *
+     * @param xPos The x-coordinate of the chunk.
+     * @param zPos        The z-coodrinate of the chunk.
+     * @param compression The codec to compress with. Its statistics are updated with this chunk.
+     * @return The record bytes as they are laid out in a region file.
+     * @throws UnsupportedOperationException When something went wrong during writing.
+     * @throws IOException                   When something went wrong during writing.
+     */
+    public byte[] compress(int xPos, int zPos, ChunkCompression compression) throws IOException {
         if (partial) {
             throw new UnsupportedOperationException("Partially loaded chunks cannot be serialized");
         }
         ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
-        try (BufferedOutputStream nbtOut = new BufferedOutputStream(CompressionType.ZLIB.compress(baos))) {
-            new NBTSerializer(false).toStream(new NamedTag(null, updateHandle(xPos, zPos)), nbtOut);
+        baos.write(new byte[5]);
+        CompoundTag handle = updateHandle(xPos, zPos);
+        long start = System.nanoTime();
+        ChunkCompression.CountingOutputStream raw = compression.count(compression.compress(baos));
+        try (BufferedOutputStream nbtOut = new BufferedOutputStream(raw)) {
+            new NBTSerializer(false).toStream(new NamedTag(null, handle), nbtOut);
         }
-        byte[] rawData = baos.toByteArray();
-        raf.writeInt(rawData.length + 1); // including the byte to store the compression type
-        raf.writeByte(CompressionType.ZLIB.getID());
-        raf.write(rawData);
-        return rawData.length + 5;
+        byte[] record = baos.toByteArray();
+        compression.record(raw.getCount(), record.length - 5, System.nanoTime() - start);
+        int length = record.length - 4; // including the byte to store the compression type
+        record[0] = (byte) (length >>> 24);
+        record[1] = (byte) (length >>> 16);
+        record[2] = (byte) (length >>> 8);
+        record[3] = (byte) length;
+        record[4] = compression.getType().getID();
+        return record;
     }
 
     /**
@@ -329,6 +354,45 @@ public class Chunk {
         section.setBlockStateAt(blockX, blockY, blockZ, state, cleanup);
     }
 
+    /**
+     * Fetches the global state id (see {@link NBTWorld#getBlockStateId}) at a specific location.
+     * The block coordinates can be absolute or relative to the region or chunk.
+     *
+     * @param blockX The x-coordinate of the block.
+     * @param blockY The y-coordinate of the block.
+     * @param blockZ The z-coordinate of the block.
+     * @return The global state id, 0 (air) if the section does not exist.
+     */
+    public int getBlockStateIdAt(int blockX, int blockY, int blockZ) {
+        Section section = sections.get(MCAUtil.blockToChunk(blockY));
+        if (section == null) {
+            return 0;
+        }
+        return section.getBlockStateIdAt(blockX, blockY, blockZ);
+    }
+
+    /**
+     * Buffers a global state id at a specific location without touching the section palette.
+     * The block coordinates can be absolute or relative to the region or chunk.
+     *
+     * @param blockX  The x-coordinate of the block.
+     * @param blockY  The y-coordinate of the block.
+     * @param blockZ  The z-coordinate of the block.
+     * @param stateId The global state id to be set.
+     */
+    public void setBlockStateIdAt(int blockX, int blockY, int blockZ, int stateId) {
+        int sectionIndex = MCAUtil.blockToChunk(blockY);
+        Section section = sections.get(sectionIndex);
+        if (section == null) {
+            if (stateId == 0) {
+                return;
+            }
+            section = Section.newSection();
+            sections.set(sectionIndex, section);
+        }
+        section.setBlockStateIdAt(blockX, blockY, blockZ, stateId);
+    }
+
     /**
      * @return The DataVersion of this chunk.
      */
@@ -388,6 +452,35 @@ public class Chunk {
         return sections.get(sectionY);
     }
 
+    /**
+     * @return A rough estimate of the heap held by this chunk, its sections and its block entities
+     */
+    public long estimateBytes() {
+        long bytes = 512;
+
+        if (biomes != null) {
+            bytes += biomes.length * 4L;
+        }
+
+        if (tileEntities != null) {
+            bytes += tileEntities.size() * 256L;
+        }
+
+        if (entities != null) {
+            bytes += entities.size() * 512L;
+        }
+
+        for (int i = 0; i < 16; i++) {
+            Section section = sections.get(i);
+
+            if (section != null) {
+                bytes += section.estimateBytes();
+            }
+        }
+
+        return bytes;
+    }
+
     /**
      * Sets a section at a givesn y-coordinate
      *
@@ -0,0 +1,214 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.engine.data.mca;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.util.format.Form;
+import lombok.Getter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The codec chunks are written with, plus running throughput / ratio statistics for it.
+ * One instance is shared by every region of a world, so it must stay thread safe.
+ */
+public class ChunkCompression {
+    public enum Codec {
+        /**
+         * Vanilla zlib at the configured level
+         */
+        ZLIB(CompressionType.ZLIB),
+
+        /**
+         * Zlib stream using huffman coding only. Much faster than ZLIB at the cost of a larger file,
+         * and still readable by anything that reads zlib chunks.
+         */
+        ZLIB_FAST(CompressionType.ZLIB),
+
+        /**
+         * Gzip at the configured level
+         */
+        GZIP(CompressionType.GZIP),
+
+        /**
+         * Uncompressed chunks. Fastest to write, largest on disk.
+         */
+        NONE(CompressionType.NONE);
+
+        @Getter
+        private final CompressionType type;
+
+        Codec(CompressionType type) {
+            this.type = type;
+        }
+    }
+
+    @Getter
+    private final Codec codec;
+    @Getter
+    private final int level;
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public ChunkCompression(Codec codec, int level) {
+        this.codec = codec;
+        this.level = Math.max(Deflater.DEFAULT_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    public ChunkCompression() {
+        this(Codec.ZLIB, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public static ChunkCompression fromSettings() {
+        IrisSettings.IrisSettingsGenerator g = IrisSettings.get().getGenerator();
+        Codec codec = Codec.ZLIB;
+
+        try {
+            codec = Codec.valueOf(g.getMcaCompression().trim().toUpperCase());
+        } catch (Throwable e) {
+            Iris.warn("Unknown mca compression " + g.getMcaCompression() + ", using ZLIB");
+        }
+
+        return new ChunkCompression(codec, g.getMcaCompressionLevel());
+    }
+
+    public CompressionType getType() {
+        return codec.getType();
+    }
+
+    /**
+     * Wraps the given stream in this codec. Closing the returned stream finishes the codec and releases
+     * its native deflater, but also closes the given stream.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        return switch (codec) {
+            case ZLIB -> new DeflaterOutputStream(out, new Deflater(level), 4096) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+            case ZLIB_FAST -> {
+                Deflater d = new Deflater(Deflater.BEST_SPEED);
+                d.setStrategy(Deflater.HUFFMAN_ONLY);
+                yield new DeflaterOutputStream(out, d, 4096) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            }
+            case GZIP -> new GZIPOutputStream(out, 4096) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            case NONE -> out;
+        };
+    }
+
+    /**
+     * Wraps the given stream so the bytes passing through it are counted as raw (uncompressed) input.
+     */
+    public CountingOutputStream count(OutputStream out) {
+        return new CountingOutputStream(out);
+    }
+
+    public void record(long raw, long compressed, long time) {
+        chunks.incrementAndGet();
+        rawBytes.addAndGet(raw);
+        compressedBytes.addAndGet(compressed);
+        nanos.addAndGet(time);
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    public long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * @return The compression throughput in raw bytes per second of (summed, per thread) compression time
+     */
+    public double getThroughput() {
+        long n = nanos.get();
+        return n == 0 ? 0 : rawBytes.get() / (n / 1_000_000_000D);
+    }
+
+    /**
+     * @return The compressed size as a fraction of the raw size
+     */
+    public double getRatio() {
+        long r = rawBytes.get();
+        return r == 0 ? 1 : compressedBytes.get() / (double) r;
+    }
+
+    public String report() {
+        return codec.name() + (codec == Codec.ZLIB || codec == Codec.GZIP ? " (level " + level + ")" : "") + ": "
+                + Form.f(getChunks()) + " chunks, "
+                + Form.memSize(getRawBytes(), 1) + " -> " + Form.memSize(getCompressedBytes(), 1)
+                + " (" + Form.pc(getRatio(), 1) + "), "
+                + Form.memSize((long) getThroughput(), 1) + "/s per thread";
+    }
+
+    public static class CountingOutputStream extends FilterOutputStream {
+        @Getter
+        private long count;
+
+        public CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
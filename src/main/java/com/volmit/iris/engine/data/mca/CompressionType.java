@@ -28,7 +28,7 @@ import java.util.zip.InflaterInputStream;
 
 public enum CompressionType {
 
-    NONE(0, t -> t, t -> t),
+    NONE(3, t -> t, t -> t),
     GZIP(1, GZIPOutputStream::new, GZIPInputStream::new),
     ZLIB(2, DeflaterOutputStream::new, InflaterInputStream::new);
 
@@ -57,6 +57,10 @@ public enum CompressionType {
     }
 
     public static CompressionType getFromID(byte id) {
+        if (id == 0) {
+            return NONE; // uncompressed chunks written before NONE used the vanilla id
+        }
+
         for (CompressionType c : CompressionType.values()) {
             if (c.id == id) {
                 return c;
@@ -19,11 +19,16 @@
 package com.volmit.iris.engine.data.mca;
 
 import com.volmit.iris.engine.data.nbt.tag.CompoundTag;
+import com.volmit.iris.engine.parallel.BurstExecutor;
+import com.volmit.iris.engine.parallel.MultiBurst;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.math.Position2;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @SuppressWarnings("ALL")
@@ -115,6 +120,29 @@ public class MCAFile {
         return chunks;
     }
 
+    /**
+     * @return A rough estimate of the heap held by this region and every chunk in it
+     */
+    public long estimateBytes() {
+        AtomicReferenceArray<Chunk> c = chunks;
+
+        if (c == null) {
+            return 64;
+        }
+
+        long bytes = 64 + c.length() * 4L;
+
+        for (int i = 0; i < c.length(); i++) {
+            Chunk chunk = c.get(i);
+
+            if (chunk != null) {
+                bytes += chunk.estimateBytes();
+            }
+        }
+
+        return bytes;
+    }
+
     /**
      * Calls {@link MCAFile#serialize(RandomAccessFile, boolean)} without updating any timestamps.
      *
@@ -189,6 +217,90 @@ public class MCAFile {
         return chunksWritten;
     }
 
+    /**
+     * Serializes this object to an .mca file. Chunks are compressed in parallel on the given burst,
+     * then the header and every chunk record (padded to whole sectors) are written in one gathered write.
+     * This method does not perform any cleanups on the data.
+     *
+     * @param channel          The channel to write to, positioned at the start of the file.
+     * @param changeLastUpdate Whether it should update all timestamps that show
+     *                         when this file was last updated.
+     * @param burst            The burst to compress chunks on.
+     * @param compression      The codec to compress chunks with.
+     * @return The amount of chunks written to the file.
+     * @throws IOException If something went wrong during serialization.
+     */
+    public int serialize(FileChannel channel, boolean changeLastUpdate, MultiBurst burst, ChunkCompression compression) throws IOException {
+        if (chunks == null) {
+            return 0;
+        }
+
+        int timestamp = (int) (System.currentTimeMillis() / 1000L);
+        int chunkXOffset = MCAUtil.regionToChunk(regionX);
+        int chunkZOffset = MCAUtil.regionToChunk(regionZ);
+        byte[][] records = new byte[1024][];
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        BurstExecutor e = burst.burst(1024);
+
+        for (int i = 0; i < 1024; i++) {
+            Chunk chunk = chunks.get(i);
+
+            if (chunk == null) {
+                continue;
+            }
+
+            int index = i;
+            e.queue(() -> {
+                try {
+                    records[index] = chunk.compress(chunkXOffset + (index & 0x1F), chunkZOffset + (index >> 5), compression);
+                } catch (IOException ex) {
+                    failure.set(ex);
+                }
+            });
+        }
+
+        e.complete();
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(8192);
+        KList<ByteBuffer> buffers = new KList<>();
+        buffers.add(header);
+        int globalOffset = 2;
+        int chunksWritten = 0;
+
+        for (int i = 0; i < 1024; i++) {
+            byte[] record = records[i];
+
+            if (record == null || record.length == 0) {
+                continue;
+            }
+
+            int sectors = (record.length >> 12) + (record.length % 4096 == 0 ? 0 : 1);
+            header.putInt(i * 4, (globalOffset << 8) | (sectors & 0xFF));
+            header.putInt(4096 + (i * 4), changeLastUpdate ? timestamp : chunks.get(i).getLastMCAUpdate());
+            buffers.add(ByteBuffer.wrap(record));
+
+            if (record.length % 4096 != 0) {
+                buffers.add(ByteBuffer.allocate(4096 - (record.length % 4096)));
+            }
+
+            globalOffset += sectors;
+            chunksWritten++;
+        }
+
+        ByteBuffer[] gathered = buffers.toArray(new ByteBuffer[0]);
+        ByteBuffer last = gathered[gathered.length - 1];
+
+        while (last.hasRemaining()) {
+            channel.write(gathered);
+        }
+
+        return chunksWritten;
+    }
+
     /**
      * Set a specific Chunk at a specific index. The index must be in range of 0 - 1023.
      *
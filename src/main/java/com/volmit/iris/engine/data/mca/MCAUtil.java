@@ -18,14 +18,17 @@
 
 package com.volmit.iris.engine.data.mca;
 
+import com.volmit.iris.engine.parallel.MultiBurst;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.math.Position2;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -164,6 +167,39 @@ public final class MCAUtil {
         return chunks;
     }
 
+    /**
+     * Writes an {@code MCAFile} object to disk like {@link MCAUtil#write(MCAFile, File, boolean)}, but compresses
+     * the chunks in parallel on the given burst and writes the whole file with one gathered channel write.
+     *
+     * @param file             The file to write to.
+     * @param mcaFile          The data of the MCA file to write.
+     * @param changeLastUpdate Whether to adjust the timestamps of when the file was saved.
+     * @param burst            The burst to compress chunks on.
+     * @param compression      The codec to compress chunks with.
+     * @return The amount of chunks written to the file.
+     * @throws IOException If something goes wrong during serialization.
+     */
+    public static int write(MCAFile mcaFile, File file, boolean changeLastUpdate, MultiBurst burst, ChunkCompression compression) throws IOException {
+        if (mcaFile == null) {
+            return 0;
+        }
+
+        File to = file;
+        if (file.exists()) {
+            to = File.createTempFile(to.getName(), null);
+        }
+        int chunks;
+        try (FileChannel channel = FileChannel.open(to.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            chunks = mcaFile.serialize(channel, changeLastUpdate, burst, compression);
+        }
+
+        if (chunks > 0 && to != file) {
+            Files.move(to.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return chunks;
+    }
+
     /**
      * Turns the chunks coordinates into region coordinates and calls
      * {@link MCAUtil#createNameFromRegionLocation(int, int)}
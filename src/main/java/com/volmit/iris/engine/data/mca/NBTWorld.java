@@ -19,40 +19,72 @@
 package com.volmit.iris.engine.data.mca;
 
 import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.nms.INMS;
 import com.volmit.iris.engine.cache.Cache;
 import com.volmit.iris.engine.data.B;
 import com.volmit.iris.engine.data.nbt.tag.CompoundTag;
 import com.volmit.iris.engine.data.nbt.tag.StringTag;
+import com.volmit.iris.engine.parallel.MultiBurst;
 import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.format.C;
+import com.volmit.iris.util.format.Form;
 import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.scheduling.IrisLock;
+import com.volmit.iris.util.scheduling.J;
+import lombok.Getter;
 import org.bukkit.NamespacedKey;
 import org.bukkit.block.Biome;
 import org.bukkit.block.data.BlockData;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NBTWorld {
     private static final BlockData AIR = B.get("AIR");
     private static final Map<String, CompoundTag> blockDataCache = new KMap<>();
     private static final Map<Biome, Integer> biomeIds = computeBiomeIDs();
+    private static final Map<BlockData, Integer> blockStateIds = new KMap<>();
+    private static volatile BlockData[] blockStateData = new BlockData[256];
+    private static volatile CompoundTag[] blockStateTags = new CompoundTag[256];
+    private static int blockStateCount = 0;
+
+    static {
+        getBlockStateId(AIR);
+    }
     private final IrisLock regionLock = new IrisLock("Region");
     private final KMap<Long, MCAFile> loadedRegions;
     private final KMap<Long, Long> lastUse;
     private final File worldFolder;
     private final ExecutorService saveQueue;
+    private final AtomicInteger queuedSaves;
+    private final KMap<Long, MCAFile> pendingSaves;
+    private final KMap<Long, Long> savedRegions;
+    private final KMap<Long, Integer> writers;
+    private volatile long loadedBytes;
+    @Getter
+    private final ChunkCompression compression;
 
     public NBTWorld(File worldFolder) {
+        this(worldFolder, ChunkCompression.fromSettings());
+    }
+
+    public NBTWorld(File worldFolder, ChunkCompression compression) {
         this.worldFolder = worldFolder;
+        this.compression = compression;
         this.loadedRegions = new KMap<>();
         this.lastUse = new KMap<>();
+        this.queuedSaves = new AtomicInteger(0);
+        this.pendingSaves = new KMap<>();
+        this.savedRegions = new KMap<>();
+        this.writers = new KMap<>();
         saveQueue = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r);
             t.setName("Iris MCA Writer");
@@ -89,8 +121,152 @@ public class NBTWorld {
         regionLock.unlock();
     }
 
-    public void queueSaveUnload(int x, int z) {
-        saveQueue.submit(() -> doSaveUnload(x, z));
+    /**
+     * Unloads the region and queues it to be written in the background
+     *
+     * @return a future completed once the region is on disk. If the region is not loaded it completes after any
+     * save already queued for it, since the writer runs saves in order.
+     */
+    public CompletableFuture<Void> queueSaveUnload(int x, int z) {
+        MCAFile f = getMCAOrNull(x, z);
+
+        if (f == null) {
+            return CompletableFuture.runAsync(() -> {
+            }, saveQueue);
+        }
+
+        long key = Cache.key(x, z);
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        pendingSaves.put(key, f);
+        unloadRegion(x, z);
+        queuedSaves.incrementAndGet();
+        saveQueue.submit(() -> {
+            try {
+                if (saveRegion(x, z, f)) {
+                    saved.complete(null);
+                } else {
+                    saved.completeExceptionally(new IOException("Failed to save region " + x + " " + z));
+                }
+            } catch (Throwable e) {
+                saved.completeExceptionally(e);
+            } finally {
+                pendingSaves.remove(key, f);
+                queuedSaves.decrementAndGet();
+            }
+        });
+
+        return saved;
+    }
+
+    public int getQueuedSaves() {
+        return queuedSaves.get();
+    }
+
+    /**
+     * @return The estimated heap held by loaded regions, as of the last region load or save tick
+     */
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    public long getMemoryBudget() {
+        return Math.max(0, IrisSettings.get().getGenerator().getMcaMemoryBudgetMB()) * 1024L * 1024L;
+    }
+
+    public String getStatus() {
+        long budget = getMemoryBudget();
+        return Form.f(size()) + " Regions Loaded (" + Form.memSize(getLoadedBytes(), 0)
+                + (budget > 0 ? " of " + Form.memSize(budget, 0) : "") + "), "
+                + Form.f(getQueuedSaves()) + " Queued Saves";
+    }
+
+    /**
+     * Measures the loaded regions and, while they are over the memory budget, evicts the least recently used ones
+     * by queueing them to be saved. Regions with a chunk still being written are never evicted, so the budget is soft.
+     */
+    private void enforceMemoryBudget() {
+        long budget = getMemoryBudget();
+        regionLock.lock();
+
+        try {
+            KMap<Long, Long> sizes = new KMap<>();
+            long total = 0;
+
+            for (Long i : loadedRegions.k()) {
+                MCAFile f = loadedRegions.get(i);
+
+                if (f != null) {
+                    long bytes = f.estimateBytes();
+                    sizes.put(i, bytes);
+                    total += bytes;
+                }
+            }
+
+            while (budget > 0 && total > budget) {
+                Long lru = null;
+                long lruTime = Long.MAX_VALUE;
+
+                for (Long i : sizes.k()) {
+                    long used = lastUse.getOrDefault(i, 0L);
+
+                    if (used < lruTime && !isWriting(i)) {
+                        lru = i;
+                        lruTime = used;
+                    }
+                }
+
+                if (lru == null) {
+                    break;
+                }
+
+                total -= sizes.remove(lru);
+                queueSaveUnload(Cache.keyX(lru), Cache.keyZ(lru));
+                Iris.debug("Evicted Region " + C.GOLD + Cache.keyX(lru) + " " + Cache.keyZ(lru) + C.LIGHT_PURPLE + " (over memory budget)");
+            }
+
+            loadedBytes = total;
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    /**
+     * Brings back a region this writer already saved and unloaded, so touching it again does not
+     * overwrite its saved chunks with an empty region.
+     */
+    private MCAFile reloadRegion(int x, int z, long key) {
+        MCAFile pending = pendingSaves.get(key);
+
+        if (pending != null) {
+            while (pendingSaves.get(key) == pending) {
+                J.sleep(5);
+            }
+
+            return pending;
+        }
+
+        if (savedRegions.containsKey(key)) {
+            try {
+                Iris.debug("Reloading Region " + C.GOLD + x + " " + z);
+                return MCAUtil.read(getRegionFile(x, z));
+            } catch (IOException e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stalls the calling generator thread while too many unloaded regions are still waiting to be written
+     */
+    private void awaitSaveCapacity() {
+        int max = IrisSettings.get().getGenerator().getMcaMaxQueuedSaves();
+
+        while (max > 0 && queuedSaves.get() >= max) {
+            J.sleep(25);
+        }
     }
 
     public void doSaveUnload(int x, int z) {
@@ -115,21 +291,21 @@ public class NBTWorld {
                 lastUse.put(i, M.ms());
             }
 
-            if (shouldUnload(x, z)) {
+            if (shouldUnload(x, z) && !isWriting(i)) {
                 queueSaveUnload(x, z);
             }
         }
 
-        Iris.debug("Regions: " + C.GOLD + loadedRegions.size() + C.LIGHT_PURPLE);
-
         regionLock.unlock();
+        enforceMemoryBudget();
+        Iris.debug("Regions: " + C.GOLD + getStatus() + C.LIGHT_PURPLE);
     }
 
     public void queueSave() {
 
     }
 
-    public synchronized void unloadRegion(int x, int z) {
+    public void unloadRegion(int x, int z) {
         long key = Cache.key(x, z);
         regionLock.lock();
         loadedRegions.remove(key);
@@ -138,25 +314,25 @@ public class NBTWorld {
         Iris.debug("Unloaded Region " + C.GOLD + x + " " + z);
     }
 
-    public void saveRegion(int x, int z) {
-        long k = Cache.key(x, z);
-        MCAFile mca = getMCAOrNull(x, z);
-        try {
-            MCAUtil.write(mca, getRegionFile(x, z), true);
-            Iris.debug("Saved Region " + C.GOLD + x + " " + z);
-        } catch (IOException e) {
-            Iris.error("Failed to save region " + getRegionFile(x, z).getPath());
-            e.printStackTrace();
-        }
+    public boolean saveRegion(int x, int z) {
+        return saveRegion(x, z, getMCAOrNull(x, z));
     }
 
-    public void saveRegion(int x, int z, MCAFile mca) {
+    /**
+     * @return false if the region could not be written
+     */
+    public boolean saveRegion(int x, int z, MCAFile mca) {
         try {
-            MCAUtil.write(mca, getRegionFile(x, z), true);
+            if (MCAUtil.write(mca, getRegionFile(x, z), true, MultiBurst.burst, compression) > 0) {
+                savedRegions.put(Cache.key(x, z), M.ms());
+            }
+
             Iris.debug("Saved Region " + C.GOLD + x + " " + z);
+            return true;
         } catch (IOException e) {
             Iris.error("Failed to save region " + getRegionFile(x, z).getPath());
             e.printStackTrace();
+            return false;
         }
     }
 
@@ -229,6 +405,52 @@ public class NBTWorld {
         return s;
     }
 
+    /**
+     * Maps block data to a global state id, shared by every section this writer buffers. Id 0 is always air.
+     *
+     * @param blockData the block data
+     * @return the global state id
+     */
+    public static int getBlockStateId(BlockData blockData) {
+        Integer id = blockStateIds.get(blockData);
+
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (blockStateIds) {
+            id = blockStateIds.get(blockData);
+
+            if (id != null) {
+                return id;
+            }
+
+            id = blockStateCount;
+
+            if (id >= blockStateData.length) {
+                blockStateData = Arrays.copyOf(blockStateData, blockStateData.length * 2);
+                blockStateTags = Arrays.copyOf(blockStateTags, blockStateTags.length * 2);
+            }
+
+            blockStateData[id] = blockData;
+            blockStateTags[id] = getCompound(blockData);
+            blockStateCount++;
+            blockStateIds.put(blockData, id);
+            return id;
+        }
+    }
+
+    public static BlockData getBlockStateData(int id) {
+        return blockStateData[id];
+    }
+
+    /**
+     * The shared palette tag for a global state id. Do not modify the returned tag.
+     */
+    public static CompoundTag getBlockStateTag(int id) {
+        return blockStateTags[id];
+    }
+
     public BlockData getBlockData(int x, int y, int z) {
         try {
             CompoundTag tag = getChunkSection(x >> 4, y >> 4, z >> 4).getBlockStateAt(x & 15, y & 15, z & 15);
@@ -246,35 +468,66 @@ public class NBTWorld {
     }
 
     public void setBlockData(int x, int y, int z, BlockData data) {
-        getChunkSection(x >> 4, y >> 4, z >> 4).setBlockStateAt(x & 15, y & 15, z & 15, getCompound(data), false);
+        try {
+            getChunk(x >> 4, z >> 4).setBlockStateIdAt(x & 15, y, z & 15, getBlockStateId(data));
+        } finally {
+            releaseChunk(x >> 4, z >> 4);
+        }
     }
 
     public void setBiome(int x, int y, int z, Biome biome) {
-        getChunk(x >> 4, z >> 4).setBiomeAt(x & 15, y, z & 15, biomeIds.get(biome));
+        try {
+            getChunk(x >> 4, z >> 4).setBiomeAt(x & 15, y, z & 15, biomeIds.get(biome));
+        } finally {
+            releaseChunk(x >> 4, z >> 4);
+        }
     }
 
     public Section getChunkSection(int x, int y, int z) {
-        Chunk c = getChunk(x, z);
-        Section s = c.getSection(y);
+        try {
+            Chunk c = getChunk(x, z);
+            Section s = c.getSection(y);
 
-        if (s == null) {
-            s = Section.newSection();
-            c.setSection(y, s);
-        }
+            if (s == null) {
+                s = Section.newSection();
+                c.setSection(y, s);
+            }
 
-        return s;
+            return s;
+        } finally {
+            releaseChunk(x, z);
+        }
     }
 
+    /**
+     * Gets or creates the chunk and marks its region as being written so it cannot be evicted. Every call must be
+     * paired with {@link #releaseChunk(int, int)} once the chunk write finishes.
+     */
     public synchronized Chunk getChunk(int x, int z) {
-        MCAFile mca = getMCA(x >> 5, z >> 5);
-        Chunk c = mca.getChunk(x & 31, z & 31);
+        writers.merge(Cache.key(x >> 5, z >> 5), 1, Integer::sum);
+
+        try {
+            MCAFile mca = getMCA(x >> 5, z >> 5);
+            Chunk c = mca.getChunk(x & 31, z & 31);
 
-        if (c == null) {
-            c = Chunk.newChunk();
-            mca.setChunk(x & 31, z & 31, c);
+            if (c == null) {
+                c = Chunk.newChunk();
+                mca.setChunk(x & 31, z & 31, c);
+            }
+
+            return c;
+        } catch (Throwable e) {
+            releaseChunk(x, z);
+            throw e;
         }
+    }
+
+    public void releaseChunk(int x, int z) {
+        writers.computeIfPresent(Cache.key(x >> 5, z >> 5), (k, v) -> v > 1 ? v - 1 : null);
+    }
 
-        return c;
+    private boolean isWriting(long region) {
+        return writers.containsKey(region);
     }
 
     public long getIdleDuration(int x, int z) {
@@ -292,7 +545,14 @@ public class NBTWorld {
         regionLock.unlock();
 
         if (mcaf == null) {
-            mcaf = new MCAFile(x, z);
+            awaitSaveCapacity();
+            enforceMemoryBudget();
+            mcaf = reloadRegion(x, z, key);
+
+            if (mcaf == null) {
+                mcaf = new MCAFile(x, z);
+            }
+
             regionLock.lock();
             loadedRegions.put(key, mcaf);
             regionLock.unlock();
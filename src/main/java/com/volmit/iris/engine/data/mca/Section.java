@@ -27,10 +27,12 @@ import com.volmit.iris.util.collection.KMap;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
 
 public class Section {
     private CompoundTag data;
@@ -40,6 +42,8 @@ public class Section {
     private AtomicLongArray blockStates;
     private byte[] skyLight;
     private int dataVersion;
+    private volatile int[] stateIds;
+    private final StampedLock stateLock = new StampedLock();
 
     public Section(CompoundTag sectionRoot, int dataVersion) {
         this(sectionRoot, dataVersion, LoadFlags.ALL_DATA);
@@ -151,6 +155,10 @@ public class Section {
      * @return The block state data of this block.
      */
     public CompoundTag getBlockStateAt(int blockX, int blockY, int blockZ) {
+        if (stateIds != null) {
+            return NBTWorld.getBlockStateTag(stateIds[getBlockIndex(blockX, blockY, blockZ)]);
+        }
+
         try {
             int index = getBlockIndex(blockX, blockY, blockZ);
             int paletteIndex = getPaletteIndex(index);
@@ -175,6 +183,7 @@ public class Section {
      *                Recalculating the Palette should only be executed once right before saving the Section to file.
      */
     public void setBlockStateAt(int blockX, int blockY, int blockZ, CompoundTag state, boolean cleanup) {
+        flushStateIds();
         int paletteSizeBefore = palette.size();
         int paletteIndex = addToPalette(state);
         //power of 2 --> bits must increase, but only if the palette size changed
@@ -192,6 +201,155 @@ public class Section {
         }
     }
 
+    /**
+     * Fetches the global state id (see {@link NBTWorld#getBlockStateId}) of a block in this Section.
+     *
+     * @param blockX The x-coordinate of the block in this Section
+     * @param blockY The y-coordinate of the block in this Section
+     * @param blockZ The z-coordinate of the block in this Section
+     * @return The global state id of this block.
+     */
+    public int getBlockStateIdAt(int blockX, int blockY, int blockZ) {
+        if (stateIds != null) {
+            return stateIds[getBlockIndex(blockX, blockY, blockZ)];
+        }
+
+        CompoundTag tag = getBlockStateAt(blockX, blockY, blockZ);
+        return tag == null ? 0 : NBTWorld.getBlockStateId(NBTWorld.getBlockData(tag));
+    }
+
+    /**
+     * Buffers a global state id for a block in this Section. While buffered, the palette and BlockStates are
+     * only built once, when the Section is serialized or accessed through the palette api.
+     *
+     * @param blockX  The x-coordinate of the block in this Section
+     * @param blockY  The y-coordinate of the block in this Section
+     * @param blockZ  The z-coordinate of the block in this Section
+     * @param stateId The global state id of the block
+     */
+    public void setBlockStateIdAt(int blockX, int blockY, int blockZ, int stateId) {
+        long stamp = stateLock.readLock();
+
+        try {
+            int[] ids = stateIds;
+
+            if (ids == null) {
+                synchronized (this) {
+                    ids = stateIds;
+
+                    if (ids == null) {
+                        ids = expandStateIds();
+                        stateIds = ids;
+                    }
+                }
+            }
+
+            ids[getBlockIndex(blockX, blockY, blockZ)] = stateId;
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    private int[] expandStateIds() {
+        int[] ids = new int[4096];
+
+        if (palette != null && palette.size() >= 1) {
+            int[] remap = new int[palette.size()];
+
+            for (int i = 0; i < remap.length; i++) {
+                remap[i] = NBTWorld.getBlockStateId(NBTWorld.getBlockData(palette.get(i)));
+            }
+
+            if (remap.length == 1) {
+                Arrays.fill(ids, remap[0]);
+            } else {
+                for (int i = 0; i < 4096; i++) {
+                    ids[i] = remap[getPaletteIndex(i)];
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Builds the palette and packed BlockStates from the buffered global state ids in one pass. Takes the write
+     * side of the state lock so no buffered write can land after the ids have been packed.
+     */
+    void flushStateIds() {
+        if (stateIds == null) {
+            return;
+        }
+
+        long stamp = stateLock.writeLock();
+
+        try {
+            flushStateIdsLocked();
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    private void flushStateIdsLocked() {
+        int[] ids = stateIds;
+
+        if (ids == null) {
+            return;
+        }
+
+        int max = 0;
+
+        for (int i : ids) {
+            max = Math.max(max, i);
+        }
+
+        int[] local = new int[max + 1];
+        Arrays.fill(local, -1);
+        ListTag<CompoundTag> newPalette = new ListTag<>(CompoundTag.class);
+        valueIndexedPalette = new KMap<>();
+        local[0] = 0;
+        newPalette.add(NBTWorld.getBlockStateTag(0));
+        putValueIndexedPalette(newPalette.get(0), 0);
+
+        for (int i : ids) {
+            if (local[i] < 0) {
+                local[i] = newPalette.size();
+                newPalette.add(NBTWorld.getBlockStateTag(i));
+                putValueIndexedPalette(newPalette.get(local[i]), local[i]);
+            }
+        }
+
+        int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(newPalette.size() - 1));
+        long[] packed;
+
+        if (dataVersion < 2527) {
+            packed = new long[bits * 64];
+
+            for (int i = 0; i < 4096; i++) {
+                long v = local[ids[i]];
+                int bit = i * bits;
+                int index = bit >> 6;
+                int offset = bit & 63;
+                packed[index] |= v << offset;
+
+                if (offset + bits > 64) {
+                    packed[index + 1] |= v >>> (64 - offset);
+                }
+            }
+        } else {
+            int perLong = 64 / bits;
+            packed = new long[(4096 + perLong - 1) / perLong];
+
+            for (int i = 0; i < 4096; i++) {
+                packed[i / perLong] |= ((long) local[ids[i]]) << ((i % perLong) * bits);
+            }
+        }
+
+        palette = newPalette;
+        blockStates = new AtomicLongArray(packed);
+        stateIds = null;
+    }
+
     /**
      * Returns the index of the block data in the palette.
      *
@@ -254,6 +412,7 @@ public class Section {
      * @return The palette of this Section.
      */
     public ListTag<CompoundTag> getPalette() {
+        flushStateIds();
         return palette;
     }
 
@@ -288,6 +447,11 @@ public class Section {
      * Recalculating the Palette should only be executed once right before saving the Section to file.
      */
     public void cleanupPaletteAndBlockStates() {
+        if (stateIds != null) {
+            flushStateIds();
+            return;
+        }
+
         Map<Integer, Integer> oldToNewMapping = cleanupPalette();
         adjustBlockStateBits(oldToNewMapping, blockStates);
     }
@@ -370,6 +534,7 @@ public class Section {
      * @return The indices of the block states of this Section.
      */
     public AtomicLongArray getBlockStates() {
+        flushStateIds();
         return blockStates;
     }
 
@@ -386,7 +551,14 @@ public class Section {
         } else if (blockStates.length() % 64 != 0 || blockStates.length() < 256 || blockStates.length() > 4096) {
             throw new IllegalArgumentException("BlockStates must have a length > 255 and < 4097 and must be divisible by 64");
         }
-        this.blockStates = blockStates;
+        long stamp = stateLock.writeLock();
+
+        try {
+            stateIds = null;
+            this.blockStates = blockStates;
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -409,6 +581,37 @@ public class Section {
         this.skyLight = skyLight;
     }
 
+    /**
+     * @return A rough estimate of the heap held by this section's block, palette and light data
+     */
+    public long estimateBytes() {
+        long bytes = 128;
+        int[] ids = stateIds;
+        AtomicLongArray states = blockStates;
+
+        if (ids != null) {
+            bytes += ids.length * 4L;
+        }
+
+        if (states != null) {
+            bytes += states.length() * 8L;
+        }
+
+        if (palette != null) {
+            bytes += palette.size() * 160L;
+        }
+
+        if (blockLight != null) {
+            bytes += blockLight.length;
+        }
+
+        if (skyLight != null) {
+            bytes += skyLight.length;
+        }
+
+        return bytes;
+    }
+
     /**
      * Creates an empty Section with base values.
      *
@@ -434,6 +637,7 @@ public class Section {
      * @return A reference to the raw CompoundTag this Section is based on
      */
     public CompoundTag updateHandle(int y) {
+        flushStateIds();
         data.putByte("Y", (byte) y);
         if (palette != null) {
             data.put("Palette", palette);
@@ -46,7 +46,6 @@ public abstract class IrisEngineDecorator extends EngineAssignedComponent implem
 
     protected IrisDecorator getDecorator(IrisBiome biome, double realX, double realZ) {
         KList<IrisDecorator> v = new KList<>();
-        RNG rng = new RNG(Cache.key((int) realX, (int) realZ));
 
         for (IrisDecorator i : biome.getDecorators()) {
             try {
@@ -60,7 +59,7 @@ public abstract class IrisEngineDecorator extends EngineAssignedComponent implem
         }
 
         if (v.isNotEmpty()) {
-            return v.get(rng.nextInt(v.size()));
+            return v.get(RNG.firstInt(Cache.key((int) realX, (int) realZ), v.size()));
         }
 
         return null;
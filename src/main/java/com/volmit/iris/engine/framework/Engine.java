@@ -297,7 +297,7 @@ public interface Engine extends DataProvider, Fallible, GeneratorAccess, LootPro
     default KList<IrisLootTable> getLootTables(RNG rng, Block b) {
         int rx = b.getX();
         int rz = b.getZ();
-        double he = getFramework().getComplex().getHeightStream().get(rx, rz);
+        double he = getFramework().getComplex().getHeightStream().getDouble(rx, rz);
         PlacedObject po = getFramework().getEngine().getObjectPlacement(rx, b.getY(), rz);
         if (po != null && po.getPlacement() != null) {
 
@@ -23,6 +23,7 @@ import com.volmit.iris.core.IrisDataManager;
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.nms.BiomeBaseInjector;
 import com.volmit.iris.core.nms.INMS;
+import com.volmit.iris.core.pregenerator.PregenFrontier;
 import com.volmit.iris.core.pregenerator.PregenListener;
 import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.engine.IrisEngineCompound;
@@ -31,7 +32,6 @@ import com.volmit.iris.engine.data.chunk.MCATerrainChunk;
 import com.volmit.iris.engine.data.chunk.TerrainChunk;
 import com.volmit.iris.engine.data.mca.MCAUtil;
 import com.volmit.iris.engine.data.mca.NBTWorld;
-import com.volmit.iris.engine.data.nbt.tag.CompoundTag;
 import com.volmit.iris.engine.headless.HeadlessGenerator;
 import com.volmit.iris.engine.hunk.Hunk;
 import com.volmit.iris.engine.lighting.LightingChunk;
@@ -47,6 +47,7 @@ import com.volmit.iris.util.format.C;
 import com.volmit.iris.util.format.Form;
 import com.volmit.iris.util.io.ReactiveFolder;
 import com.volmit.iris.util.math.M;
+import com.volmit.iris.util.math.Spiraled;
 import com.volmit.iris.util.plugin.VolmitSender;
 import com.volmit.iris.util.reflect.V;
 import com.volmit.iris.util.scheduling.ChronoLatch;
@@ -525,9 +526,13 @@ public class EngineCompositeGenerator extends ChunkGenerator implements IrisAcce
 
     @Override
     public void directWriteMCA(IrisWorld w, int x, int z, NBTWorld writer, MultiBurst burst, PregenListener l) {
-        BurstExecutor e = burst.burst(1024);
+        directWriteMCA(w, x, z, writer, burst, l, null);
+    }
 
-        PregenTask.iterateRegion(x, z, (ii, jj) -> e.queue(() -> {
+    @Override
+    public void directWriteMCA(IrisWorld w, int x, int z, NBTWorld writer, MultiBurst burst, PregenListener l, PregenTask task) {
+        BurstExecutor e = burst.burst(1024);
+        Spiraled queue = (ii, jj) -> e.queue(() -> {
             if (l != null) {
                 l.onChunkGenerating(ii, jj);
             }
@@ -535,17 +540,37 @@ public class EngineCompositeGenerator extends ChunkGenerator implements IrisAcce
             if (l != null) {
                 l.onChunkGenerated(ii, jj);
             }
-        }));
+        });
+
+        if (task == null) {
+            PregenTask.iterateRegion(x, z, queue);
+        } else {
+            task.iterateChunks(x, z, queue);
+        }
 
         e.complete();
     }
 
+    @Override
+    public void retainParallax(PregenFrontier frontier) {
+        if (getComposite() == null) {
+            return;
+        }
+
+        for (int i = 0; i < getComposite().getSize(); i++) {
+            Engine e = getComposite().getEngine(i);
+            e.getParallax().setRetention(frontier == null ? null
+                    : frontier.reach((int) Math.ceil(e.getFramework().getEngineParallax().getParallaxSize() / 2D)));
+        }
+    }
+
     @Override
     public void directWriteChunk(IrisWorld w, int x, int z, NBTWorld writer) {
+        com.volmit.iris.engine.data.mca.Chunk chunk = writer.getChunk(x, z);
+
         try
         {int ox = x << 4;
             int oz = z << 4;
-            com.volmit.iris.engine.data.mca.Chunk chunk = writer.getChunk(x, z);
             generateChunkRawData(w, x, z, MCATerrainChunk.builder()
                     .writer(writer).ox(ox).oz(oz).mcaChunk(chunk)
                     .minHeight(w.minHeight()).maxHeight(w.maxHeight())
@@ -560,16 +585,20 @@ public class EngineCompositeGenerator extends ChunkGenerator implements IrisAcce
             e.printStackTrace();
             Iris.reportErrorChunk(x, z, e, "MCA");
             Iris.error("======================================");
-            com.volmit.iris.engine.data.mca.Chunk chunk = writer.getChunk(x, z);
-            CompoundTag c = NBTWorld.getCompound(ERROR_BLOCK);
+            int c = NBTWorld.getBlockStateId(ERROR_BLOCK);
             for(int i = 0; i < 16; i++)
             {
                 for(int j = 0; j < 16; j++)
                 {
-                    chunk.setBlockStateAt(i, 0, j, c, false);
+                    chunk.setBlockStateIdAt(i, 0, j, c);
                 }
             }
         }
+
+        finally
+        {
+            writer.releaseChunk(x, z);
+        }
     }
 
     public Runnable generateChunkRawData(IrisWorld world, int x, int z, TerrainChunk tc) {
@@ -658,6 +687,10 @@ public class EngineCompositeGenerator extends ChunkGenerator implements IrisAcce
     @Override
     public void printMetrics(CommandSender sender) {
         getComposite().printMetrics(sender);
+
+        if (nbtWorld != null) {
+            sender.sendMessage("MCA Writer: " + nbtWorld.getStatus());
+        }
     }
 
     @Override
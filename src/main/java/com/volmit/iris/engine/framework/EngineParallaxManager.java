@@ -18,11 +18,13 @@
 
 package com.volmit.iris.engine.framework;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisDataManager;
 import com.volmit.iris.engine.IrisComplex;
 import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.engine.cache.FeatureIndex;
+import com.volmit.iris.engine.cache.SurfaceProfile;
+import com.volmit.iris.engine.cache.SurfaceProfileCache;
 import com.volmit.iris.engine.data.B;
 import com.volmit.iris.engine.data.DataProvider;
 import com.volmit.iris.engine.hunk.Hunk;
@@ -33,6 +35,7 @@ import com.volmit.iris.engine.object.common.IObjectPlacer;
 import com.volmit.iris.engine.object.tile.TileData;
 import com.volmit.iris.engine.parallax.ParallaxAccess;
 import com.volmit.iris.engine.parallax.ParallaxChunkMeta;
+import com.volmit.iris.engine.parallax.ParallaxObjectInstance;
 import com.volmit.iris.engine.parallel.BurstExecutor;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.collection.KMap;
@@ -120,7 +123,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
      */
     default int repairChunk(Chunk c) {
         ParallaxChunkMeta m = getParallaxAccess().getMetaR(c.getX(), c.getZ());
-        Hunk<String> o = getParallaxAccess().getObjectsR(c.getX(), c.getZ());
+        Hunk<Integer> o = getParallaxAccess().getObjectsR(c.getX(), c.getZ());
         Hunk<BlockData> b = getParallaxAccess().getBlocksR(c.getX(), c.getZ());
         ChunkSnapshot snapshot = c.getChunkSnapshot(false, false, false);
         KList<Runnable> queue = new KList<>();
@@ -202,50 +205,35 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
         }
     }
 
-    ConcurrentLinkedHashMap<Long, KList<IrisFeaturePositional>> getFeatureCache();
+    FeatureIndex getFeatureIndex();
 
     IrisLock getFeatureLock();
 
+    SurfaceProfileCache getSurfaceProfiles();
+
     @BlockCoordinates
     default void forEachFeature(double x, double z, Consumer<IrisFeaturePositional> f) {
         if (!getEngine().getDimension().hasFeatures(getEngine())) {
             return;
         }
 
-        KList<IrisFeaturePositional> pos = new KList<>();
-
         for (IrisFeaturePositional i : getEngine().getDimension().getSpecificFeatures()) {
             if (i.shouldFilter(x, z)) {
-                pos.add(i);
+                f.accept(i);
             }
         }
 
-        int s = (int) Math.ceil(getParallaxSize() / 2D);
-        int i, j;
-        int cx = (int) x >> 4;
-        int cz = (int) z >> 4;
-
-        for (i = -s; i <= s; i++) {
-            for (j = -s; j <= s; j++) {
-                ParallaxChunkMeta m = getParallaxAccess().getMetaR(i + cx, j + cz);
-
-                try {
-                    for (IrisFeaturePositional k : m.getFeatures()) {
-                        if (k.shouldFilter(x, z)) {
-                            pos.add(k);
-                        }
-                    }
-                } catch (Throwable e) {
-                    Iris.error("FILTER ERROR" + " AT " + (cx + i) + " " + (j + cz));
-                    e.printStackTrace();
-                    Iris.reportError(e);
-                }
+        for (IrisFeaturePositional i : getFeatureIndex().get(((int) Math.floor(x)) >> 4, ((int) Math.floor(z)) >> 4)) {
+            if (i.shouldFilter(x, z)) {
+                f.accept(i);
             }
         }
+    }
 
-        for (IrisFeaturePositional ipf : pos) {
-            f.accept(ipf);
-        }
+    @ChunkCoordinates
+    default void addFeature(int cx, int cz, IrisFeaturePositional feature) {
+        getParallaxAccess().getMetaRW(cx, cz).getFeatures().add(feature);
+        getFeatureIndex().invalidate(cx, cz);
     }
 
     @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
@@ -271,7 +259,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                     if (!getParallaxAccess().isFeatureGenerated(xx, zz)) {
                         getParallaxAccess().setFeatureGenerated(xx, zz);
                         burst.queue(() -> {
-                            RNG rng = new RNG(Cache.key(xx, zz)).nextParallelRNG(getEngine().getTarget().getWorld().seed());
+                            RNG rng = RNG.at(Cache.key(xx, zz), getEngine().getTarget().getWorld().seed());
                             IrisRegion region = getComplex().getRegionStream().get(xxx, zzz);
                             IrisBiome biome = getComplex().getTrueBiomeStream().get(xxx, zzz);
                             generateParallaxFeatures(rng, xx, zz, region, biome);
@@ -332,7 +320,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
         if (getEngine().getDimension().isPlaceObjects()) {
             int xx = x << 4;
             int zz = z << 4;
-            RNG rng = new RNG(Cache.key(x, z)).nextParallelRNG(getEngine().getTarget().getWorld().seed());
+            RNG rng = RNG.at(Cache.key(x, z), getEngine().getTarget().getWorld().seed());
             IrisRegion region = getComplex().getRegionStream().get(xx + 8, zz + 8);
             IrisBiome biome = getComplex().getTrueBiomeStream().get(xx + 8, zz + 8);
             after.addAll(generateParallaxJigsaw(rng, x, z, biome, region));
@@ -351,7 +339,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
         int xx = x << 4;
         int zz = z << 4;
         getParallaxAccess().setParallaxGenerated(x, z);
-        RNG rng = new RNG(Cache.key(x, z)).nextParallelRNG(getEngine().getTarget().getWorld().seed());
+        RNG rng = RNG.at(Cache.key(x, z), getEngine().getTarget().getWorld().seed());
         IrisBiome biome = getComplex().getTrueBiomeStream().get(xx + 8, zz + 8);
         IrisRegion region = getComplex().getRegionStream().get(xx + 8, zz + 8);
         generateParallaxSurface(rng, x, z, biome, region, false);
@@ -374,7 +362,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
 
     default void placeZone(RNG rng, int cx, int cz, IrisFeaturePotential i) {
         if (i.hasZone(rng, cx, cz)) {
-            getParallaxAccess().getMetaRW(cx, cz).getFeatures().add(new IrisFeaturePositional((cx << 4) + rng.nextInt(16), (cz << 4) + rng.nextInt(16), i.getZone()));
+            addFeature(cx, cz, new IrisFeaturePositional((cx << 4) + rng.nextInt(16), (cz << 4) + rng.nextInt(16), i.getZone()));
         }
     }
 
@@ -394,8 +382,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                 structure.getFeature().setBlockRadius((double) structure.getMaxDimension() / 3);
             }
 
-            getParallaxAccess().getMetaRW(position.getX() >> 4, position.getZ() >> 4).getFeatures()
-                    .add(new IrisFeaturePositional(position.getX(), position.getZ(), structure.getFeature()));
+            addFeature(position.getX() >> 4, position.getZ() >> 4, new IrisFeaturePositional(position.getX(), position.getZ(), structure.getFeature()));
         }
 
         placeAfter.addAll(new PlannedStructure(structure, position, rng).place(this, this));
@@ -466,7 +453,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                 continue;
             }
 
-            if (rng.chance(i.getChance() + rng.d(-0.005, 0.005)) && rng.chance(getComplex().getObjectChanceStream().get(x << 4, z << 4))) {
+            if (rng.chance(i.getChance() + rng.d(-0.005, 0.005)) && rng.chance(getComplex().getObjectChanceStream().getDouble(x << 4, z << 4))) {
                 try {
                     place(rng, x << 4, z << 4, i);
                 } catch (Throwable e) {
@@ -484,7 +471,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                 continue;
             }
 
-            if (rng.chance(i.getChance() + rng.d(-0.005, 0.005)) && rng.chance(getComplex().getObjectChanceStream().get(x << 4, z << 4))) {
+            if (rng.chance(i.getChance() + rng.d(-0.005, 0.005)) && rng.chance(getComplex().getObjectChanceStream().getDouble(x << 4, z << 4))) {
                 try {
                     place(rng, x << 4, z << 4, i);
                 } catch (Throwable e) {
@@ -534,6 +521,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
 
     default void placePiece(RNG rng, int xx, int forceY, int zz, IrisObject v, IrisObjectPlacement p) {
         int id = rng.i(0, Integer.MAX_VALUE);
+        ParallaxObjectInstance instance = new ParallaxObjectInstance(v.getLoadKey(), id);
         int maxf = 10000;
         AtomicBoolean pl = new AtomicBoolean(false);
         AtomicInteger max = new AtomicInteger(-1);
@@ -542,7 +530,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
             int xf = b.getX();
             int yf = b.getY();
             int zf = b.getZ();
-            getParallaxAccess().setObject(xf, yf, zf, v.getLoadKey() + "@" + id);
+            getParallaxAccess().setObject(xf, yf, zf, instance);
             ParallaxChunkMeta meta = getParallaxAccess().getMetaRW(xf >> 4, zf >> 4);
             meta.setObjects(true);
             meta.setMinObject(Math.min(Math.max(meta.getMinObject(), 0), yf));
@@ -558,7 +546,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
             f.setInterpolationRadius(a / 4);
             f.setInterpolator(InterpolationMethod.BILINEAR_STARCAST_9);
             f.setStrength(1D);
-            getParallaxAccess().getMetaRW(xx >> 4, zz >> 4).getFeatures().add(new IrisFeaturePositional(xx, zz, f));
+            addFeature(xx >> 4, zz >> 4, new IrisFeaturePositional(xx, zz, f));
         }
     }
 
@@ -571,6 +559,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
             int xx = rng.i(x, x + 16);
             int zz = rng.i(z, z + 16);
             int id = rng.i(0, Integer.MAX_VALUE);
+            ParallaxObjectInstance instance = new ParallaxObjectInstance(v.getLoadKey(), id);
             int maxf = 10000;
             AtomicBoolean pl = new AtomicBoolean(false);
             AtomicInteger max = new AtomicInteger(-1);
@@ -579,7 +568,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                 int xf = b.getX();
                 int yf = b.getY();
                 int zf = b.getZ();
-                getParallaxAccess().setObject(xf, yf, zf, v.getLoadKey() + "@" + id);
+                getParallaxAccess().setObject(xf, yf, zf, instance);
                 ParallaxChunkMeta meta = getParallaxAccess().getMetaRW(xf >> 4, zf >> 4);
                 meta.setObjects(true);
                 meta.setMinObject(Math.min(Math.max(meta.getMinObject(), 0), yf));
@@ -595,7 +584,7 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
                 f.setInterpolationRadius(a / 4);
                 f.setInterpolator(InterpolationMethod.BILINEAR_STARCAST_9);
                 f.setStrength(1D);
-                getParallaxAccess().getMetaRW(xx >> 4, zz >> 4).getFeatures().add(new IrisFeaturePositional(xx, zz, f));
+                addFeature(xx >> 4, zz >> 4, new IrisFeaturePositional(xx, zz, f));
             }
         }
     }
@@ -823,6 +812,12 @@ public interface EngineParallaxManager extends DataProvider, IObjectPlacer {
     }
 
     default int trueHeight(int x, int z) {
+        SurfaceProfile profile = getSurfaceProfiles().getIfPresent(x >> 4, z >> 4);
+
+        if (profile != null) {
+            return profile.getTrueHeight(x, z);
+        }
+
         return getComplex().getTrueHeightStream().get(x, z);
     }
 
@@ -25,6 +25,7 @@ import com.volmit.iris.engine.object.IrisBiome;
 import com.volmit.iris.engine.object.IrisObjectPlacement;
 import com.volmit.iris.engine.object.IrisRegion;
 import com.volmit.iris.engine.parallax.ParallaxAccess;
+import com.volmit.iris.engine.parallax.ParallaxObjectInstance;
 
 public interface GeneratorAccess extends DataProvider, Renderer {
     IrisRegion getRegion(int x, int z);
@@ -48,15 +49,14 @@ public interface GeneratorAccess extends DataProvider, Renderer {
     }
 
     default PlacedObject getObjectPlacement(int x, int y, int z) {
-        String objectAt = getParallaxAccess().getObject(x, y, z);
+        ParallaxObjectInstance objectAt = getParallaxAccess().getObjectInstance(x, y, z);
 
-        if (objectAt == null || objectAt.isEmpty()) {
+        if (objectAt == null) {
             return null;
         }
 
-        String[] v = objectAt.split("\\Q@\\E");
-        String object = v[0];
-        int id = Integer.parseInt(v[1]);
+        String object = objectAt.getObject();
+        int id = objectAt.getId();
         IrisRegion region = getRegion(x, z);
 
         for (IrisObjectPlacement i : region.getObjects()) {
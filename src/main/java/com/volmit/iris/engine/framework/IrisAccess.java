@@ -20,7 +20,9 @@ package com.volmit.iris.engine.framework;
 
 import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisDataManager;
+import com.volmit.iris.core.pregenerator.PregenFrontier;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
 import com.volmit.iris.engine.IrisComplex;
 import com.volmit.iris.engine.data.DataProvider;
 import com.volmit.iris.engine.data.mca.NBTWorld;
@@ -57,6 +59,15 @@ public interface IrisAccess extends Hotloadable, DataProvider {
 
     void directWriteMCA(IrisWorld w, int x, int z, NBTWorld writer, MultiBurst burst, PregenListener listener);
 
+    void directWriteMCA(IrisWorld w, int x, int z, NBTWorld writer, MultiBurst burst, PregenListener listener, PregenTask task);
+
+    /**
+     * Keeps parallax loaded for as long as the given frontier still needs it instead of evicting it on idle time
+     *
+     * @param frontier the frontier or null to go back to idle time eviction
+     */
+    void retainParallax(PregenFrontier frontier);
+
     void directWriteChunk(IrisWorld w, int x, int z, NBTWorld writer);
 
     int getGenerated();
@@ -18,8 +18,11 @@
 
 package com.volmit.iris.engine.headless;
 
+import com.volmit.iris.Iris;
 import com.volmit.iris.core.IrisSettings;
 import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
+import com.volmit.iris.engine.data.mca.ChunkCompression;
 import com.volmit.iris.engine.data.mca.MCAUtil;
 import com.volmit.iris.engine.data.mca.NBTWorld;
 import com.volmit.iris.engine.framework.EngineCompositeGenerator;
@@ -30,6 +33,7 @@ import lombok.Data;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @Data
 public class HeadlessGenerator {
@@ -40,9 +44,13 @@ public class HeadlessGenerator {
     private final MultiBurst burst;
 
     public HeadlessGenerator(HeadlessWorld world) {
+        this(world, ChunkCompression.fromSettings());
+    }
+
+    public HeadlessGenerator(HeadlessWorld world, ChunkCompression compression) {
         this.world = world;
-        burst = new MultiBurst("Iris Headless Generator", 9, IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount()));
-        writer = new NBTWorld(world.getWorld().worldFolder());
+        burst = new MultiBurst("Iris Headless Generator", 9, IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount()), true);
+        writer = new NBTWorld(world.getWorld().worldFolder(), compression);
         generator = new EngineCompositeGenerator(world.getDimension().getLoadKey(), !world.isStudio());
         generator.assignHeadlessGenerator(this);
         generator.assignHeadlessNBTWriter(writer);
@@ -61,8 +69,12 @@ public class HeadlessGenerator {
         generator.directWriteMCA(world.getWorld(), x, z, writer, burst, listener);
     }
 
+    public void generateRegion(int x, int z, PregenTask task, PregenListener listener) {
+        generator.directWriteMCA(world.getWorld(), x, z, writer, burst, listener, task);
+    }
+
     public File generateRegionToFile(int x, int z, PregenListener listener) {
-        generateRegionToFile(x, z, listener);
+        generateRegion(x, z, listener);
         flush();
         return writer.getRegionFile(x, z);
     }
@@ -75,10 +87,23 @@ public class HeadlessGenerator {
         writer.save();
     }
 
+    /**
+     * Queues a finished region to be written in the background
+     *
+     * @return a future completed once the region is on disk
+     */
+    public CompletableFuture<Void> saveRegion(int x, int z) {
+        return writer.queueSaveUnload(x, z);
+    }
+
     public void close() {
         burst.shutdownAndAwait();
         generator.close();
         writer.close();
+
+        if (writer.getCompression().getChunks() > 0) {
+            Iris.info("MCA Compression " + writer.getCompression().report());
+        }
     }
 
     public KList<Position2> getChunksInRegion(int x, int z) {
@@ -0,0 +1,315 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.headless;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.core.IrisDataManager;
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.core.pregenerator.IrisPregenerator;
+import com.volmit.iris.core.pregenerator.PregenJournal;
+import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.PregenTask;
+import com.volmit.iris.core.pregenerator.PregeneratorMethod;
+import com.volmit.iris.core.pregenerator.methods.HeadlessPregenMethod;
+import com.volmit.iris.core.pregenerator.methods.SyndicateClusterPregenMethod;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicateNode;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicateServer;
+import com.volmit.iris.engine.object.IrisDimension;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.format.Form;
+import com.volmit.iris.util.io.IO;
+import com.volmit.iris.util.math.Position2;
+import com.volmit.iris.util.scheduling.ChronoLatch;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.zeroturnaround.zip.commons.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Pregenerates a world straight to region files without a server.
+ * <pre>
+ * java -cp iris.jar:server.jar com.volmit.iris.engine.headless.HeadlessMain \
+ *     --pack packs/overworld --out world --seed 1337 --radius 10k --threads 16
+ * </pre>
+ * Running it again on the same output resumes from the pregen journal. With --workers the regions are leased to
+ * syndicate workers (started with --serve) instead of being generated locally.
+ */
+public class HeadlessMain {
+    public static void main(String[] a) {
+        KMap<String, String> args = parse(a);
+
+        if (args != null && args.containsKey("serve")) {
+            serve(args);
+            return;
+        }
+
+        if (args == null || !args.containsKey("pack") || !args.containsKey("out") || !args.containsKey("radius")) {
+            usage();
+            System.exit(1);
+            return;
+        }
+
+        File pack = new File(args.get("pack")).getAbsoluteFile();
+        File out = new File(args.get("out")).getAbsoluteFile();
+        String dimension = args.containsKey("dimension") ? args.get("dimension") : pack.getName();
+        long seed = args.containsKey("seed") ? Long.parseLong(args.get("seed")) : new Random().nextLong();
+        int radius = ((blocks(args.get("radius")) >> 4) >> 5) + 1;
+
+        if (!new File(pack, "dimensions/" + dimension + ".json").isFile()) {
+            System.out.println("Cannot find dimension " + dimension + " in " + pack.getPath());
+            System.exit(1);
+            return;
+        }
+
+        try {
+            boot(args.containsKey("data") ? new File(args.get("data")) : new File(out, "iris/headless"), args);
+            install(pack, new File(Iris.instance.getDataFolder("packs"), dimension));
+            install(pack, new File(out, "iris/pack"));
+            IrisDimension dim = IrisDataManager.loadAnyDimension(dimension);
+
+            if (dim == null) {
+                System.out.println("Failed to load dimension " + dimension);
+                System.exit(1);
+                return;
+            }
+
+            Iris.info("Pregenerating " + dim.getName() + " (seed " + seed + ") into " + out.getPath() + " with a radius of " + radius + " regions");
+            PregenTask task = PregenTask.builder()
+                    .center(new Position2(0, 0))
+                    .radius(radius)
+                    .build();
+            PregeneratorMethod method;
+
+            if (args.containsKey("workers")) {
+                KList<SyndicateNode> nodes = new KList<>();
+
+                for (String i : args.get("workers").split("\\Q,\\E")) {
+                    nodes.add(SyndicateNode.parse(i.trim()));
+                }
+
+                new File(out, "region").mkdirs();
+                method = new SyndicateClusterPregenMethod(out, dim, seed, nodes);
+            } else {
+                method = new HeadlessPregenMethod(new HeadlessWorld(out.getPath(), dim, seed));
+            }
+
+            new IrisPregenerator(task, method, listener(), PregenJournal.of(out)).start();
+            Iris.info("Done");
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Runs a syndicate worker until the process is stopped
+     */
+    private static void serve(KMap<String, String> args) {
+        try {
+            File data = new File(args.containsKey("data") ? args.get("data") : "iris-worker").getAbsoluteFile();
+            boot(data, args);
+            int port = Integer.parseInt(args.get("serve"));
+            SyndicateServer server = new SyndicateServer(new File(data, "syndicate"), port, args.get("password"),
+                    IrisSettings.getThreadCount(IrisSettings.get().getConcurrency().getPregenThreadCount()));
+            Iris.info("Syndicate worker listening on port " + port);
+            server.join();
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    private static void boot(File data, KMap<String, String> args) {
+        System.setProperty("iris.headless", "true");
+        HeadlessServer.install();
+        new Iris(new JavaPluginLoader(Bukkit.getServer()), new PluginDescriptionFile("Iris", version(), Iris.class.getName()), data.getAbsoluteFile(), pluginFile());
+
+        if (args.containsKey("threads")) {
+            int threads = Integer.parseInt(args.get("threads"));
+            IrisSettings.get().getConcurrency().setPregenThreadCount(threads);
+            IrisSettings.get().getConcurrency().setEngineThreadCount(threads);
+        }
+    }
+
+    private static void install(File pack, File into) throws IOException {
+        if (into.exists() && !into.getCanonicalPath().equals(pack.getCanonicalPath())) {
+            IO.delete(into);
+        }
+
+        if (!into.exists()) {
+            FileUtils.copyDirectory(pack, into);
+        }
+    }
+
+    private static PregenListener listener() {
+        ChronoLatch cl = new ChronoLatch(5000);
+        return new PregenListener() {
+            @Override
+            public void onTick(double chunksPerSecond, double chunksPerMinute, double regionsPerMinute, double percent, int generated, int totalChunks, int chunksRemaining, long eta, long elapsed, String method) {
+                if (cl.flip()) {
+                    Iris.info("Pregen " + Form.pc(percent) + " " + Form.f(generated) + " of " + Form.f(totalChunks)
+                            + " (" + Form.f((int) chunksPerSecond) + "/s) ETA " + Form.duration(eta, 2));
+                }
+            }
+
+            @Override
+            public void onChunkGenerating(int x, int z) {
+
+            }
+
+            @Override
+            public void onChunkGenerated(int x, int z) {
+
+            }
+
+            @Override
+            public void onRegionGenerated(int x, int z) {
+
+            }
+
+            @Override
+            public void onRegionGenerating(int x, int z) {
+
+            }
+
+            @Override
+            public void onRegionSkipped(int x, int z) {
+
+            }
+
+            @Override
+            public void onNetworkStarted(int x, int z) {
+
+            }
+
+            @Override
+            public void onNetworkLeased(int x, int z, String node) {
+
+            }
+
+            @Override
+            public void onNetworkFailed(int x, int z) {
+
+            }
+
+            @Override
+            public void onNetworkReclaim(int revert) {
+
+            }
+
+            @Override
+            public void onNetworkGeneratedChunk(int x, int z) {
+
+            }
+
+            @Override
+            public void onNetworkDownloaded(int x, int z) {
+
+            }
+
+            @Override
+            public void onClose() {
+
+            }
+
+            @Override
+            public void onSaving() {
+                Iris.info("Saving...");
+            }
+
+            @Override
+            public void onChunkExistsInRegionGen(int x, int z) {
+
+            }
+        };
+    }
+
+    private static KMap<String, String> parse(String[] a) {
+        KMap<String, String> args = new KMap<>();
+
+        for (int i = 0; i < a.length; i++) {
+            if (!a[i].startsWith("--") || i + 1 >= a.length) {
+                return null;
+            }
+
+            args.put(a[i].substring(2).toLowerCase(), a[++i]);
+        }
+
+        return args;
+    }
+
+    /**
+     * Same radius notation as /iris pregen: plain blocks, or suffixed with c, r or k.
+     */
+    private static int blocks(String arg) {
+        String v = arg.toLowerCase();
+
+        if (v.endsWith("c")) {
+            return Integer.parseInt(v.substring(0, v.length() - 1)) * 16;
+        }
+
+        if (v.endsWith("r")) {
+            return Integer.parseInt(v.substring(0, v.length() - 1)) * 512;
+        }
+
+        if (v.endsWith("k")) {
+            return Integer.parseInt(v.substring(0, v.length() - 1)) * 1000;
+        }
+
+        return Integer.parseInt(v);
+    }
+
+    private static String version() {
+        String v = HeadlessMain.class.getPackage().getImplementationVersion();
+        return v == null ? "headless" : v;
+    }
+
+    private static File pluginFile() {
+        try {
+            return new File(HeadlessMain.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (Throwable e) {
+            return new File("Iris.jar");
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java -cp <iris.jar>:<server.jar> " + HeadlessMain.class.getName() + " [options]");
+        System.out.println("  --pack <folder>       Iris pack to generate with (required)");
+        System.out.println("  --out <folder>        World folder to write region files into (required)");
+        System.out.println("  --radius <size>       Radius in blocks, or with a c / r / k suffix (required)");
+        System.out.println("  --dimension <key>     Dimension in the pack, defaults to the pack folder name");
+        System.out.println("  --seed <seed>         World seed, random if not set");
+        System.out.println("  --threads <count>     Generator threads, defaults to the settings");
+        System.out.println("  --data <folder>       Iris data folder, defaults to <out>/iris/headless");
+        System.out.println("  --workers <host:port,...>  Lease regions to syndicate workers instead of generating locally");
+        System.out.println("Or run a syndicate worker: " + HeadlessMain.class.getName() + " --serve <port> [--threads <count>] [--data <folder>]");
+        System.out.println("The server jar is only used as a library for block data, it is never started.");
+    }
+}
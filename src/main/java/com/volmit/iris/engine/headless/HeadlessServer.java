@@ -0,0 +1,393 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.headless;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.collection.KSet;
+import com.volmit.iris.util.format.C;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Just enough of a Bukkit server to run the headless generator outside of a server JVM. Everything not listed here
+ * answers with an empty / default value.
+ * <p>
+ * Block data is still created by craftbukkit, so the server jar has to be on the classpath. It is only used as a
+ * library, the minecraft registries are bootstrapped reflectively on first use.
+ */
+public class HeadlessServer implements InvocationHandler {
+    private static final String[] VERSIONS = {"v1_17_R1", "v1_16_R3", "v1_16_R2", "v1_16_R1"};
+    private final Logger logger = Logger.getLogger("Iris");
+    private final AtomicInteger nextTask = new AtomicInteger(1);
+    private final KMap<Integer, Future<?>> tasks = new KMap<>();
+    private final ScheduledExecutorService main;
+    private final ScheduledExecutorService async;
+    private final Object console;
+    private final Object scheduler;
+    private final Object pluginManager;
+    private volatile Method newData;
+    private volatile Object unsafe;
+
+    private HeadlessServer() {
+        main = Executors.newSingleThreadScheduledExecutor(daemon("Iris Headless Main"));
+        async = Executors.newScheduledThreadPool(2, daemon("Iris Headless Async"));
+        console = proxy(ConsoleCommandSender.class, this::console);
+        scheduler = proxy(BukkitScheduler.class, this::schedule);
+        pluginManager = proxy(PluginManager.class, (m, a) -> defaultValue(m.getReturnType()));
+    }
+
+    /**
+     * Installs the stub as the Bukkit server. Does nothing if a server is already present.
+     */
+    public static void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        Bukkit.setServer(proxy(Server.class, new HeadlessServer()));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getName":
+                return args == null ? "Iris Headless" : defaultValue(method.getReturnType());
+            case "getVersion":
+                return "headless (MC: " + craftVersion() + ")";
+            case "getBukkitVersion":
+                return Server.class.getPackage().getImplementationVersion() == null ? "unknown" : Server.class.getPackage().getImplementationVersion();
+            case "getLogger":
+                return logger;
+            case "getConsoleSender":
+                return console;
+            case "getScheduler":
+                return scheduler;
+            case "getPluginManager":
+                return pluginManager;
+            case "isPrimaryThread":
+                return Thread.currentThread().getName().equals("Iris Headless Main");
+            case "createBlockData":
+                return createBlockData(args);
+            case "getUnsafe":
+                return getUnsafe();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "HeadlessServer";
+        }
+
+        return defaultValue(method.getReturnType());
+    }
+
+    private Object console(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "sendMessage":
+            case "sendRawMessage":
+                if (args != null && args.length > 0) {
+                    Object m = args[args.length - 1];
+
+                    if (m instanceof String[]) {
+                        for (String i : (String[]) m) {
+                            System.out.println(C.stripColor(i));
+                        }
+                    } else if (m instanceof String) {
+                        System.out.println(C.stripColor((String) m));
+                    }
+                }
+
+                return null;
+            case "getName":
+                return "CONSOLE";
+            case "isOp":
+            case "hasPermission":
+            case "isPermissionSet":
+                return true;
+        }
+
+        return defaultValue(method.getReturnType());
+    }
+
+    private Object schedule(Method method, Object[] args) {
+        String name = method.getName();
+
+        if (name.equals("cancelTask")) {
+            Future<?> f = tasks.remove((Integer) args[0]);
+
+            if (f != null) {
+                f.cancel(false);
+            }
+
+            return null;
+        }
+
+        if (name.equals("cancelTasks")) {
+            for (Future<?> i : tasks.v()) {
+                i.cancel(false);
+            }
+
+            tasks.clear();
+            return null;
+        }
+
+        if (name.equals("callSyncMethod")) {
+            return main.submit((Callable<?>) args[1]);
+        }
+
+        Runnable r = args != null && args.length > 1 && args[1] instanceof Runnable ? (Runnable) args[1] : null;
+
+        if (r == null) {
+            return defaultValue(method.getReturnType());
+        }
+
+        boolean sync = !name.contains("Async");
+        boolean repeating = name.contains("Repeating") || name.contains("Timer");
+        long delay = args.length > 2 ? (Long) args[2] : 0;
+        long period = repeating && args.length > 3 ? Math.max(1, (Long) args[3]) : 0;
+        int id = nextTask.getAndIncrement();
+        ScheduledExecutorService s = sync ? main : async;
+        Runnable safe = () -> {
+            try {
+                r.run();
+            } catch (Throwable e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+
+            if (!repeating) {
+                tasks.remove(id);
+            }
+        };
+
+        tasks.put(id, repeating
+                ? s.scheduleAtFixedRate(safe, delay * 50, period * 50, TimeUnit.MILLISECONDS)
+                : s.schedule(safe, delay * 50, TimeUnit.MILLISECONDS));
+
+        if (method.getReturnType().equals(BukkitTask.class)) {
+            return task(id, sync);
+        }
+
+        return id;
+    }
+
+    private Object task(int id, boolean sync) {
+        return proxy(BukkitTask.class, (m, a) -> {
+            switch (m.getName()) {
+                case "getTaskId":
+                    return id;
+                case "getOwner":
+                    return Iris.instance;
+                case "isSync":
+                    return sync;
+                case "isCancelled":
+                    return !tasks.containsKey(id);
+                case "cancel":
+                    Future<?> f = tasks.remove(id);
+
+                    if (f != null) {
+                        f.cancel(false);
+                    }
+
+                    return null;
+            }
+
+            return defaultValue(m.getReturnType());
+        });
+    }
+
+    private Object createBlockData(Object[] args) throws Throwable {
+        Object material = null;
+        String data = null;
+
+        for (Object i : args) {
+            if (i instanceof String) {
+                data = (String) i;
+            } else if (i != null && !(i instanceof java.util.function.Consumer)) {
+                material = i;
+            }
+        }
+
+        try {
+            return blockDataFactory().invoke(null, material, data);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Method blockDataFactory() {
+        if (newData == null) {
+            synchronized (this) {
+                if (newData == null) {
+                    try {
+                        bootstrap();
+                        newData = Class.forName("org.bukkit.craftbukkit." + craftVersion() + ".block.data.CraftBlockData")
+                                .getDeclaredMethod("newData", org.bukkit.Material.class, String.class);
+                    } catch (Throwable e) {
+                        throw new UnsupportedOperationException("Block data needs the server jar on the classpath", e);
+                    }
+                }
+            }
+        }
+
+        return newData;
+    }
+
+    private Object getUnsafe() {
+        if (unsafe == null) {
+            try {
+                blockDataFactory();
+                unsafe = Class.forName("org.bukkit.craftbukkit." + craftVersion() + ".util.CraftMagicNumbers")
+                        .getDeclaredField("INSTANCE").get(null);
+            } catch (Throwable e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+        }
+
+        return unsafe;
+    }
+
+    /**
+     * Runs the vanilla bootstrap so the block registries exist. The obfuscated names differ per version, so every
+     * known candidate is tried.
+     */
+    private static void bootstrap() {
+        invokeFirst(new String[][]{
+                {"net.minecraft.SharedConstants", "a"},
+                {"net.minecraft.SharedConstants", "tryDetectVersion"},
+                {"net.minecraft.server." + craftVersion() + ".SharedConstants", "b"},
+        });
+        invokeFirst(new String[][]{
+                {"net.minecraft.server.DispenserRegistry", "init"},
+                {"net.minecraft.server.Bootstrap", "bootStrap"},
+                {"net.minecraft.server." + craftVersion() + ".DispenserRegistry", "init"},
+        });
+    }
+
+    private static void invokeFirst(String[][] candidates) {
+        for (String[] i : candidates) {
+            try {
+                Method m = Class.forName(i[0]).getDeclaredMethod(i[1]);
+                m.setAccessible(true);
+                m.invoke(null);
+                return;
+            } catch (ClassNotFoundException | NoSuchMethodException ignored) {
+
+            } catch (Throwable e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private static String craftVersion() {
+        for (String i : VERSIONS) {
+            try {
+                Class.forName("org.bukkit.craftbukkit." + i + ".CraftServer", false, HeadlessServer.class.getClassLoader());
+                return i;
+            } catch (Throwable ignored) {
+
+            }
+        }
+
+        return "none";
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type.equals(boolean.class)) {
+            return false;
+        } else if (type.equals(int.class)) {
+            return 0;
+        } else if (type.equals(long.class)) {
+            return 0L;
+        } else if (type.equals(double.class)) {
+            return 0D;
+        } else if (type.equals(float.class)) {
+            return 0F;
+        } else if (type.equals(short.class)) {
+            return (short) 0;
+        } else if (type.equals(byte.class)) {
+            return (byte) 0;
+        } else if (type.equals(char.class)) {
+            return (char) 0;
+        } else if (type.equals(List.class) || type.equals(Collection.class)) {
+            return new KList<>();
+        } else if (type.equals(Set.class)) {
+            return new KSet<>();
+        } else if (type.equals(Map.class)) {
+            return new KMap<>();
+        }
+
+        return null;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, n.getAndIncrement() == 0 ? name : name + " " + n.get());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static <T> T proxy(Class<T> type, ProxyMethod handler) {
+        return proxy(type, (InvocationHandler) (p, m, a) -> {
+            switch (m.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "equals":
+                    return p == a[0];
+                case "toString":
+                    return type.getSimpleName();
+            }
+
+            return handler.invoke(m, a);
+        });
+    }
+
+    @FunctionalInterface
+    private interface ProxyMethod {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -126,6 +126,15 @@ public interface Hunk<T> {
         return combined(Hunk::newMappedHunk, hunks);
     }
 
+    static <T> Hunk<T> newPaletteHunk(int w, int h, int d) {
+        return new PaletteHunk<>(w, h, d);
+    }
+
+    @SafeVarargs
+    static <T> Hunk<T> newCombinedPaletteHunk(Hunk<T>... hunks) {
+        return combined(Hunk::newPaletteHunk, hunks);
+    }
+
     static <T> Hunk<T> newAtomicHunk(int w, int h, int d) {
         return new AtomicHunk<>(w, h, d);
     }
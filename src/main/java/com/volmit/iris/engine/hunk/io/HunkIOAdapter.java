@@ -48,6 +48,16 @@ public interface HunkIOAdapter<T> extends IOAdapter<T> {
         return read(factory, new ByteArrayInputStream(f.getValue()));
     }
 
+    default Hunk<T> read(Function3<Integer, Integer, Integer, Hunk<T>> factory, byte[] f) throws IOException {
+        return read(factory, new ByteArrayInputStream(f));
+    }
+
+    default byte[] writeBytes(Hunk<T> tHunk) throws IOException {
+        ByteArrayOutputStream boas = new ByteArrayOutputStream();
+        write(tHunk, boas);
+        return boas.toByteArray();
+    }
+
     default ByteArrayTag writeByteArrayTag(Hunk<T> tHunk, String name) throws IOException {
         ByteArrayOutputStream boas = new ByteArrayOutputStream();
         write(tHunk, boas);
@@ -16,77 +16,131 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+
 package com.volmit.iris.engine.hunk.io;
 
 import com.volmit.iris.Iris;
-import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.oldnbt.ByteArrayTag;
 import com.volmit.iris.util.oldnbt.CompoundTag;
 import com.volmit.iris.util.oldnbt.NBTInputStream;
-import com.volmit.iris.util.oldnbt.NBTOutputStream;
 import com.volmit.iris.util.oldnbt.Tag;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 
-@SuppressWarnings("SynchronizeOnNonFinalField")
 public class HunkRegion {
     private final File folder;
-    private CompoundTag compound;
+    private final HunkRegionFile file;
     private final int x;
     private final int z;
 
-    public HunkRegion(File folder, int x, int z, CompoundTag compound) {
-        this.compound = fix(compound);
+    public HunkRegion(File folder, int x, int z) {
         this.folder = folder;
         this.x = x;
         this.z = z;
         folder.mkdirs();
-    }
-
-    public HunkRegion(File folder, int x, int z) {
-        this(folder, x, z, new CompoundTag(x + "." + z, new KMap<>()));
         File f = getFile();
-
-        if (f.exists()) {
-            try {
-                NBTInputStream in = new NBTInputStream(new FileInputStream(f));
-                compound = fix((CompoundTag) in.readTag());
-                in.close();
-            } catch (Throwable e) {
-                Iris.reportError(e);
-
+        File legacy = getLegacyFile();
+
+        if (legacy.exists()) {
+            if (f.exists()) {
+                // The migrated file is only ever moved into place whole, so the legacy file is already copied
+                retireLegacy(legacy);
+            } else {
+                migrate(legacy, f);
             }
         }
+
+        try {
+            file = new HunkRegionFile(f);
+        } catch (IOException e) {
+            Iris.reportError(e);
+            throw new RuntimeException("Failed to open region " + f.getPath(), e);
+        }
+    }
+
+    public HunkRegionFile getRegionFile() {
+        return file;
+    }
+
+    public File getFile() {
+        return new File(folder, x + "." + z + HunkRegionFile.EXTENSION);
     }
 
-    public CompoundTag getCompound() {
-        return compound;
+    public File getLegacyFile() {
+        return new File(folder, x + "." + z + ".dat");
     }
 
-    private CompoundTag fix(CompoundTag readTag) {
-        Map<String, Tag> v = readTag.getValue();
+    /**
+     * Copies every slice out of a legacy gzip nbt region into a temporary sector file, atomically moves that into
+     * place and only then moves the legacy file aside. A crash at any point leaves either the legacy file or a
+     * complete sector file behind.
+     */
+    private void migrate(File legacy, File f) {
+        File tmp = new File(folder, f.getName() + ".tmp");
 
-        if (!(v instanceof KMap)) {
-            return new CompoundTag(readTag.getName(), new KMap<>(v));
+        if (tmp.exists() && !tmp.delete()) {
+            throw new RuntimeException("Failed to delete stale migration file " + tmp.getPath());
         }
 
-        return readTag;
+        try {
+            NBTInputStream in = new NBTInputStream(new FileInputStream(legacy));
+            CompoundTag compound = (CompoundTag) in.readTag();
+            in.close();
+            HunkRegionFile target = new HunkRegionFile(tmp);
+
+            try {
+                for (Map.Entry<String, Tag> i : compound.getValue().entrySet()) {
+                    if (!(i.getValue() instanceof ByteArrayTag)) {
+                        continue;
+                    }
+
+                    String key = i.getKey();
+                    byte[] data = ((ByteArrayTag) i.getValue()).getValue();
+                    int zi = key.lastIndexOf('.');
+                    int xi = zi > 0 ? key.lastIndexOf('.', zi - 1) : -1;
+
+                    if (xi > 0) {
+                        target.write(key.substring(0, xi), Integer.parseInt(key.substring(xi + 1, zi)), Integer.parseInt(key.substring(zi + 1)), data);
+                    } else {
+                        target.write(key, 0, 0, data);
+                    }
+                }
+            } finally {
+                target.close();
+            }
+
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            retireLegacy(legacy);
+            Iris.debug("Migrated Parallax Region " + x + " " + z);
+        } catch (Throwable e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+            tmp.delete();
+            throw new RuntimeException("Failed to migrate region " + legacy.getPath(), e);
+        }
     }
 
-    public File getFile() {
-        return new File(folder, x + "." + z + ".dat");
+    private void retireLegacy(File legacy) {
+        if (!legacy.renameTo(new File(folder, legacy.getName() + ".old"))) {
+            Iris.warn("Could not move migrated parallax region " + legacy.getPath());
+        }
     }
 
     public void save() throws IOException {
-        synchronized (compound) {
-            File f = getFile();
-            FileOutputStream fos = new FileOutputStream(f);
-            NBTOutputStream out = new NBTOutputStream(fos);
-            out.writeTag(compound);
-            out.close();
+        file.flush();
+    }
+
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            Iris.reportError(e);
+            e.printStackTrace();
         }
     }
 
@@ -0,0 +1,359 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.engine.hunk.io;
+
+import com.volmit.iris.Iris;
+import com.volmit.iris.util.io.CustomOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A sector based region file for hunk slices, laid out much like an MCA file. The header is memory mapped and
+ * holds a small table of named columns (blockdata, objects, meta...) followed by one entry per column per chunk.
+ * Each entry points to a run of sectors holding a gzip compressed payload so a single chunk slice can be read or
+ * replaced without touching the rest of the region.
+ */
+public class HunkRegionFile {
+    public static final String EXTENSION = ".ipr";
+    private static final int MAGIC = 0x49505258;
+    private static final int VERSION = 1;
+    private static final int SECTOR = 512;
+    private static final int COLUMNS = 8;
+    private static final int COLUMN_NAME = 16;
+    private static final int CHUNKS = 1024;
+    private static final int TABLE = 8 + (COLUMNS * COLUMN_NAME);
+    private static final int HEADER_SECTORS = ((TABLE + (COLUMNS * CHUNKS * 8)) + SECTOR - 1) / SECTOR;
+    private final File file;
+    private final FileChannel channel;
+    private MappedByteBuffer header;
+    private final String[] columns;
+    private final BitSet used;
+
+    public HunkRegionFile(File file) throws IOException {
+        this.file = file;
+        boolean fresh = !file.exists() || file.length() < (long) HEADER_SECTORS * SECTOR;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) HEADER_SECTORS * SECTOR);
+        columns = new String[COLUMNS];
+        used = new BitSet();
+        used.set(0, HEADER_SECTORS);
+
+        if (fresh || header.getInt(0) != MAGIC) {
+            for (int i = 0; i < HEADER_SECTORS * SECTOR; i += 4) {
+                header.putInt(i, 0);
+            }
+
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            return;
+        }
+
+        if (header.getInt(4) != VERSION) {
+            int version = header.getInt(4);
+            unmap(header);
+            channel.close();
+            throw new IOException("Unsupported region version " + version + " in " + file.getPath());
+        }
+
+        for (int i = 0; i < COLUMNS; i++) {
+            byte[] name = new byte[COLUMN_NAME];
+            header.get(8 + (i * COLUMN_NAME), name);
+            int len = 0;
+
+            while (len < COLUMN_NAME && name[len] != 0) {
+                len++;
+            }
+
+            columns[i] = len == 0 ? null : new String(name, 0, len, StandardCharsets.UTF_8);
+        }
+
+        for (int i = 0; i < COLUMNS * CHUNKS; i++) {
+            int sector = header.getInt(entry(i));
+            int length = header.getInt(entry(i) + 4);
+
+            if (sector > 0 && length > 0) {
+                used.set(sector, sector + sectors(length));
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized boolean hasColumn(String column) {
+        checkOpen();
+
+        return column(column, false) >= 0;
+    }
+
+    public synchronized boolean contains(String column, int x, int z) {
+        checkOpen();
+
+        int c = column(column, false);
+        return c >= 0 && header.getInt(entry(slot(c, x, z))) > 0;
+    }
+
+    public synchronized byte[] read(String column, int x, int z) throws IOException {
+        checkOpen();
+
+        int c = column(column, false);
+
+        if (c < 0) {
+            return null;
+        }
+
+        int e = entry(slot(c, x, z));
+        int sector = header.getInt(e);
+        int length = header.getInt(e + 4);
+
+        if (sector <= 0 || length <= 0) {
+            return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        long position = (long) sector * SECTOR;
+
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Truncated " + column + " slice at " + x + " " + z + " in " + file.getPath());
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(buf.array()))) {
+            in.transferTo(out);
+        }
+
+        return out.toByteArray();
+    }
+
+    public void write(String column, int x, int z, byte[] data) throws IOException {
+        ByteArrayOutputStream boas = new ByteArrayOutputStream();
+
+        try (OutputStream out = new CustomOutputStream(boas, 6)) {
+            out.write(data);
+        }
+
+        writeSectors(column, x, z, boas.toByteArray());
+    }
+
+    private synchronized void writeSectors(String column, int x, int z, byte[] payload) throws IOException {
+        checkOpen();
+
+        int e = entry(slot(column(column, true), x, z));
+        int sector = header.getInt(e);
+        int length = header.getInt(e + 4);
+        int needed = sectors(payload.length);
+
+        if (sector <= 0 || sectors(length) < needed) {
+            if (sector > 0) {
+                used.clear(sector, sector + sectors(length));
+            }
+
+            sector = allocate(needed);
+        } else if (sectors(length) > needed) {
+            used.clear(sector + needed, sector + sectors(length));
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        long position = (long) sector * SECTOR;
+
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + buf.position());
+        }
+
+        header.putInt(e, sector);
+        header.putInt(e + 4, payload.length);
+    }
+
+    public synchronized void remove(String column, int x, int z) {
+        checkOpen();
+
+        int c = column(column, false);
+
+        if (c >= 0) {
+            free(entry(slot(c, x, z)));
+        }
+    }
+
+    public synchronized void clear(String column) {
+        checkOpen();
+
+        int c = column(column, false);
+
+        if (c < 0) {
+            return;
+        }
+
+        for (int i = 0; i < CHUNKS; i++) {
+            free(entry((c * CHUNKS) + i));
+        }
+    }
+
+    /**
+     * Frees every slice of the column and removes its name from the header so the slot can be reused
+     */
+    public synchronized void dropColumn(String column) throws IOException {
+        checkOpen();
+
+        int c = column(column, false);
+
+        if (c < 0) {
+            return;
+        }
+
+        for (int i = 0; i < CHUNKS; i++) {
+            free(entry((c * CHUNKS) + i));
+        }
+
+        columns[c] = null;
+        header.put(8 + (c * COLUMN_NAME), new byte[COLUMN_NAME]);
+        flush();
+    }
+
+    public synchronized void flush() throws IOException {
+        checkOpen();
+
+        header.force();
+        channel.force(false);
+    }
+
+    /**
+     * Forces and unmaps the header before closing the channel, so the mapping does not keep the file open (and
+     * locked on Windows) until the buffer happens to be collected
+     */
+    public synchronized void close() throws IOException {
+        if (header == null) {
+            return;
+        }
+
+        try {
+            flush();
+        } finally {
+            MappedByteBuffer h = header;
+            header = null;
+            unmap(h);
+            channel.close();
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field f = unsafe.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe.getMethod("invokeCleaner", ByteBuffer.class).invoke(f.get(null), buffer);
+        } catch (Throwable e) {
+            Iris.reportError(e);
+        }
+    }
+
+    private void checkOpen() {
+        if (header == null) {
+            throw new IllegalStateException("The region file " + file.getPath() + " is closed");
+        }
+    }
+
+    private void free(int e) {
+        int sector = header.getInt(e);
+        int length = header.getInt(e + 4);
+
+        if (sector > 0) {
+            used.clear(sector, sector + sectors(length));
+        }
+
+        header.putInt(e, 0);
+        header.putInt(e + 4, 0);
+    }
+
+    private int allocate(int count) {
+        int start = used.nextClearBit(HEADER_SECTORS);
+
+        while (true) {
+            int next = used.nextSetBit(start);
+
+            if (next < 0 || next - start >= count) {
+                used.set(start, start + count);
+                return start;
+            }
+
+            start = used.nextClearBit(next);
+        }
+    }
+
+    private int column(String name, boolean create) {
+        for (int i = 0; i < COLUMNS; i++) {
+            if (name.equals(columns[i])) {
+                return i;
+            }
+        }
+
+        if (!create) {
+            return -1;
+        }
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > COLUMN_NAME) {
+            throw new IllegalArgumentException("Column name " + name + " is longer than " + COLUMN_NAME + " bytes");
+        }
+
+        for (int i = 0; i < COLUMNS; i++) {
+            if (columns[i] == null) {
+                columns[i] = name;
+                header.put(8 + (i * COLUMN_NAME), bytes);
+                return i;
+            }
+        }
+
+        throw new IllegalStateException("No free columns left for " + name + " in " + file.getPath());
+    }
+
+    private static int slot(int column, int x, int z) {
+        if (x < 0 || x >= 32 || z < 0 || z >= 32) {
+            throw new IndexOutOfBoundsException("The chunk " + x + " " + z + " is out of bounds max is 31x31");
+        }
+
+        return (column * CHUNKS) + (z << 5) + x;
+    }
+
+    private static int entry(int slot) {
+        return TABLE + (slot * 8);
+    }
+
+    private static int sectors(int length) {
+        return (length + SECTOR - 1) / SECTOR;
+    }
+}
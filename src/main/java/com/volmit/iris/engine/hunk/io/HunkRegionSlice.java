@@ -23,48 +23,61 @@ import com.volmit.iris.engine.hunk.Hunk;
 import com.volmit.iris.engine.object.tile.TileData;
 import com.volmit.iris.engine.parallel.BurstExecutor;
 import com.volmit.iris.engine.parallel.MultiBurst;
-import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.collection.KSet;
 import com.volmit.iris.util.function.Function2;
 import com.volmit.iris.util.function.Function3;
 import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.math.Position2;
-import com.volmit.iris.util.oldnbt.ByteArrayTag;
-import com.volmit.iris.util.oldnbt.CompoundTag;
-import com.volmit.iris.util.oldnbt.Tag;
 import org.bukkit.block.TileState;
 import org.bukkit.block.data.BlockData;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 
 public class HunkRegionSlice<T> {
-    public static final Function2<Integer, CompoundTag, HunkRegionSlice<BlockData>> BLOCKDATA = (h, c) -> new HunkRegionSlice<>(h, Hunk::newMappedHunk, new BlockDataHunkIOAdapter(), c, "blockdata");
-    public static final Function2<Integer, CompoundTag, HunkRegionSlice<TileData<? extends TileState>>> TILE = (h, c) -> new HunkRegionSlice<>(h, Hunk::newMappedHunk, new TileDataHunkIOAdapter(), c, "tile");
-    public static final Function3<Integer, CompoundTag, String, HunkRegionSlice<String>> STRING = (h, c, t) -> new HunkRegionSlice<>(h, Hunk::newMappedHunk, new StringHunkIOAdapter(), c, t);
-    public static final Function3<Integer, CompoundTag, String, HunkRegionSlice<Boolean>> BOOLEAN = (h, c, t) -> new HunkRegionSlice<>(h, Hunk::newMappedHunk, new BooleanHunkIOAdapter(), c, t);
+    public static final Function2<Integer, HunkRegionFile, HunkRegionSlice<BlockData>> BLOCKDATA = (h, c) -> new HunkRegionSlice<>(h, Hunk::newPaletteHunk, new BlockDataHunkIOAdapter(), c, "blockdata");
+    public static final Function2<Integer, HunkRegionFile, HunkRegionSlice<TileData<? extends TileState>>> TILE = (h, c) -> new HunkRegionSlice<>(h, Hunk::newMappedHunk, new TileDataHunkIOAdapter(), c, "tile");
+    public static final Function3<Integer, HunkRegionFile, String, HunkRegionSlice<String>> STRING = (h, c, t) -> new HunkRegionSlice<>(h, Hunk::newPaletteHunk, new StringHunkIOAdapter(), c, t);
+    public static final Function3<Integer, HunkRegionFile, String, HunkRegionSlice<Integer>> INTEGER = (h, c, t) -> new HunkRegionSlice<>(h, Hunk::newPaletteHunk, new IntegerHunkIOAdapter(), c, t);
+    public static final Function3<Integer, HunkRegionFile, String, HunkRegionSlice<Boolean>> BOOLEAN = (h, c, t) -> new HunkRegionSlice<>(h, Hunk::newPaletteHunk, new BooleanHunkIOAdapter(), c, t);
     private final Function3<Integer, Integer, Integer, Hunk<T>> factory;
     private final HunkIOAdapter<T> adapter;
-    private final CompoundTag compound;
+    private final HunkRegionFile file;
     private final String key;
     private final KMap<Position2, Hunk<T>> loadedChunks;
     private final KMap<Position2, Long> lastUse;
     private final KSet<Position2> save;
+    private final AtomicInteger pendingUnloads;
     private final int height;
 
-    public HunkRegionSlice(int height, Function3<Integer, Integer, Integer, Hunk<T>> factory, HunkIOAdapter<T> adapter, CompoundTag compound, String key) {
+    public HunkRegionSlice(int height, Function3<Integer, Integer, Integer, Hunk<T>> factory, HunkIOAdapter<T> adapter, HunkRegionFile file, String key) {
         this.height = height;
         this.loadedChunks = new KMap<>();
         this.factory = factory;
         this.adapter = adapter;
-        this.compound = compound;
+        this.file = file;
         this.save = new KSet<>();
         this.key = key;
         this.lastUse = new KMap<>();
+        this.pendingUnloads = new AtomicInteger(0);
     }
 
     public synchronized int cleanup(long t) {
+        return cleanup(t, null);
+    }
+
+    /**
+     * Unloads idle chunks. When keep is given it decides alone: chunks it rejects are unloaded right away
+     * and chunks it accepts stay loaded however long they have been idle.
+     *
+     * @param t    the idle time in ms after which a chunk is unloaded
+     * @param keep region-relative chunk coordinates to keep loaded, or null to only go by idle time
+     * @return the amount of chunks being unloaded
+     */
+    public synchronized int cleanup(long t, BiPredicate<Integer, Integer> keep) {
         int v = 0;
         if (loadedChunks.size() != lastUse.size()) {
             Iris.warn("Incorrect chunk use counts in " + key);
@@ -78,25 +91,69 @@ public class HunkRegionSlice<T> {
 
         for (Position2 i : lastUse.k()) {
             Long l = lastUse.get(i);
-            if (l == null || M.ms() - l > t) {
+            if (keep != null ? !keep.test(i.getX(), i.getZ()) : (l == null || M.ms() - l > t)) {
                 v++;
-                MultiBurst.burst.lazy(() -> {
-                    unload(i.getX(), i.getZ());
-                });
+                pendingUnloads.incrementAndGet();
+
+                try {
+                    MultiBurst.burst.lazy(() -> {
+                        try {
+                            unload(i.getX(), i.getZ());
+                        } finally {
+                            finishUnload();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    try {
+                        unload(i.getX(), i.getZ());
+                    } finally {
+                        finishUnload();
+                    }
+                }
             }
         }
 
         return v;
     }
 
-    public synchronized void clear() {
-        for (String i : new KList<>(compound.getValue().keySet())) {
-            if (i.startsWith(key + ".")) {
-                compound.getValue().remove(i);
+    private void finishUnload() {
+        synchronized (pendingUnloads) {
+            if (pendingUnloads.decrementAndGet() == 0) {
+                pendingUnloads.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for unloads scheduled by {@link #cleanup(long, BiPredicate)} so none of them saves into the region
+     * file after it has been closed
+     */
+    private void drainUnloads() {
+        long until = M.ms() + 30000;
+
+        synchronized (pendingUnloads) {
+            while (pendingUnloads.get() > 0) {
+                long left = until - M.ms();
+
+                if (left <= 0) {
+                    Iris.warn("Gave up waiting on " + pendingUnloads.get() + " pending unloads in " + key);
+                    return;
+                }
+
+                try {
+                    pendingUnloads.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
     }
 
+    public synchronized void clear() {
+        file.clear(key);
+    }
+
     public synchronized void save(MultiBurst burst) {
 
         try {
@@ -119,44 +176,34 @@ public class HunkRegionSlice<T> {
     }
 
     public boolean contains(int x, int z) {
-        return compound.getValue().containsKey(key(x, z));
+        return file.contains(key, x, z);
     }
 
     public void delete(int x, int z) {
-        compound.getValue().remove(key(x, z));
+        file.remove(key, x, z);
     }
 
     public Hunk<T> read(int x, int z) throws IOException {
-        AtomicReference<IOException> e = new AtomicReference<>();
-        Hunk<T> xt = null;
-
-        Tag t = compound.getValue().get(key(x, z));
-
-        if ((t instanceof ByteArrayTag)) {
-            try {
-                xt = adapter.read(factory, (ByteArrayTag) t);
-            } catch (IOException xe) {
-                Iris.reportError(xe);
-                e.set(xe);
-            }
-        }
+        byte[] data = file.read(key, x, z);
 
-        if (xt != null) {
-            return xt;
+        if (data == null) {
+            return null;
         }
 
-        if (e.get() != null) {
-            throw e.get();
+        try {
+            return adapter.read(factory, data);
+        } catch (IOException e) {
+            Iris.reportError(e);
+            throw e;
         }
-
-        return null;
     }
 
     public void write(Hunk<T> hunk, int x, int z) throws IOException {
-        compound.getValue().put(key(x, z), hunk.writeByteArrayTag(adapter, key(x, z)));
+        file.write(key, x, z, adapter.writeBytes(hunk));
     }
 
     public synchronized int unloadAll() {
+        drainUnloads();
         int v = 0;
         for (Position2 i : loadedChunks.k()) {
             unload(i.getX(), i.getZ());
@@ -249,14 +296,6 @@ public class HunkRegionSlice<T> {
         return get(x, z);
     }
 
-    private String key(int x, int z) {
-        if (x < 0 || x >= 32 || z < 0 || z >= 32) {
-            throw new IndexOutOfBoundsException("The chunk " + x + " " + z + " is out of bounds max is 31x31");
-        }
-
-        return key + "." + x + "." + z;
-    }
-
     public int getLoadCount() {
         return loadedChunks.size();
     }
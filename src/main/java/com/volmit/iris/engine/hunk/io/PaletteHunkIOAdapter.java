@@ -21,6 +21,7 @@ package com.volmit.iris.engine.hunk.io;
 import com.volmit.iris.Iris;
 import com.volmit.iris.engine.data.DataPalette;
 import com.volmit.iris.engine.hunk.Hunk;
+import com.volmit.iris.engine.hunk.storage.PaletteHunk;
 import com.volmit.iris.util.function.Function3;
 
 import java.io.*;
@@ -30,6 +31,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 public abstract class PaletteHunkIOAdapter<T> implements HunkIOAdapter<T> {
     @Override
     public void write(Hunk<T> t, OutputStream out) throws IOException {
+        if (t instanceof PaletteHunk) {
+            ((PaletteHunk<T>) t).compact();
+        }
+
         DataOutputStream dos = new DataOutputStream(out);
         dos.writeShort(t.getWidth() + Short.MIN_VALUE);
         dos.writeShort(t.getHeight() + Short.MIN_VALUE);
@@ -44,14 +49,6 @@ public abstract class PaletteHunkIOAdapter<T> implements HunkIOAdapter<T> {
             }
         });
 
-        for (int i = 0; i < t.getWidth(); i++) {
-            for (int j = 0; j < t.getHeight(); j++) {
-                for (int k = 0; k < t.getDepth(); k++) {
-                    T w = t.get(i, j, k);
-                }
-            }
-        }
-
         palette.write(this, dos);
         dos.writeInt(nonNull.get() + Integer.MIN_VALUE);
         AtomicBoolean failure = new AtomicBoolean(false);
@@ -0,0 +1,324 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.hunk.storage;
+
+import com.volmit.iris.engine.hunk.Hunk;
+import com.volmit.iris.util.function.Consumer4;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores a small per hunk palette and a bit packed index array, much like vanilla chunk sections.
+ * Palette id 0 is always null so untouched hunks allocate no index data at all. The number of bits
+ * per entry grows as the palette grows and entries never span two longs.
+ * <p>
+ * Reads and writes of known values never lock: they work against a volatile layout snapshot and
+ * write packed entries with a CAS. Only palette growth, fill, empty and compact take the monitor
+ * and publish a new layout; writers that raced against a retired layout simply write again.
+ */
+@SuppressWarnings({"DefaultAnnotationParam", "Lombok"})
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class PaletteHunk<T> extends StorageHunk<T> implements Hunk<T> {
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Layout<T> layout;
+
+    public PaletteHunk(int w, int h, int d) {
+        super(w, h, d);
+        layout = new Layout<>(0, null, new Object[1], 1, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void setRaw(int x, int y, int z, T t) {
+        int i = index(x, y, z);
+
+        while (true) {
+            Layout<T> l = layout;
+            int id = 0;
+
+            if (t != null) {
+                Integer known = l.ids.get(t);
+
+                if (known == null) {
+                    grow(l, t);
+                    continue;
+                }
+
+                id = known;
+            }
+
+            if (id == 0 && l.data == null) {
+                return;
+            }
+
+            if (id >= 1 << l.bits) {
+                awaitLayout(l);
+                continue;
+            }
+
+            write(l, i, id);
+
+            if (!l.retired) {
+                return;
+            }
+
+            awaitLayout(l);
+        }
+    }
+
+    @Override
+    public T getRaw(int x, int y, int z) {
+        Layout<T> l = layout;
+
+        if (l.data == null) {
+            return null;
+        }
+
+        return l.get(read(l, index(x, y, z)));
+    }
+
+    @Override
+    public Hunk<T> iterateSync(Consumer4<Integer, Integer, Integer, T> c) {
+        Layout<T> l = layout;
+
+        if (l.data == null) {
+            return this;
+        }
+
+        int wh = getWidth() * getHeight();
+        int size = wh * getDepth();
+        int id, r;
+
+        for (int i = 0; i < size; i++) {
+            id = read(l, i);
+
+            if (id == 0) {
+                continue;
+            }
+
+            r = i % wh;
+            c.accept(r % getWidth(), r / getWidth(), i / wh, l.get(id));
+        }
+
+        return this;
+    }
+
+    @Override
+    public synchronized void fill(T t) {
+        if (t == null) {
+            empty(null);
+            return;
+        }
+
+        int size = getWidth() * getHeight() * getDepth();
+        Object[] palette = new Object[2];
+        palette[1] = t;
+        ConcurrentHashMap<T, Integer> ids = new ConcurrentHashMap<>();
+        ids.put(t, 1);
+        AtomicLongArray data = new AtomicLongArray(longs(size, 1));
+
+        for (int i = 0; i < data.length(); i++) {
+            data.set(i, -1L);
+        }
+
+        publish(new Layout<>(1, data, palette, 2, ids));
+    }
+
+    @Override
+    public synchronized void empty(T b) {
+        publish(new Layout<>(0, null, new Object[1], 1, new ConcurrentHashMap<>()));
+    }
+
+    public int getPaletteSize() {
+        return layout.count;
+    }
+
+    /**
+     * Drops palette entries that are no longer referenced and shrinks the bits per entry to
+     * match. Called before a hunk is written out so overwritten values do not linger in the
+     * saved palette.
+     */
+    public synchronized void compact() {
+        Layout<T> l = layout;
+
+        if (l.data == null) {
+            return;
+        }
+
+        int size = getWidth() * getHeight() * getDepth();
+
+        if (countUsed(l, size, new int[l.count]) == l.count) {
+            return;
+        }
+
+        // Retire before the real scan so ids written meanwhile are either seen here or rewritten
+        l.retired = true;
+        int[] remap = new int[l.count];
+        int used = countUsed(l, size, remap);
+
+        if (used == 1) {
+            empty(null);
+            return;
+        }
+
+        int bits = bitsFor(used);
+        Object[] palette = new Object[1 << bits];
+        ConcurrentHashMap<T, Integer> ids = new ConcurrentHashMap<>();
+
+        for (int i = 1; i < l.count; i++) {
+            if (remap[i] != 0) {
+                palette[remap[i]] = l.palette[i];
+                ids.put(l.get(i), remap[i]);
+            }
+        }
+
+        Layout<T> n = new Layout<>(bits, new AtomicLongArray(longs(size, bits)), palette, used, ids);
+
+        for (int i = 0; i < size; i++) {
+            write(n, i, remap[read(l, i)]);
+        }
+
+        layout = n;
+    }
+
+    private synchronized void grow(Layout<T> seen, T t) {
+        Layout<T> l = layout;
+
+        if (l != seen || l.ids.containsKey(t)) {
+            return;
+        }
+
+        int id = l.count;
+
+        if (id < l.palette.length) {
+            l.palette[id] = t;
+            l.count = id + 1;
+            l.ids.put(t, id);
+            return;
+        }
+
+        int size = getWidth() * getHeight() * getDepth();
+        int bits = l.bits + 1;
+        Object[] palette = new Object[1 << bits];
+        System.arraycopy(l.palette, 0, palette, 0, l.count);
+        palette[id] = t;
+        l.retired = true;
+        l.ids.put(t, id);
+        Layout<T> n = new Layout<>(bits, new AtomicLongArray(longs(size, bits)), palette, id + 1, l.ids);
+
+        if (l.data != null) {
+            for (int i = 0; i < size; i++) {
+                write(n, i, read(l, i));
+            }
+        }
+
+        layout = n;
+    }
+
+    private static int countUsed(Layout<?> l, int size, int[] remap) {
+        int used = 1;
+
+        for (int i = 0; i < size; i++) {
+            int id = read(l, i);
+
+            if (id != 0 && remap[id] == 0) {
+                remap[id] = used++;
+            }
+        }
+
+        return used;
+    }
+
+    private void publish(Layout<T> n) {
+        layout.retired = true;
+        layout = n;
+    }
+
+    private void awaitLayout(Layout<T> retired) {
+        while (layout == retired) {
+            synchronized (this) {
+                // Layouts are retired and replaced under the monitor
+            }
+        }
+    }
+
+    private int index(int x, int y, int z) {
+        return (z * getWidth() * getHeight()) + (y * getWidth()) + x;
+    }
+
+    private static int bitsFor(int entries) {
+        return 32 - Integer.numberOfLeadingZeros(entries - 1);
+    }
+
+    private static int longs(int size, int bits) {
+        int perLong = 64 / bits;
+        return (size + perLong - 1) / perLong;
+    }
+
+    private static int read(Layout<?> l, int i) {
+        int perLong = 64 / l.bits;
+        return (int) ((l.data.get(i / perLong) >>> ((i % perLong) * l.bits)) & ((1L << l.bits) - 1));
+    }
+
+    private static void write(Layout<?> l, int i, int id) {
+        int perLong = 64 / l.bits;
+        int slot = i / perLong;
+        int shift = (i % perLong) * l.bits;
+        long mask = ((1L << l.bits) - 1) << shift;
+        long v = ((long) id << shift) & mask;
+        long o;
+
+        do {
+            o = l.data.get(slot);
+
+            if ((o & mask) == v) {
+                return;
+            }
+        } while (!l.data.compareAndSet(slot, o, (o & ~mask) | v));
+    }
+
+    private static class Layout<T> {
+        private final int bits;
+        private final AtomicLongArray data;
+        private final Object[] palette;
+        private final ConcurrentHashMap<T, Integer> ids;
+        private volatile int count;
+        private volatile boolean retired;
+
+        private Layout(int bits, AtomicLongArray data, Object[] palette, int count, ConcurrentHashMap<T, Integer> ids) {
+            this.bits = bits;
+            this.data = data;
+            this.palette = palette;
+            this.count = count;
+            this.ids = ids;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int id) {
+            return (T) palette[id];
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.volmit.iris.engine.interpolation.InterpolationMethod;
 import com.volmit.iris.engine.object.*;
 import com.volmit.iris.engine.object.common.IObjectPlacer;
 import com.volmit.iris.engine.parallax.ParallaxChunkMeta;
+import com.volmit.iris.engine.parallax.ParallaxObjectInstance;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.collection.KMap;
 import com.volmit.iris.util.math.RNG;
@@ -105,12 +106,13 @@ public class PlannedStructure {
         }
 
         int id = rng.i(0, Integer.MAX_VALUE);
+        ParallaxObjectInstance instance = new ParallaxObjectInstance(v.getLoadKey(), id);
 
         int h = v.place(xx, height, zz, placer, options, rng, (b) -> {
             int xf = b.getX();
             int yf = b.getY();
             int zf = b.getZ();
-            e.getParallaxAccess().setObject(xf, yf, zf, v.getLoadKey() + "@" + id);
+            e.getParallaxAccess().setObject(xf, yf, zf, instance);
             ParallaxChunkMeta meta = e.getParallaxAccess().getMetaRW(xf >> 4, zf >> 4);
             meta.setObjects(true);
             meta.setMinObject(Math.min(Math.max(meta.getMinObject(), 0), yf));
@@ -147,9 +149,7 @@ public class PlannedStructure {
             f.setInterpolationRadius(a / 4);
             f.setInterpolator(InterpolationMethod.BILINEAR_STARCAST_9);
             f.setStrength(1D);
-            e.getParallaxAccess().getMetaRW(xx >> 4, zz >> 4)
-                    .getFeatures()
-                    .add(new IrisFeaturePositional(xx, zz, f));
+            e.addFeature(xx >> 4, zz >> 4, new IrisFeaturePositional(xx, zz, f));
         }
     }
 
@@ -57,7 +57,7 @@ public class IrisCaveModifier extends EngineAssignedModifier<BlockData> {
         for (int i = 0; i < a.getWidth(); i++) {
             for (int j = 0; j < a.getDepth(); j++) {
                 KList<CaveResult> caves = genCaves(x + i, z + j, i, j, a);
-                int he = (int) Math.round(getComplex().getHeightStream().get(x + i, z + j));
+                int he = (int) Math.round(getComplex().getHeightStream().getDouble(x + i, z + j));
                 if (caves != null && caves.isNotEmpty()) {
                     IrisBiome cave = getComplex().getCaveBiomeStream().get(x + i, z + j);
 
@@ -125,7 +125,7 @@ public class IrisCaveModifier extends EngineAssignedModifier<BlockData> {
             return CAVE_AIR;
         };
 
-        int surface = (int) Math.round(getComplex().getHeightStream().get(wxx, wzz));
+        int surface = (int) Math.round(getComplex().getHeightStream().getDouble(wxx, wzz));
         double wx = wxx + layer.getHorizontalSlope().get(rng, wxx, wzz);
         double wz = wzz + layer.getHorizontalSlope().get(rng, -wzz, -wxx);
         double baseWidth = (14 * scale);
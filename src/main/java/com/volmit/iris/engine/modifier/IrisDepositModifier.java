@@ -87,7 +87,7 @@ public class IrisDepositModifier extends EngineAssignedModifier<BlockData> {
             int x = rng.i(af, bf);
             int z = rng.i(af, bf);
             int height = (he != null ? he.getHeight((cx << 4) + x, (cz << 4) + z) : (int) (Math.round(
-                    getComplex().getHeightStream().get((cx << 4) + x, (cz << 4) + z)
+                    getComplex().getHeightStream().getDouble((cx << 4) + x, (cz << 4) + z)
             ))) - 7;
 
             if (height <= 0) {
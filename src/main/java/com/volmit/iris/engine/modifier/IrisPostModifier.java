@@ -19,6 +19,7 @@
 package com.volmit.iris.engine.modifier;
 
 import com.volmit.iris.Iris;
+import com.volmit.iris.engine.cache.SurfaceProfile;
 import com.volmit.iris.engine.data.B;
 import com.volmit.iris.engine.framework.Engine;
 import com.volmit.iris.engine.framework.EngineAssignedModifier;
@@ -47,22 +48,27 @@ public class IrisPostModifier extends EngineAssignedModifier<BlockData> {
     public void onModify(int x, int z, Hunk<BlockData> output) {
         PrecisionStopwatch p = PrecisionStopwatch.start();
         int i, j;
+        SurfaceProfile profile = getFramework().getEngineParallax().getSurfaceProfiles().get(x >> 4, z >> 4);
         for (i = 0; i < output.getWidth(); i++) {
             for (j = 0; j < output.getDepth(); j++) {
-                post(i, j, output, i + x, j + z);
+                post(i, j, output, i + x, j + z, profile);
             }
         }
         getEngine().getMetrics().getPost().put(p.getMilliseconds());
     }
 
+    private int trueHeight(SurfaceProfile profile, int x, int z) {
+        return profile.contains(x, z) ? profile.getTrueHeight(x, z) : getFramework().getEngineParallax().trueHeight(x, z);
+    }
+
     @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
-    private void post(int currentPostX, int currentPostZ, Hunk<BlockData> currentData, int x, int z) {
+    private void post(int currentPostX, int currentPostZ, Hunk<BlockData> currentData, int x, int z, SurfaceProfile profile) {
 
-        int h = getFramework().getEngineParallax().trueHeight(x, z);
-        int ha = getFramework().getEngineParallax().trueHeight(x + 1, z);
-        int hb = getFramework().getEngineParallax().trueHeight(x, z + 1);
-        int hc = getFramework().getEngineParallax().trueHeight(x - 1, z);
-        int hd = getFramework().getEngineParallax().trueHeight(x, z - 1);
+        int h = trueHeight(profile, x, z);
+        int ha = trueHeight(profile, x + 1, z);
+        int hb = trueHeight(profile, x, z + 1);
+        int hc = trueHeight(profile, x - 1, z);
+        int hd = trueHeight(profile, x, z - 1);
 
         // Floating Nibs
         int g = 0;
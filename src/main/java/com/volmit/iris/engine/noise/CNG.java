@@ -21,30 +21,35 @@ package com.volmit.iris.engine.noise;
 import com.volmit.iris.Iris;
 import com.volmit.iris.engine.interpolation.IrisInterpolation;
 import com.volmit.iris.engine.object.common.IRare;
-import com.volmit.iris.engine.stream.ProceduralStream;
-import com.volmit.iris.engine.stream.arithmetic.FittedStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.engine.stream.sources.CNGStream;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.function.NoiseInjector;
 import com.volmit.iris.util.math.RNG;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Data
+@Setter(AccessLevel.NONE)
 public class CNG {
     public static long hits = 0;
     public static long creates = 0;
-    public static final NoiseInjector ADD = (s, v) -> new double[]{s + v, 1};
-    public static final NoiseInjector SRC_SUBTRACT = (s, v) -> new double[]{s - v < 0 ? 0 : s - v, -1};
-    public static final NoiseInjector DST_SUBTRACT = (s, v) -> new double[]{v - s < 0 ? 0 : s - v, -1};
-    public static final NoiseInjector MULTIPLY = (s, v) -> new double[]{s * v, 0};
-    public static final NoiseInjector MAX = (s, v) -> new double[]{Math.max(s, v), 0};
-    public static final NoiseInjector MIN = (s, v) -> new double[]{Math.min(s, v), 0};
-    public static final NoiseInjector SRC_MOD = (s, v) -> new double[]{s % v, 0};
-    public static final NoiseInjector SRC_POW = (s, v) -> new double[]{Math.pow(s, v), 0};
-    public static final NoiseInjector DST_MOD = (s, v) -> new double[]{v % s, 0};
-    public static final NoiseInjector DST_POW = (s, v) -> new double[]{Math.pow(v, s), 0};
+    public static final NoiseInjector ADD = NoiseInjector.of(1, (s, v) -> s + v);
+    public static final NoiseInjector SRC_SUBTRACT = NoiseInjector.of(-1, (s, v) -> s - v < 0 ? 0 : s - v);
+    public static final NoiseInjector DST_SUBTRACT = NoiseInjector.of(-1, (s, v) -> v - s < 0 ? 0 : s - v);
+    public static final NoiseInjector MULTIPLY = NoiseInjector.of(0, (s, v) -> s * v);
+    public static final NoiseInjector MAX = NoiseInjector.of(0, Math::max);
+    public static final NoiseInjector MIN = NoiseInjector.of(0, Math::min);
+    public static final NoiseInjector SRC_MOD = NoiseInjector.of(0, (s, v) -> s % v);
+    public static final NoiseInjector SRC_POW = NoiseInjector.of(0, Math::pow);
+    public static final NoiseInjector DST_MOD = NoiseInjector.of(0, (s, v) -> v % s);
+    public static final NoiseInjector DST_POW = NoiseInjector.of(0, (s, v) -> Math.pow(v, s));
+    private static final AtomicLong edition = new AtomicLong();
     private double scale;
     private double bakedScale;
     private double fscale;
@@ -61,17 +66,57 @@ public class CNG {
     private double up;
     private double down;
     private double power;
+    @Getter(AccessLevel.NONE)
+    private transient volatile CompiledCNG compiled;
+    @Getter(AccessLevel.NONE)
+    private transient volatile boolean sealed;
 
     public NoiseGenerator getGen() {
         return generator;
     }
 
-    public ProceduralStream<Double> stream() {
+    public ProceduralDoubleStream stream() {
         return new CNGStream(this);
     }
 
-    public ProceduralStream<Double> stream(double min, double max) {
-        return new FittedStream<>(stream(), min, max);
+    /**
+     * Returns this tree compiled into a {@link CompiledCNG}, compiling it on first use. Changing a node that is part
+     * of a compiled tree (including a child or fracture node shared by several trees) bumps a shared edition, so
+     * every compiled tree recompiles on its next sample. Nodes still being set up never bump it, and the check is a
+     * single volatile read per sample.
+     */
+    public CompiledCNG compile() {
+        long e = edition.get();
+        CompiledCNG c = compiled;
+
+        if (c == null || c.getEdition() != e) {
+            c = CompiledCNG.compile(this, e);
+            compiled = c;
+        }
+
+        return c;
+    }
+
+    private void edited() {
+        if (sealed) {
+            edition.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called by {@link CompiledCNG} for every node it compiles, so later changes to the node are noticed
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    public void setTrueFracturing(boolean trueFracturing) {
+        this.trueFracturing = trueFracturing;
+        edited();
+    }
+
+    public ProceduralDoubleStream stream(double min, double max) {
+        return stream().fit(min, max);
     }
 
     public static CNG signature(RNG rng) {
@@ -198,6 +243,7 @@ public class CNG {
     public CNG bake() {
         bakedScale *= scale;
         scale = 1;
+        edited();
         return this;
     }
 
@@ -207,6 +253,7 @@ public class CNG {
         }
 
         children.add(c);
+        edited();
         return this;
     }
 
@@ -217,31 +264,37 @@ public class CNG {
     public CNG fractureWith(CNG c, double scale) {
         fracture = c;
         fscale = scale;
+        edited();
         return this;
     }
 
     public CNG scale(double c) {
         scale = c;
+        edited();
         return this;
     }
 
     public CNG patch(double c) {
         patch = c;
+        edited();
         return this;
     }
 
     public CNG up(double c) {
         up = c;
+        edited();
         return this;
     }
 
     public CNG down(double c) {
         down = c;
+        edited();
         return this;
     }
 
     public CNG injectWith(NoiseInjector i) {
         injector = i;
+        edited();
         return this;
     }
 
@@ -316,6 +369,42 @@ public class CNG {
         return v.get(0);
     }
 
+    public <T> T fit(List<T> v, double x, double z) {
+        if (v.size() == 0) {
+            return null;
+        }
+
+        if (v.size() == 1) {
+            return v.get(0);
+        }
+
+        try {
+            return v.get(fit(0, v.size() - 1, x, z));
+        } catch (Throwable e) {
+            Iris.reportError(e);
+        }
+
+        return v.get(0);
+    }
+
+    public <T> T fit(List<T> v, double x, double y, double z) {
+        if (v.size() == 0) {
+            return null;
+        }
+
+        if (v.size() == 1) {
+            return v.get(0);
+        }
+
+        try {
+            return v.get(fit(0, v.size() - 1, x, y, z));
+        } catch (Throwable e) {
+            Iris.reportError(e);
+        }
+
+        return v.get(0);
+    }
+
     public int fit(int min, int max, double... dim) {
         if (min == max) {
             return min;
@@ -326,6 +415,22 @@ public class CNG {
         return (int) Math.round(IrisInterpolation.lerp(min, max, noise));
     }
 
+    public int fit(int min, int max, double x, double z) {
+        if (min == max) {
+            return min;
+        }
+
+        return (int) Math.round(IrisInterpolation.lerp(min, max, noise(x, z)));
+    }
+
+    public int fit(int min, int max, double x, double y, double z) {
+        if (min == max) {
+            return min;
+        }
+
+        return (int) Math.round(IrisInterpolation.lerp(min, max, noise(x, y, z)));
+    }
+
     public int fit(double min, double max, double... dim) {
         if (min == max) {
             return (int) Math.round(min);
@@ -336,6 +441,22 @@ public class CNG {
         return (int) Math.round(IrisInterpolation.lerp(min, max, noise));
     }
 
+    public int fit(double min, double max, double x, double z) {
+        if (min == max) {
+            return (int) Math.round(min);
+        }
+
+        return (int) Math.round(IrisInterpolation.lerp(min, max, noise(x, z)));
+    }
+
+    public int fit(double min, double max, double x, double y, double z) {
+        if (min == max) {
+            return (int) Math.round(min);
+        }
+
+        return (int) Math.round(IrisInterpolation.lerp(min, max, noise(x, y, z)));
+    }
+
     public double fitDouble(double min, double max, double... dim) {
         if (min == max) {
             return min;
@@ -346,28 +467,43 @@ public class CNG {
         return IrisInterpolation.lerp(min, max, noise);
     }
 
-    private double getNoise(double... dim) {
+    public double fitDouble(double min, double max, double x, double z) {
+        if (min == max) {
+            return min;
+        }
+
+        return IrisInterpolation.lerp(min, max, noise(x, z));
+    }
+
+    public double fitDouble(double min, double max, double x, double y, double z) {
+        if (min == max) {
+            return min;
+        }
+
+        return IrisInterpolation.lerp(min, max, noise(x, y, z));
+    }
+
+    private double getNoise(double x, double z) {
+        double scale = noscale ? 1 : this.bakedScale * this.scale;
+        double f = noscale ? 0 : (fracture != null ? (fracture.noise(x, z) - 0.5) * fscale : 0D);
+        return generator.noise((x + f) * scale, (z - f) * scale, 0D * scale) * opacity;
+    }
+
+    private double getNoise(double x, double y, double z) {
+        double scale = noscale ? 1 : this.bakedScale * this.scale;
+
         if (isTrueFracturing()) {
-            if (dim.length == 2) {
-                double scale = noscale ? 1 : this.bakedScale * this.scale;
-                double f1 = noscale ? 0 : (fracture != null ? (fracture.noise(dim[0], dim[1]) - 0.5) * fscale : 0D);
-                double f2 = noscale ? 0 : (fracture != null ? (fracture.noise(dim[1], dim[0]) - 0.5) * fscale : 0D);
-                double x = dim[0] + f1;
-                double y = dim[1] + -f1;
-                double z = 0D;
-                return generator.noise(x * scale, y * scale, z * scale) * opacity;
-            } else if (dim.length == 3) {
-                double scale = noscale ? 1 : this.bakedScale * this.scale;
-                double f1 = noscale ? 0 : (fracture != null ? (fracture.noise(dim[0], dim[2], dim[1]) - 0.5) * fscale : 0D);
-                double f2 = noscale ? 0 : (fracture != null ? (fracture.noise(dim[1], dim[0], dim[2]) - 0.5) * fscale : 0D);
-                double f3 = noscale ? 0 : (fracture != null ? (fracture.noise(dim[2], dim[1], dim[0]) - 0.5) * fscale : 0D);
-                double x = dim[0] + f1;
-                double y = dim[1] + f3;
-                double z = dim[2] + f2;
-                return generator.noise(x * scale, y * scale, z * scale) * opacity;
-            }
+            double f1 = noscale ? 0 : (fracture != null ? (fracture.noise(x, z, y) - 0.5) * fscale : 0D);
+            double f2 = noscale ? 0 : (fracture != null ? (fracture.noise(y, x, z) - 0.5) * fscale : 0D);
+            double f3 = noscale ? 0 : (fracture != null ? (fracture.noise(z, y, x) - 0.5) * fscale : 0D);
+            return generator.noise((x + f1) * scale, (y + f3) * scale, (z + f2) * scale) * opacity;
         }
 
+        double f = noscale ? 0 : (fracture != null ? (fracture.noise(x, y, z) - 0.5) * fscale : 0D);
+        return generator.noise((x + f) * scale, (y - f) * scale, (z - f) * scale) * opacity;
+    }
+
+    private double getNoise(double... dim) {
         double scale = noscale ? 1 : this.bakedScale * this.scale;
         double f = noscale ? 0 : (fracture != null ? (fracture.noise(dim) - 0.5) * fscale : 0D);
         double x = dim.length > 0 ? dim[0] + f : 0D;
@@ -376,19 +512,116 @@ public class CNG {
         return generator.noise(x * scale, y * scale, z * scale) * opacity;
     }
 
-    public double noise(double... dim) {
-        double n = getNoise(dim);
-        n = power != 1D ? (n < 0 ? -Math.pow(Math.abs(n), power) : Math.pow(n, power)) : n;
+    private double shape(double n) {
+        return power != 1D ? (n < 0 ? -Math.pow(Math.abs(n), power) : Math.pow(n, power)) : n;
+    }
+
+    public double noise(double x, double z) {
+        double n = shape(getNoise(x, z));
+        hits += oct;
+        if (children == null) {
+            return (n - down + up) * patch;
+        }
+
+        double m = 1;
+        for (int i = 0; i < children.size(); i++) {
+            n = injector.combine(n, children.get(i).noise(x, z));
+            m += injector.weight();
+        }
+
+        return ((n / m) - down + up) * patch;
+    }
+
+    public double noise(double x, double y, double z) {
+        double n = shape(getNoise(x, y, z));
+        hits += oct;
+        if (children == null) {
+            return (n - down + up) * patch;
+        }
+
         double m = 1;
+        for (int i = 0; i < children.size(); i++) {
+            n = injector.combine(n, children.get(i).noise(x, y, z));
+            m += injector.weight();
+        }
+
+        return ((n / m) - down + up) * patch;
+    }
+
+    /**
+     * Batch form of {@link #noise(double, double)} over the first n points, matching it sample for sample.
+     * Scratch arrays are allocated once per batch rather than per sample.
+     */
+    public void noise(double[] xs, double[] zs, double[] out, int n) {
+        double[] bx = new double[n];
+        double[] bz = new double[n];
+        double[] plane = new double[n];
+        double scale = noscale ? 1 : this.bakedScale * this.scale;
+
+        if (!noscale && fracture != null) {
+            fracture.noise(xs, zs, out, n);
+        }
+
+        for (int i = 0; i < n; i++) {
+            double f = noscale ? 0 : (fracture != null ? (out[i] - 0.5) * fscale : 0D);
+            bx[i] = (xs[i] + f) * scale;
+            bz[i] = (zs[i] - f) * scale;
+            plane[i] = 0D * scale;
+        }
+
+        generator.noise(bx, bz, plane, out, n);
+
+        for (int i = 0; i < n; i++) {
+            out[i] = shape(out[i] * opacity);
+        }
+
+        hits += (long) oct * n;
+        if (children == null) {
+            for (int i = 0; i < n; i++) {
+                out[i] = (out[i] - down + up) * patch;
+            }
+
+            return;
+        }
+
+        double m = 1;
+        double[] c = bx;
+        for (int j = 0; j < children.size(); j++) {
+            children.get(j).noise(xs, zs, c, n);
+
+            for (int i = 0; i < n; i++) {
+                out[i] = injector.combine(out[i], c[i]);
+            }
+
+            m += injector.weight();
+        }
+
+        for (int i = 0; i < n; i++) {
+            out[i] = ((out[i] / m) - down + up) * patch;
+        }
+    }
+
+    /**
+     * Varargs adapter over {@link #noise(double, double)} and {@link #noise(double, double, double)}.
+     * Only other arities take the generic path.
+     */
+    public double noise(double... dim) {
+        if (dim.length == 2) {
+            return noise(dim[0], dim[1]);
+        } else if (dim.length == 3) {
+            return noise(dim[0], dim[1], dim[2]);
+        }
+
+        double n = shape(getNoise(dim));
         hits += oct;
         if (children == null) {
             return (n - down + up) * patch;
         }
 
-        for (CNG i : children) {
-            double[] r = injector.combine(n, i.noise(dim));
-            n = r[0];
-            m += r[1];
+        double m = 1;
+        for (int i = 0; i < children.size(); i++) {
+            n = injector.combine(n, children.get(i).noise(dim));
+            m += injector.weight();
         }
 
         return ((n / m) - down + up) * patch;
@@ -396,11 +629,13 @@ public class CNG {
 
     public CNG pow(double power) {
         this.power = power;
+        edited();
         return this;
     }
 
     public CNG oct(int octaves) {
         oct = octaves;
+        edited();
         return this;
     }
 
@@ -52,7 +52,7 @@ public class CellGenerator {
     }
 
     public double getDistance(double x, double z) {
-        return ((fd.GetCellular(((x * cellScale) + (cng.noise(x, z) * shuffle)), ((z * cellScale) + (cng.noise(z, x) * shuffle)))) + 1f) / 2f;
+        return ((fd.GetCellularCached(((x * cellScale) + (cng.noise(x, z) * shuffle)), ((z * cellScale) + (cng.noise(z, x) * shuffle)))) + 1f) / 2f;
     }
 
     public double getDistance(double x, double y, double z) {
@@ -64,7 +64,7 @@ public class CellGenerator {
             return 0;
         }
 
-        return ((fn.GetCellular(((x * cellScale) + (cng.noise(x, z) * shuffle)), ((z * cellScale) + (cng.noise(z, x) * shuffle))) + 1f) / 2f) * (possibilities - 1);
+        return ((fn.GetCellularCached(((x * cellScale) + (cng.noise(x, z) * shuffle)), ((z * cellScale) + (cng.noise(z, x) * shuffle))) + 1f) / 2f) * (possibilities - 1);
     }
 
     public double getValue(double x, double y, double z, int possibilities) {
@@ -42,6 +42,15 @@ public class CellularNoise implements NoiseGenerator {
 
     @Override
     public double noise(double x, double y, double z) {
-        return (n.GetCellular((float) x, (float) y, (float) z) / 2D) + 0.5D;
+        return (n.GetCellularCached((float) x, (float) y, (float) z) / 2D) + 0.5D;
+    }
+
+    @Override
+    public void noise(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        this.n.fillCellular(xs, ys, zs, out, n);
+
+        for (int i = 0; i < n; i++) {
+            out[i] = (out[i] / 2D) + 0.5D;
+        }
     }
 }
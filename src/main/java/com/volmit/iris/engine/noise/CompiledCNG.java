@@ -0,0 +1,233 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.noise;
+
+import com.volmit.iris.util.function.NoiseInjector;
+import com.volmit.iris.util.function.NoiseProvider;
+import com.volmit.iris.util.function.NoiseProvider3;
+
+/**
+ * A CNG tree compiled into a chain of specialized closures. Everything that cannot change between samples
+ * (baked scale, noscale, opacity, power, child weights, the post transform) is resolved once here, so a sample
+ * only runs the arithmetic its configuration actually needs.
+ * <p>
+ * Results are bit-identical to {@link CNG#noise(double, double)} and {@link CNG#noise(double, double, double)}.
+ * Folds are only applied where IEEE arithmetic makes them exact; notably x + 0D is kept because it maps -0.0 to
+ * 0.0, which hashed generators can see. The tree is snapshotted on compile; {@link CNG#compile()} recompiles it
+ * once any node has been changed since.
+ */
+public class CompiledCNG implements NoiseProvider, NoiseProvider3 {
+    private final NoiseProvider n2;
+    private final NoiseProvider3 n3;
+    private final long edition;
+
+    private CompiledCNG(CNG cng, long edition) {
+        this.n2 = compile2(cng);
+        this.n3 = compile3(cng);
+        this.edition = edition;
+    }
+
+    /**
+     * @param edition the CNG edition read before compiling, so a change made during the compile is not missed
+     */
+    static CompiledCNG compile(CNG cng, long edition) {
+        return new CompiledCNG(cng, edition);
+    }
+
+    long getEdition() {
+        return edition;
+    }
+
+    @Override
+    public double noise(double x, double z) {
+        return n2.noise(x, z);
+    }
+
+    @Override
+    public double noise(double x, double y, double z) {
+        return n3.noise(x, y, z);
+    }
+
+    private static NoiseProvider compile2(CNG cng) {
+        cng.seal();
+        NoiseProvider base = opacity2(source2(cng), cng.getOpacity());
+        double power = cng.getPower();
+
+        if (power != 1D) {
+            NoiseProvider src = base;
+            base = (x, z) -> {
+                double n = src.noise(x, z);
+                return n < 0 ? -Math.pow(Math.abs(n), power) : Math.pow(n, power);
+            };
+        }
+
+        if (cng.getChildren() != null) {
+            NoiseProvider src = base;
+            NoiseInjector injector = cng.getInjector();
+            NoiseProvider[] children = new NoiseProvider[cng.getChildren().size()];
+            double m = 1;
+
+            for (int i = 0; i < children.length; i++) {
+                children[i] = compile2(cng.getChildren().get(i));
+                m += injector.weight();
+            }
+
+            double weight = m;
+            base = (x, z) -> {
+                double n = src.noise(x, z);
+
+                for (NoiseProvider i : children) {
+                    n = injector.combine(n, i.noise(x, z));
+                }
+
+                return n / weight;
+            };
+        }
+
+        return post2(base, cng.getDown(), cng.getUp(), cng.getPatch());
+    }
+
+    private static NoiseProvider source2(CNG cng) {
+        NoiseGenerator g = cng.getGenerator();
+
+        if (g instanceof FlatNoise) {
+            return (x, z) -> 1D;
+        }
+
+        if (cng.isNoscale()) {
+            return (x, z) -> g.noise(x + 0D, z, 0D);
+        }
+
+        double scale = cng.getBakedScale() * cng.getScale();
+        double plane = 0D * scale;
+
+        if (cng.getFracture() == null) {
+            return (x, z) -> g.noise((x + 0D) * scale, z * scale, plane);
+        }
+
+        NoiseProvider fracture = compile2(cng.getFracture());
+        double fscale = cng.getFscale();
+        return (x, z) -> {
+            double f = (fracture.noise(x, z) - 0.5) * fscale;
+            return g.noise((x + f) * scale, (z - f) * scale, plane);
+        };
+    }
+
+    private static NoiseProvider opacity2(NoiseProvider src, double opacity) {
+        return opacity == 1D ? src : (x, z) -> src.noise(x, z) * opacity;
+    }
+
+    private static NoiseProvider post2(NoiseProvider src, double down, double up, double patch) {
+        if (down == 0D && up == 0D) {
+            return patch == 1D ? (x, z) -> src.noise(x, z) + 0D : (x, z) -> (src.noise(x, z) + 0D) * patch;
+        }
+
+        return patch == 1D ? (x, z) -> src.noise(x, z) - down + up : (x, z) -> (src.noise(x, z) - down + up) * patch;
+    }
+
+    private static NoiseProvider3 compile3(CNG cng) {
+        cng.seal();
+        NoiseProvider3 base = opacity3(source3(cng), cng.getOpacity());
+        double power = cng.getPower();
+
+        if (power != 1D) {
+            NoiseProvider3 src = base;
+            base = (x, y, z) -> {
+                double n = src.noise(x, y, z);
+                return n < 0 ? -Math.pow(Math.abs(n), power) : Math.pow(n, power);
+            };
+        }
+
+        if (cng.getChildren() != null) {
+            NoiseProvider3 src = base;
+            NoiseInjector injector = cng.getInjector();
+            NoiseProvider3[] children = new NoiseProvider3[cng.getChildren().size()];
+            double m = 1;
+
+            for (int i = 0; i < children.length; i++) {
+                children[i] = compile3(cng.getChildren().get(i));
+                m += injector.weight();
+            }
+
+            double weight = m;
+            base = (x, y, z) -> {
+                double n = src.noise(x, y, z);
+
+                for (NoiseProvider3 i : children) {
+                    n = injector.combine(n, i.noise(x, y, z));
+                }
+
+                return n / weight;
+            };
+        }
+
+        return post3(base, cng.getDown(), cng.getUp(), cng.getPatch());
+    }
+
+    private static NoiseProvider3 source3(CNG cng) {
+        NoiseGenerator g = cng.getGenerator();
+
+        if (g instanceof FlatNoise) {
+            return (x, y, z) -> 1D;
+        }
+
+        boolean trueFracturing = cng.isTrueFracturing();
+
+        if (cng.isNoscale()) {
+            return trueFracturing ? (x, y, z) -> g.noise(x + 0D, y + 0D, z + 0D) : (x, y, z) -> g.noise(x + 0D, y, z);
+        }
+
+        double scale = cng.getBakedScale() * cng.getScale();
+
+        if (cng.getFracture() == null) {
+            return trueFracturing
+                    ? (x, y, z) -> g.noise((x + 0D) * scale, (y + 0D) * scale, (z + 0D) * scale)
+                    : (x, y, z) -> g.noise((x + 0D) * scale, y * scale, z * scale);
+        }
+
+        NoiseProvider3 fracture = compile3(cng.getFracture());
+        double fscale = cng.getFscale();
+
+        if (trueFracturing) {
+            return (x, y, z) -> {
+                double f1 = (fracture.noise(x, z, y) - 0.5) * fscale;
+                double f2 = (fracture.noise(y, x, z) - 0.5) * fscale;
+                double f3 = (fracture.noise(z, y, x) - 0.5) * fscale;
+                return g.noise((x + f1) * scale, (y + f3) * scale, (z + f2) * scale);
+            };
+        }
+
+        return (x, y, z) -> {
+            double f = (fracture.noise(x, y, z) - 0.5) * fscale;
+            return g.noise((x + f) * scale, (y - f) * scale, (z - f) * scale);
+        };
+    }
+
+    private static NoiseProvider3 opacity3(NoiseProvider3 src, double opacity) {
+        return opacity == 1D ? src : (x, y, z) -> src.noise(x, y, z) * opacity;
+    }
+
+    private static NoiseProvider3 post3(NoiseProvider3 src, double down, double up, double patch) {
+        if (down == 0D && up == 0D) {
+            return patch == 1D ? (x, y, z) -> src.noise(x, y, z) + 0D : (x, y, z) -> (src.noise(x, y, z) + 0D) * patch;
+        }
+
+        return patch == 1D ? (x, y, z) -> src.noise(x, y, z) - down + up : (x, y, z) -> (src.noise(x, y, z) - down + up) * patch;
+    }
+}
@@ -49,6 +49,15 @@ public class FractalFBMSimplexNoise implements NoiseGenerator, OctaveNoise {
         return f(n.GetSimplexFractal(x, y, z));
     }
 
+    @Override
+    public void noise(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        this.n.fillSimplexFractal(xs, ys, zs, out, n);
+
+        for (int i = 0; i < n; i++) {
+            out[i] = f(out[i]);
+        }
+    }
+
     @Override
     public void setOctaves(int o) {
         n.setFractalOctaves(o);
@@ -25,6 +25,16 @@ public interface NoiseGenerator {
 
     double noise(double x, double y, double z);
 
+    /**
+     * Samples the first n points (xs[i], ys[i], zs[i]) into out. Must match {@link #noise(double, double, double)}
+     * exactly; generators with a batch kernel override this.
+     */
+    default void noise(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = noise(xs[i], ys[i], zs[i]);
+        }
+    }
+
     default boolean isStatic() {
         return false;
     }
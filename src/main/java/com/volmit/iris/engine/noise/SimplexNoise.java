@@ -87,6 +87,20 @@ public class SimplexNoise implements NoiseGenerator, OctaveNoise {
         return f(v / m);
     }
 
+    @Override
+    public void noise(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        if (octaves > 1) {
+            NoiseGenerator.super.noise(xs, ys, zs, out, n);
+            return;
+        }
+
+        this.n.fillSimplex(xs, ys, zs, out, n);
+
+        for (int i = 0; i < n; i++) {
+            out[i] = f(out[i]);
+        }
+    }
+
     @Override
     public void setOctaves(int o) {
         octaves = o;
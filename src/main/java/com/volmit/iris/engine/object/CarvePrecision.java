@@ -0,0 +1,32 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.object;
+
+import com.volmit.iris.engine.object.annotations.Desc;
+
+@Desc("How carve layers are sampled while generating terrain.")
+public enum CarvePrecision {
+    @Desc("Samples the carve noise of every layer for every block. This is the original behavior.")
+
+    EXACT,
+
+    @Desc("Samples the carve noise on a coarse 4 block lattice and interpolates between the lattice points. Whole 4x4x4 cells that cannot cross the threshold are skipped. Much faster, but carvings differ slightly from EXACT.")
+
+    LATTICE
+}
@@ -349,7 +349,7 @@ public class IrisBiome extends IrisRegistrant implements IRare {
             IrisSlopeClip sc = getLayers().get(i).getSlopeCondition();
 
             if (!sc.isDefault()) {
-                if (!sc.isValid(complex.getSlopeStream().get(wx, wz))) {
+                if (!sc.isValid(complex.getSlopeStream().getDouble(wx, wz))) {
                     d = 0;
                 }
             }
@@ -394,7 +394,7 @@ public class IrisBiome extends IrisRegistrant implements IRare {
             IrisSlopeClip sc = getLayers().get(i).getSlopeCondition();
 
             if (!sc.isDefault()) {
-                if (!sc.isValid(complex.getSlopeStream().get(wx, wz))) {
+                if (!sc.isValid(complex.getSlopeStream().getDouble(wx, wz))) {
                     d = 0;
                 }
             }
@@ -64,14 +64,40 @@ public class IrisCarveLayer {
     private double threshold = 0.5;
 
     private final transient AtomicCache<CNG> cng = new AtomicCache<>();
+    private final transient AtomicCache<double[]> opacityCurve = new AtomicCache<>();
 
     public boolean isCarved(RNG rng, double x, double y, double z) {
         if (y > getMaxHeight() || y < getMinHeight()) {
             return false;
         }
 
-        double opacity = Math.pow(IrisInterpolation.sinCenter(M.lerpInverse(getMinHeight(), getMaxHeight(), y)), 4);
-        return cng.aquire(() -> getStyle().create(rng.nextParallelRNG(-2340 * getMaxHeight() * getMinHeight()))).fitDouble(0D, 1D, x, y, z) * opacity > getThreshold();
+        return getGenerator(rng).fitDouble(0D, 1D, x, y, z) * getOpacity(y) > getThreshold();
+    }
+
+    public CNG getGenerator(RNG rng) {
+        return cng.aquire(() -> getStyle().create(rng.nextParallelRNG(-2340 * getMaxHeight() * getMinHeight())));
+    }
+
+    public double getOpacity(double y) {
+        int i = (int) y;
+
+        if (i == y && i >= getMinHeight() && i <= getMaxHeight()) {
+            return opacityCurve.aquire(() -> {
+                double[] curve = new double[Math.max(0, getMaxHeight() - getMinHeight() + 1)];
+
+                for (int j = 0; j < curve.length; j++) {
+                    curve[j] = computeOpacity(getMinHeight() + j);
+                }
+
+                return curve;
+            })[i - getMinHeight()];
+        }
+
+        return computeOpacity(y);
+    }
+
+    private double computeOpacity(double y) {
+        return Math.pow(IrisInterpolation.sinCenter(M.lerpInverse(getMinHeight(), getMaxHeight(), y)), 4);
     }
 
     public boolean isCarved2(RNG rng, double x, double y, double z) {
@@ -179,6 +179,9 @@ public class IrisDimension extends IrisRegistrant {
     @Desc("Carve terrain or not")
     private boolean carving = true;
 
+    @Desc("How carve layers are sampled. EXACT samples every block, LATTICE interpolates a coarse lattice and is much faster.")
+    private CarvePrecision carvePrecision = CarvePrecision.EXACT;
+
 
     @Desc("If defined, If air is defined below the area, this fluid will always place")
     private IrisCaveFluid forceFluid = new IrisCaveFluid();
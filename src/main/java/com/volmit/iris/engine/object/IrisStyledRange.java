@@ -19,8 +19,7 @@
 package com.volmit.iris.engine.object;
 
 import com.volmit.iris.engine.object.annotations.Desc;
-import com.volmit.iris.engine.stream.ProceduralStream;
-import com.volmit.iris.engine.stream.interpolation.Interpolated;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.util.math.M;
 import com.volmit.iris.util.math.RNG;
 import lombok.AllArgsConstructor;
@@ -56,7 +55,7 @@ public class IrisStyledRange {
         return style.create(rng).fitDouble(min, max, x, z);
     }
 
-    public ProceduralStream<Double> stream(RNG rng) {
-        return ProceduralStream.of((x, z) -> get(rng, x, z), Interpolated.DOUBLE);
+    public ProceduralDoubleStream stream(RNG rng) {
+        return ProceduralDoubleStream.of((x, z) -> get(rng, x, z));
     }
 }
@@ -22,7 +22,7 @@ import com.volmit.iris.engine.noise.CNG;
 import com.volmit.iris.engine.noise.CNGFactory;
 import com.volmit.iris.engine.noise.NoiseType;
 import com.volmit.iris.engine.object.annotations.Desc;
-import com.volmit.iris.engine.stream.ProceduralStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.util.math.RNG;
 
 @Desc("Styles of noise")
@@ -456,11 +456,11 @@ public enum NoiseStyle {
         this.f = f;
     }
 
-    public ProceduralStream<Double> stream(RNG seed) {
+    public ProceduralDoubleStream stream(RNG seed) {
         return create(seed).stream();
     }
 
-    public ProceduralStream<Double> stream(long seed) {
+    public ProceduralDoubleStream stream(long seed) {
         return create(new RNG(seed)).stream();
     }
 
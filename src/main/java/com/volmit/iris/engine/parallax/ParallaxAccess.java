@@ -20,6 +20,8 @@ package com.volmit.iris.engine.parallax;
 
 import com.volmit.iris.engine.hunk.Hunk;
 import com.volmit.iris.engine.object.tile.TileData;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.BlockPosition;
 import org.bukkit.block.TileState;
 import org.bukkit.block.data.BlockData;
 
@@ -41,12 +43,21 @@ public interface ParallaxAccess {
     }
 
     default String getObject(int x, int y, int z) {
-        return getObjectsR(x >> 4, z >> 4).get(x & 15, y, z & 15);
+        ParallaxObjectInstance i = getObjectInstance(x, y, z);
+        return i == null ? null : i.getKey();
     }
 
-    default void setObject(int x, int y, int z, String d) {
-        getObjectsRW(x >> 4, z >> 4).set(x & 15, y, z & 15, d);
-    }
+    ParallaxObjectInstance getObjectInstance(int x, int y, int z);
+
+    void setObject(int x, int y, int z, ParallaxObjectInstance instance);
+
+    /**
+     * Collects every block position still owned by the given object instance
+     *
+     * @param instance the placed object
+     * @return the owned block positions
+     */
+    KList<BlockPosition> getObjectBlocks(ParallaxObjectInstance instance);
 
     default String getEntity(int x, int y, int z) {
         return getEntitiesR(x >> 4, z >> 4).get(x & 15, y, z & 15);
@@ -128,9 +139,9 @@ public interface ParallaxAccess {
 
     Hunk<BlockData> getBlocksRW(int x, int z);
 
-    Hunk<String> getObjectsR(int x, int z);
+    Hunk<Integer> getObjectsR(int x, int z);
 
-    Hunk<String> getObjectsRW(int x, int z);
+    Hunk<Integer> getObjectsRW(int x, int z);
 
     Hunk<String> getEntitiesRW(int x, int z);
 
@@ -146,6 +157,13 @@ public interface ParallaxAccess {
 
     void cleanup(long regionIdle, long chunkIdle);
 
+    /**
+     * Replaces idle time eviction with the given retention until it is set back to null
+     *
+     * @param retention the retention or null
+     */
+    void setRetention(ParallaxRetention retention);
+
     void cleanup();
 
     void saveAll();
@@ -20,10 +20,10 @@ package com.volmit.iris.engine.parallax;
 
 import com.google.gson.Gson;
 import com.volmit.iris.engine.hunk.io.HunkIOAdapter;
+import com.volmit.iris.engine.hunk.io.HunkRegionFile;
 import com.volmit.iris.engine.hunk.io.PaletteHunkIOAdapter;
 import com.volmit.iris.engine.object.IrisFeaturePositional;
 import com.volmit.iris.util.io.IO;
-import com.volmit.iris.util.oldnbt.CompoundTag;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import java.io.DataInputStream;
@@ -37,7 +37,7 @@ import java.util.function.Function;
 @AllArgsConstructor
 @Data
 public class ParallaxChunkMeta {
-    public static final Function<CompoundTag, HunkIOAdapter<ParallaxChunkMeta>> adapter = (c) -> new PaletteHunkIOAdapter<>() {
+    public static final Function<HunkRegionFile, HunkIOAdapter<ParallaxChunkMeta>> adapter = (c) -> new PaletteHunkIOAdapter<>() {
         @Override
         public void write(ParallaxChunkMeta parallaxChunkMeta, DataOutputStream dos) throws IOException {
             try
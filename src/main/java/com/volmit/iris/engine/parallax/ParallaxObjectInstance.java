@@ -0,0 +1,78 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.engine.parallax;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One placed object (object key + placement id) and the block bounds it covers. Blocks in the parallax
+ * only store an int handle into the owning region's {@link ParallaxObjectTable}.
+ */
+@Data
+@EqualsAndHashCode(of = {"object", "id"})
+public class ParallaxObjectInstance {
+    private final String object;
+    private final int id;
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    private int maxZ = Integer.MIN_VALUE;
+
+    public synchronized void include(int x, int y, int z) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    public synchronized void writeBounds(DataOutputStream dos) throws IOException {
+        dos.writeInt(minX);
+        dos.writeInt(minY);
+        dos.writeInt(minZ);
+        dos.writeInt(maxX);
+        dos.writeInt(maxY);
+        dos.writeInt(maxZ);
+    }
+
+    public synchronized boolean isEmpty() {
+        return minX > maxX;
+    }
+
+    public synchronized boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    public String getKey() {
+        return object + "@" + id;
+    }
+
+    public static ParallaxObjectInstance fromKey(String key) {
+        int at = key.lastIndexOf('@');
+        return new ParallaxObjectInstance(key.substring(0, at), Integer.parseInt(key.substring(at + 1)));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.volmit.iris.engine.parallax;
+
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Per region table of placed object instances. The handle of an instance is its index in this table.
+ */
+public class ParallaxObjectTable {
+    private final KList<ParallaxObjectInstance> instances;
+    private final KMap<ParallaxObjectInstance, Integer> handles;
+    private volatile boolean dirty;
+
+    public ParallaxObjectTable() {
+        instances = new KList<>();
+        handles = new KMap<>();
+        dirty = false;
+    }
+
+    public int handle(ParallaxObjectInstance instance) {
+        Integer h = handles.get(instance);
+
+        if (h != null) {
+            return h;
+        }
+
+        synchronized (this) {
+            h = handles.get(instance);
+
+            if (h == null) {
+                h = instances.size();
+                instances.add(instance);
+                handles.put(instance, h);
+                dirty = true;
+            }
+
+            return h;
+        }
+    }
+
+    public Integer find(ParallaxObjectInstance instance) {
+        return handles.get(instance);
+    }
+
+    public synchronized ParallaxObjectInstance get(int handle) {
+        return handle >= 0 && handle < instances.size() ? instances.get(handle) : null;
+    }
+
+    public synchronized int size() {
+        return instances.size();
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    public synchronized void write(DataOutputStream dos) throws IOException {
+        dos.writeInt(instances.size());
+
+        for (ParallaxObjectInstance i : instances) {
+            dos.writeUTF(i.getObject());
+            dos.writeInt(i.getId());
+            i.writeBounds(dos);
+        }
+
+        dos.close();
+        dirty = false;
+    }
+
+    public static ParallaxObjectTable read(DataInputStream din) throws IOException {
+        ParallaxObjectTable t = new ParallaxObjectTable();
+        int size = din.readInt();
+
+        for (int i = 0; i < size; i++) {
+            ParallaxObjectInstance o = new ParallaxObjectInstance(din.readUTF(), din.readInt());
+            o.setMinX(din.readInt());
+            o.setMinY(din.readInt());
+            o.setMinZ(din.readInt());
+            o.setMaxX(din.readInt());
+            o.setMaxY(din.readInt());
+            o.setMaxZ(din.readInt());
+            t.instances.add(o);
+            t.handles.put(o, i);
+        }
+
+        return t;
+    }
+}
@@ -23,19 +23,25 @@ import com.volmit.iris.engine.hunk.Hunk;
 import com.volmit.iris.engine.hunk.io.HunkIOAdapter;
 import com.volmit.iris.engine.hunk.io.HunkRegion;
 import com.volmit.iris.engine.hunk.io.HunkRegionSlice;
+import com.volmit.iris.engine.hunk.io.StringHunkIOAdapter;
 import com.volmit.iris.engine.object.tile.TileData;
 import com.volmit.iris.engine.parallel.GridLock;
 import com.volmit.iris.engine.parallel.MultiBurst;
 import com.volmit.iris.util.format.C;
 import com.volmit.iris.util.math.M;
-import com.volmit.iris.util.oldnbt.ByteArrayTag;
-import com.volmit.iris.util.oldnbt.CompoundTag;
-import com.volmit.iris.util.oldnbt.Tag;
 import org.bukkit.block.TileState;
 import org.bukkit.block.data.BlockData;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 
 public class ParallaxRegion extends HunkRegion {
     private boolean dirtyMeta;
@@ -43,21 +49,17 @@ public class ParallaxRegion extends HunkRegion {
     private HunkIOAdapter<ParallaxChunkMeta> metaAdapter;
     private HunkRegionSlice<BlockData> blockSlice;
     private HunkRegionSlice<TileData<? extends TileState>> tileSlice;
-    private HunkRegionSlice<String> objectSlice;
+    private HunkRegionSlice<Integer> objectSlice;
+    private ParallaxObjectTable objectTable;
     private HunkRegionSlice<String> entitySlice;
     private HunkRegionSlice<Boolean> updateSlice;
     private final GridLock lock;
     private long lastUse;
     private final int height;
     private final MultiBurst burst;
-
-    public ParallaxRegion(MultiBurst burst, int height, File folder, int x, int z, CompoundTag compound) {
-        super(folder, x, z, compound);
-        this.burst = burst;
-        this.height = height;
-        setupSlices();
-        lock = new GridLock(32, 32);
-    }
+    private final AtomicInteger holders = new AtomicInteger(1);
+    private final AtomicBoolean retired = new AtomicBoolean(false);
+    private final CountDownLatch unloaded = new CountDownLatch(1);
 
     public ParallaxRegion(MultiBurst burst, int height, File folder, int x, int z) {
         super(folder, x, z);
@@ -65,20 +67,156 @@ public class ParallaxRegion extends HunkRegion {
         this.height = height;
         setupSlices();
         lock = new GridLock(32, 32);
+        upgradeLegacyObjects();
     }
 
     private void setupSlices() {
-        blockSlice = HunkRegionSlice.BLOCKDATA.apply(height, getCompound());
-        tileSlice = HunkRegionSlice.TILE.apply(height, getCompound());
-        objectSlice = HunkRegionSlice.STRING.apply(height, getCompound(), "objects");
-        entitySlice = HunkRegionSlice.STRING.apply(height, getCompound(), "entities");
-        updateSlice = HunkRegionSlice.BOOLEAN.apply(height, getCompound(), "updates");
-        metaAdapter = ParallaxChunkMeta.adapter.apply(getCompound());
+        blockSlice = HunkRegionSlice.BLOCKDATA.apply(height, getRegionFile());
+        tileSlice = HunkRegionSlice.TILE.apply(height, getRegionFile());
+        objectSlice = HunkRegionSlice.INTEGER.apply(height, getRegionFile(), "instances");
+        entitySlice = HunkRegionSlice.STRING.apply(height, getRegionFile(), "entities");
+        updateSlice = HunkRegionSlice.BOOLEAN.apply(height, getRegionFile(), "updates");
+        metaAdapter = ParallaxChunkMeta.adapter.apply(getRegionFile());
         dirtyMeta = false;
         meta = null;
+        objectTable = null;
         lastUse = M.ms();
     }
 
+    public synchronized ParallaxObjectTable getObjectTable() {
+        if (objectTable == null) {
+            try {
+                byte[] data = getRegionFile().read("instancetable", 0, 0);
+
+                if (data != null) {
+                    objectTable = ParallaxObjectTable.read(new DataInputStream(new ByteArrayInputStream(data)));
+                }
+            } catch (IOException e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+
+            if (objectTable == null) {
+                objectTable = new ParallaxObjectTable();
+            }
+        }
+
+        return objectTable;
+    }
+
+    public synchronized void saveObjectTable() {
+        if (objectTable != null && objectTable.isDirty()) {
+            try {
+                ByteArrayOutputStream boas = new ByteArrayOutputStream();
+                objectTable.write(new DataOutputStream(boas));
+                getRegionFile().write("instancetable", 0, 0, boas.toByteArray());
+            } catch (IOException e) {
+                Iris.reportError(e);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Regions written before instance handles kept a "key@id" string per object block. Convert those
+     * chunks into handle hunks once and drop the legacy column.
+     */
+    private void upgradeLegacyObjects() {
+        if (!getRegionFile().hasColumn("objects")) {
+            return;
+        }
+
+        StringHunkIOAdapter legacy = new StringHunkIOAdapter();
+        ParallaxObjectTable table = getObjectTable();
+        int converted = 0;
+
+        for (int i = 0; i < 32; i++) {
+            for (int j = 0; j < 32; j++) {
+                try {
+                    byte[] data = getRegionFile().read("objects", i, j);
+
+                    if (data == null) {
+                        continue;
+                    }
+
+                    int bx = (getX() << 9) + (i << 4);
+                    int bz = (getZ() << 9) + (j << 4);
+                    Hunk<Integer> handles = Hunk.newPaletteHunk(16, height, 16);
+                    legacy.read(Hunk::newMappedHunk, data).iterateSync((a, b, c, v) -> {
+                        if (v != null) {
+                            int h = table.handle(ParallaxObjectInstance.fromKey(v));
+                            table.get(h).include(bx + a, b, bz + c);
+                            handles.set(a, b, c, h);
+                        }
+                    });
+                    objectSlice.write(handles, i, j);
+                    converted++;
+                } catch (Throwable e) {
+                    Iris.reportError(e);
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        table.markDirty();
+        saveObjectTable();
+
+        try {
+            getRegionFile().dropColumn("objects");
+        } catch (IOException e) {
+            Iris.reportError(e);
+            e.printStackTrace();
+        }
+
+        Iris.debug("Converted " + converted + " legacy object chunks in Parallax Region " + getX() + " " + getZ());
+    }
+
+    /**
+     * Holds this region open until {@link #release()}. The world owns the first hold, so the region file is only
+     * closed once it has been retired and every reader or writer has let go of it.
+     *
+     * @return false if the region is retired and should be reloaded instead
+     */
+    public boolean acquire() {
+        while (!retired.get()) {
+            int v = holders.get();
+
+            if (v <= 0) {
+                return false;
+            }
+
+            if (holders.compareAndSet(v, v + 1)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if this was the last hold and the region should now be unloaded
+     */
+    public boolean release() {
+        return holders.decrementAndGet() == 0;
+    }
+
+    /**
+     * Drops the world's own hold. Only the first call has any effect.
+     *
+     * @return true if this was the last hold and the region should now be unloaded
+     */
+    public boolean retire() {
+        return retired.compareAndSet(false, true) && release();
+    }
+
+    public void awaitUnload() {
+        try {
+            unloaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public boolean hasBeenIdleLongerThan(long time) {
         return M.ms() - lastUse > time;
     }
@@ -117,15 +255,15 @@ public class ParallaxRegion extends HunkRegion {
     private Hunk<ParallaxChunkMeta> loadMetaHunk() {
         lastUse = M.ms();
         if (meta == null) {
-            Tag t = getCompound().getValue().get("meta");
+            try {
+                byte[] data = getRegionFile().read("meta", 0, 0);
 
-            if ((t instanceof ByteArrayTag)) {
-                try {
-                    meta = metaAdapter.read((x, y, z) -> Hunk.newAtomicHunk(32, 1, 32), (ByteArrayTag) t);
-                } catch (IOException e) {
-                    Iris.reportError(e);
-                    e.printStackTrace();
+                if (data != null) {
+                    meta = metaAdapter.read((x, y, z) -> Hunk.newAtomicHunk(32, 1, 32), data);
                 }
+            } catch (IOException e) {
+                Iris.reportError(e);
+                e.printStackTrace();
             }
 
             if (meta == null) {
@@ -148,7 +286,7 @@ public class ParallaxRegion extends HunkRegion {
     public void saveMetaHunk() {
         if (meta != null && dirtyMeta) {
             try {
-                getCompound().getValue().put("meta", meta.writeByteArrayTag(metaAdapter, "meta"));
+                getRegionFile().write("meta", 0, 0, metaAdapter.writeBytes(meta));
                 dirtyMeta = false;
             } catch (IOException e) {
                 Iris.reportError(e);
@@ -165,17 +303,25 @@ public class ParallaxRegion extends HunkRegion {
         tileSlice.save(burst);
         updateSlice.save(burst);
         saveMetaHunk();
+        saveObjectTable();
         Iris.debug("Saved Parallax Region " + C.GOLD + getX() + " " + getZ());
         super.save();
     }
 
-    public int unload() {
-        unloadMetaHunk();
-        return blockSlice.unloadAll() +
-                objectSlice.unloadAll() +
-                entitySlice.unloadAll() +
-                tileSlice.unloadAll() +
-                updateSlice.unloadAll();
+    public synchronized int unload() {
+        try {
+            unloadMetaHunk();
+            saveObjectTable();
+            int v = blockSlice.unloadAll() +
+                    objectSlice.unloadAll() +
+                    entitySlice.unloadAll() +
+                    tileSlice.unloadAll() +
+                    updateSlice.unloadAll();
+            close();
+            return v;
+        } finally {
+            unloaded.countDown();
+        }
     }
 
     public HunkRegionSlice<BlockData> getBlockSlice() {
@@ -193,7 +339,7 @@ public class ParallaxRegion extends HunkRegion {
         return tileSlice;
     }
 
-    public HunkRegionSlice<String> getObjectSlice() {
+    public HunkRegionSlice<Integer> getObjectSlice() {
         lastUse = M.ms();
         return objectSlice;
     }
@@ -204,11 +350,20 @@ public class ParallaxRegion extends HunkRegion {
     }
 
     public synchronized int cleanup(long c) {
-        return blockSlice.cleanup(c) +
-                objectSlice.cleanup(c) +
-                entitySlice.cleanup(c) +
-                tileSlice.cleanup(c) +
-                updateSlice.cleanup(c);
+        return cleanup(c, null);
+    }
+
+    /**
+     * @param retention if given, decides which chunks stay loaded instead of their idle time
+     */
+    public synchronized int cleanup(long c, ParallaxRetention retention) {
+        BiPredicate<Integer, Integer> keep = retention == null ? null
+                : (x, z) -> retention.isChunkNeeded((getX() << 5) + x, (getZ() << 5) + z);
+        return blockSlice.cleanup(c, keep) +
+                objectSlice.cleanup(c, keep) +
+                entitySlice.cleanup(c, keep) +
+                tileSlice.cleanup(c, keep) +
+                updateSlice.cleanup(c, keep);
     }
 
     public int getChunkCount() {
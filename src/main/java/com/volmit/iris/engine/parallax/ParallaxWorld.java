@@ -25,9 +25,11 @@ import com.volmit.iris.engine.object.tile.TileData;
 import com.volmit.iris.engine.parallel.MultiBurst;
 import com.volmit.iris.util.collection.KList;
 import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.documentation.BlockCoordinates;
 import com.volmit.iris.util.documentation.ChunkCoordinates;
 import com.volmit.iris.util.documentation.RegionCoordinates;
 import com.volmit.iris.util.format.C;
+import com.volmit.iris.util.math.BlockPosition;
 import com.volmit.iris.util.plugin.Command;
 import com.volmit.iris.util.scheduling.J;
 import org.bukkit.block.TileState;
@@ -36,14 +38,18 @@ import org.bukkit.block.data.BlockData;
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @SuppressWarnings("ALL")
 public class ParallaxWorld implements ParallaxAccess {
+    private static final int LOAD_LOCKS = 64;
     private final KMap<Long, ParallaxRegion> loadedRegions;
+    private final Object[] loadLocks;
     private final KList<Long> save;
     private final File folder;
     private final MultiBurst burst;
     private final int height;
+    private volatile ParallaxRetention retention;
 
     public ParallaxWorld(MultiBurst burst, int height, File folder) {
         this.height = height;
@@ -51,6 +57,12 @@ public class ParallaxWorld implements ParallaxAccess {
         this.folder = folder;
         save = new KList<>();
         loadedRegions = new KMap<>();
+        loadLocks = new Object[LOAD_LOCKS];
+
+        for (int i = 0; i < LOAD_LOCKS; i++) {
+            loadLocks[i] = new Object();
+        }
+
         folder.mkdirs();
     }
 
@@ -75,11 +87,8 @@ public class ParallaxWorld implements ParallaxAccess {
 
     public void close() {
         for (ParallaxRegion i : loadedRegions.v()) {
-            unload(i.getX(), i.getZ());
+            retire(i);
         }
-
-        save.clear();
-        loadedRegions.clear();
     }
 
     public void save(ParallaxRegion region) {
@@ -98,60 +107,111 @@ public class ParallaxWorld implements ParallaxAccess {
 
     @RegionCoordinates
     public void save(int x, int z) {
-        if (isLoaded(x, z)) {
-            save(getR(x, z));
+        ParallaxRegion region = loadedRegions.get(key(x, z));
+
+        if (region != null && region.acquire()) {
+            try {
+                save(region);
+            } finally {
+                release(region);
+            }
         }
     }
 
     @RegionCoordinates
     public int unload(int x, int z) {
-        long key = key(x, z);
-        int v = 0;
-        if (isLoaded(x, z)) {
+        ParallaxRegion region = loadedRegions.get(key(x, z));
+        return region == null ? 0 : retire(region);
+    }
+
+    private int retire(ParallaxRegion region) {
+        return region.retire() ? unload(region) : 0;
+    }
+
+    private int release(ParallaxRegion region) {
+        return region.release() ? unload(region) : 0;
+    }
+
+    /**
+     * Runs once the last hold on a region is gone. The region stays mapped until its file is closed so a
+     * concurrent load waits for it instead of opening a second channel on the same file.
+     */
+    private int unload(ParallaxRegion region) {
+        long key = key(region.getX(), region.getZ());
+
+        try {
             if (save.contains(key)) {
-                save(x, z);
+                save(region);
                 save.remove(key);
             }
 
-            ParallaxRegion lr = loadedRegions.remove(key);
-
-            if (lr != null) {
-                v += lr.unload();
-            }
+            return region.unload();
+        } finally {
+            loadedRegions.remove(key, region);
         }
-
-        return v;
     }
 
+    /**
+     * Loads the region if needed and takes a hold on it. Every acquire must be paired with {@link #release(ParallaxRegion)}.
+     */
     @RegionCoordinates
-    public ParallaxRegion load(int x, int z) {
-        if (isLoaded(x, z)) {
-            return loadedRegions.get(key(x, z));
-        }
+    private ParallaxRegion acquire(int x, int z, boolean rw) {
+        long key = key(x, z);
+
+        while (true) {
+            ParallaxRegion region = loadedRegions.get(key);
+
+            if (region == null) {
+                region = load(key, x, z);
+            }
 
-        ParallaxRegion v = new ParallaxRegion(burst, height, folder, x, z);
-        loadedRegions.put(key(x, z), v);
+            if (region.acquire()) {
+                if (rw) {
+                    save.addIfMissing(key);
+                }
 
-        return v;
+                return region;
+            }
+
+            region.awaitUnload();
+            loadedRegions.remove(key, region);
+        }
     }
 
+    /**
+     * Opens the region file outside of the map so a slow load or migration only blocks loads that share its lock
+     * stripe, not every other map update
+     */
     @RegionCoordinates
-    public ParallaxRegion getR(int x, int z) {
-        long key = key(x, z);
+    private ParallaxRegion load(long key, int x, int z) {
+        synchronized (loadLocks[(int) (key ^ (key >>> 32)) & (LOAD_LOCKS - 1)]) {
+            ParallaxRegion region = loadedRegions.get(key);
 
-        ParallaxRegion region = loadedRegions.get(key);
+            if (region != null) {
+                return region;
+            }
 
-        if (region == null) {
-            region = load(x, z);
-        }
+            ParallaxRegion loaded = new ParallaxRegion(burst, height, folder, x, z);
+            region = loadedRegions.putIfAbsent(key, loaded);
 
-        return region;
+            if (region != null) {
+                loaded.close();
+                return region;
+            }
+
+            return loaded;
+        }
     }
 
     @RegionCoordinates
-    public ParallaxRegion getRW(int x, int z) {
-        save.addIfMissing(key(x, z));
-        return getR(x, z);
+    private <T> T withRegion(int x, int z, boolean rw, Function<ParallaxRegion, T> f) {
+        ParallaxRegion region = acquire(x, z, rw);
+
+        try {
+            return f.apply(region);
+        } finally {
+            release(region);
+        }
     }
 
     @RegionCoordinates
@@ -162,89 +222,161 @@ public class ParallaxWorld implements ParallaxAccess {
     @ChunkCoordinates
     @Override
     public Hunk<BlockData> getBlocksR(int x, int z) {
-        return getR(x >> 5, z >> 5).getBlockSlice().getR(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, false, (r) -> r.getBlockSlice().getR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<BlockData> getBlocksRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getBlockSlice().getRW(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getBlockSlice().getRW(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<TileData<? extends TileState>> getTilesR(int x, int z) {
-        return getR(x >> 5, z >> 5).getTileSlice().getR(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, false, (r) -> r.getTileSlice().getR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<TileData<? extends TileState>> getTilesRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getTileSlice().getRW(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getTileSlice().getRW(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
-    public Hunk<String> getObjectsR(int x, int z) {
-        return getR(x >> 5, z >> 5).getObjectSlice().getR(x & 31, z & 31);
+    public Hunk<Integer> getObjectsR(int x, int z) {
+        return withRegion(x >> 5, z >> 5, false, (r) -> r.getObjectSlice().getR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
-    public Hunk<String> getObjectsRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getObjectSlice().getRW(x & 31, z & 31);
+    public Hunk<Integer> getObjectsRW(int x, int z) {
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getObjectSlice().getRW(x & 31, z & 31));
+    }
+
+    @BlockCoordinates
+    @Override
+    public ParallaxObjectInstance getObjectInstance(int x, int y, int z) {
+        return withRegion(x >> 9, z >> 9, false, (r) -> {
+            Integer h = r.getObjectSlice().getR((x >> 4) & 31, (z >> 4) & 31).get(x & 15, y, z & 15);
+            return h == null ? null : r.getObjectTable().get(h);
+        });
+    }
+
+    @BlockCoordinates
+    @Override
+    public void setObject(int x, int y, int z, ParallaxObjectInstance instance) {
+        withRegion(x >> 9, z >> 9, true, (region) -> {
+            ParallaxObjectTable table = region.getObjectTable();
+            int h = table.handle(instance);
+            ParallaxObjectInstance held = table.get(h);
+            held.include(x, y, z);
+
+            // The caller's instance keeps the bounds across every region the object touches
+            if (held != instance) {
+                instance.include(x, y, z);
+            }
+
+            table.markDirty();
+            region.getObjectSlice().getRW((x >> 4) & 31, (z >> 4) & 31).set(x & 15, y, z & 15, h);
+            return null;
+        });
+    }
+
+    @Override
+    public KList<BlockPosition> getObjectBlocks(ParallaxObjectInstance instance) {
+        KList<BlockPosition> blocks = new KList<>();
+
+        if (instance.isEmpty()) {
+            return blocks;
+        }
+
+        for (int cx = instance.getMinX() >> 4; cx <= instance.getMaxX() >> 4; cx++) {
+            for (int cz = instance.getMinZ() >> 4; cz <= instance.getMaxZ() >> 4; cz++) {
+                int bx = cx << 4;
+                int bz = cz << 4;
+                int rx = cx & 31;
+                int rz = cz & 31;
+                withRegion(cx >> 5, cz >> 5, false, (r) -> {
+                    Integer h = r.getObjectTable().find(instance);
+
+                    if (h != null) {
+                        r.getObjectSlice().getR(rx, rz).iterateSync((a, b, c, v) -> {
+                            if (h.equals(v)) {
+                                blocks.add(new BlockPosition(bx + a, b, bz + c));
+                            }
+                        });
+                    }
+
+                    return null;
+                });
+            }
+        }
+
+        return blocks;
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<String> getEntitiesRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getEntitySlice().getRW(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getEntitySlice().getRW(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<String> getEntitiesR(int x, int z) {
-        return getRW(x >> 5, z >> 5).getEntitySlice().getR(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getEntitySlice().getR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<Boolean> getUpdatesR(int x, int z) {
-        return getR(x >> 5, z >> 5).getUpdateSlice().getR(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, false, (r) -> r.getUpdateSlice().getR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public Hunk<Boolean> getUpdatesRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getUpdateSlice().getRW(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getUpdateSlice().getRW(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public ParallaxChunkMeta getMetaR(int x, int z) {
-        return getR(x >> 5, z >> 5).getMetaR(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, false, (r) -> r.getMetaR(x & 31, z & 31));
     }
 
     @ChunkCoordinates
     @Override
     public ParallaxChunkMeta getMetaRW(int x, int z) {
-        return getRW(x >> 5, z >> 5).getMetaRW(x & 31, z & 31);
+        return withRegion(x >> 5, z >> 5, true, (r) -> r.getMetaRW(x & 31, z & 31));
     }
 
     public void cleanup() {
         cleanup(IrisSettings.get().getParallaxRegionEvictionMS(), IrisSettings.get().getParallax().getParallaxChunkEvictionMS());
     }
 
+    @Override
+    public void setRetention(ParallaxRetention retention) {
+        this.retention = retention;
+    }
+
     @Override
     public synchronized void cleanup(long r, long c) {
         try {
-            int rr = 0;
+            ParallaxRetention retention = this.retention;
+
             for (ParallaxRegion i : loadedRegions.v()) {
                 burst.lazy(() -> {
-                    if (i.hasBeenIdleLongerThan(r)) {
-                        unload(i.getX(), i.getZ());
-                    } else {
-                        i.cleanup(c);
+                    if (retention != null ? !retention.isRegionNeeded(i.getX(), i.getZ()) : i.hasBeenIdleLongerThan(r)) {
+                        retire(i);
+                    } else if (i.acquire()) {
+                        try {
+                            i.cleanup(c, retention);
+                        } finally {
+                            release(i);
+                        }
                     }
                 });
             }
@@ -35,6 +35,28 @@ public class MultiBurst {
     }
 
     public MultiBurst(String name, int priority, int tc) {
+        this(name, priority, tc, false);
+    }
+
+    /**
+     * @param workStealing use a work-stealing pool, so many bursts queued at once from different threads
+     *                     keep every worker busy instead of draining one shared queue in submission order
+     */
+    public MultiBurst(String name, int priority, int tc, boolean workStealing) {
+        if (workStealing) {
+            service = new ForkJoinPool(tc, pool -> {
+                tid++;
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName(name + " " + tid);
+                t.setPriority(6);
+                return t;
+            }, (et, e) -> {
+                Iris.info("Exception encountered in " + et.getName());
+                e.printStackTrace();
+            }, true);
+            return;
+        }
+
         service = Executors.newFixedThreadPool(tc, r -> {
             tid++;
             Thread t = new Thread(r);
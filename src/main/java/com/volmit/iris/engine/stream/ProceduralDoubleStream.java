@@ -0,0 +1,214 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream;
+
+import com.volmit.iris.engine.interpolation.InterpolationMethod;
+import com.volmit.iris.engine.object.IrisStyledRange;
+import com.volmit.iris.engine.stream.arithmetic.*;
+import com.volmit.iris.engine.stream.interpolation.DoubleBilinearStream;
+import com.volmit.iris.engine.stream.interpolation.DoubleInterpolatingStream;
+import com.volmit.iris.engine.stream.sources.DoubleFunctionStream;
+import com.volmit.iris.engine.stream.utility.DoubleCachedStream2D;
+import com.volmit.iris.util.function.NoiseProvider;
+import com.volmit.iris.util.function.NoiseProvider3;
+import com.volmit.iris.util.math.RNG;
+
+/**
+ * A primitive specialization of {@link ProceduralStream} for double streams. Every stage
+ * samples through {@link #getDouble(double, double)} so no {@link Double} is created
+ * along the chain. {@link #get(double, double)} remains available as a boxed view.
+ */
+public interface ProceduralDoubleStream extends ProceduralStream<Double> {
+    static ProceduralDoubleStream of(NoiseProvider f) {
+        return of(f, (x, y, z) -> f.noise(x, z));
+    }
+
+    static ProceduralDoubleStream of(NoiseProvider f, NoiseProvider3 f3) {
+        return new DoubleFunctionStream(f, f3);
+    }
+
+    static ProceduralDoubleStream of(double v) {
+        return of((x, z) -> v, (x, y, z) -> v);
+    }
+
+    @Override
+    double getDouble(double x, double z);
+
+    @Override
+    double getDouble(double x, double y, double z);
+
+    @Override
+    default Double get(double x, double z) {
+        return getDouble(x, z);
+    }
+
+    @Override
+    default Double get(double x, double y, double z) {
+        return getDouble(x, y, z);
+    }
+
+    @Override
+    default double toDouble(Double t) {
+        return t;
+    }
+
+    @Override
+    default Double fromDouble(double d) {
+        return d;
+    }
+
+    @Override
+    default ProceduralDoubleStream forceDouble() {
+        return this;
+    }
+
+    @Override
+    default ProceduralDoubleStream add(double a) {
+        return new DoubleAddingStream(this, a);
+    }
+
+    default ProceduralDoubleStream add(ProceduralDoubleStream a) {
+        return new DoubleAddingStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream subtract(double a) {
+        return new DoubleSubtractingStream(this, a);
+    }
+
+    default ProceduralDoubleStream subtract(ProceduralDoubleStream a) {
+        return new DoubleSubtractingStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream multiply(double a) {
+        return new DoubleMultiplyingStream(this, a);
+    }
+
+    default ProceduralDoubleStream multiply(ProceduralDoubleStream a) {
+        return new DoubleMultiplyingStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream divide(double a) {
+        return new DoubleDividingStream(this, a);
+    }
+
+    default ProceduralDoubleStream divide(ProceduralDoubleStream a) {
+        return new DoubleDividingStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream modulo(double a) {
+        return new DoubleModuloStream(this, a);
+    }
+
+    default ProceduralDoubleStream modulo(ProceduralDoubleStream a) {
+        return new DoubleModuloStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream max(double a) {
+        return new DoubleMaxingStream(this, a);
+    }
+
+    default ProceduralDoubleStream max(ProceduralDoubleStream a) {
+        return new DoubleMaxingStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream min(double a) {
+        return new DoubleMinningStream(this, a);
+    }
+
+    default ProceduralDoubleStream min(ProceduralDoubleStream a) {
+        return new DoubleMinningStream(this, a);
+    }
+
+    @Override
+    default ProceduralDoubleStream clamp(double min, double max) {
+        return new DoubleClampedStream(this, min, max);
+    }
+
+    @Override
+    default ProceduralDoubleStream fit(double min, double max) {
+        return new DoubleFittedStream(this, min, max);
+    }
+
+    @Override
+    default ProceduralDoubleStream fit(double inMin, double inMax, double min, double max) {
+        return new DoubleFittedStream(this, inMin, inMax, min, max);
+    }
+
+    @Override
+    default ProceduralDoubleStream slope() {
+        return slope(1);
+    }
+
+    @Override
+    default ProceduralDoubleStream slope(int range) {
+        return new DoubleSlopeStream(this, range);
+    }
+
+    @Override
+    default ProceduralDoubleStream offset(double x, double y, double z) {
+        return new DoubleOffsetStream(this, x, y, z);
+    }
+
+    @Override
+    default ProceduralDoubleStream offset(double x, double z) {
+        return new DoubleOffsetStream(this, x, 0, z);
+    }
+
+    @Override
+    default ProceduralDoubleStream zoom(double x, double y, double z) {
+        return new DoubleZoomStream(this, x, y, z);
+    }
+
+    @Override
+    default ProceduralDoubleStream zoom(double x, double z) {
+        return new DoubleZoomStream(this, x, 1, z);
+    }
+
+    @Override
+    default ProceduralDoubleStream zoom(double all) {
+        return new DoubleZoomStream(this, all, all, all);
+    }
+
+    @Override
+    default ProceduralDoubleStream style(RNG rng, IrisStyledRange range) {
+        return of((x, z) -> {
+            double d = getDouble(x, z);
+            return range.get(rng, d, -d);
+        });
+    }
+
+    @Override
+    default ProceduralDoubleStream cache2D(int megabytes) {
+        return new DoubleCachedStream2D(this, megabytes);
+    }
+
+    default ProceduralDoubleStream interpolate(InterpolationMethod method, int radius) {
+        return new DoubleInterpolatingStream(this, radius, method);
+    }
+
+    default ProceduralDoubleStream bilinear(int rx, int rz) {
+        return new DoubleBilinearStream(this, rx, rz);
+    }
+}
@@ -234,7 +234,7 @@ public interface ProceduralStream<T> extends ProceduralLayer, Interpolated<T> {
         return new RoundingDoubleStream(this);
     }
 
-    default ProceduralStream<Double> forceDouble() {
+    default ProceduralDoubleStream forceDouble() {
         return new ForceDoubleStream(this);
     }
 
@@ -246,8 +246,8 @@ public interface ProceduralStream<T> extends ProceduralLayer, Interpolated<T> {
         return new To3DStream<T>(this);
     }
 
-    default ProceduralStream<T> cache2D(int maxSize) {
-        return new CachedStream2D<T>(this, maxSize);
+    default ProceduralStream<T> cache2D(int megabytes) {
+        return new CachedStream2D<T>(this, megabytes);
     }
 
     default <V> ProceduralStream<V> convert(Function<T, V> converter) {
@@ -484,6 +484,43 @@ public interface ProceduralStream<T> extends ProceduralLayer, Interpolated<T> {
         fill3D(h, x, y, z, v, 4);
     }
 
+    default void fillChunk(int chunkX, int chunkZ, double[] out) {
+        double[] xs = new double[16];
+        double[] zs = new double[16];
+
+        for (int i = 0; i < 16; i++) {
+            xs[i] = (chunkX << 4) + i;
+            zs[i] = (chunkZ << 4) + i;
+        }
+
+        fillDouble(xs, zs, out);
+    }
+
+    /**
+     * Samples the grid spanned by xs and zs into out, indexed as out[(k * xs.length) + i] for
+     * the column (xs[i], zs[k]). Streams that can share work between neighbouring columns
+     * override this; results must match sampling each column with getDouble.
+     */
+    default void fillDouble(double[] xs, double[] zs, double[] out) {
+        fillPoints(this, xs, zs, out);
+    }
+
+    default void fill(double[] xs, double[] zs, T[] out) {
+        for (int k = 0; k < zs.length; k++) {
+            for (int i = 0; i < xs.length; i++) {
+                out[(k * xs.length) + i] = get(xs[i], zs[k]);
+            }
+        }
+    }
+
+    static void fillPoints(ProceduralStream<?> stream, double[] xs, double[] zs, double[] out) {
+        for (int k = 0; k < zs.length; k++) {
+            for (int i = 0; i < xs.length; i++) {
+                out[(k * xs.length) + i] = stream.getDouble(xs[i], zs[k]);
+            }
+        }
+    }
+
     default double getDouble(double x, double z) {
         return toDouble(get(x, z));
     }
@@ -0,0 +1,56 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream.arithmetic;
+
+import com.volmit.iris.engine.stream.BasicDoubleStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
+
+public class DoubleClampedStream extends BasicDoubleStream {
+    private final double min;
+    private final double max;
+
+    public DoubleClampedStream(ProceduralDoubleStream stream, double min, double max) {
+        super(stream);
+        this.min = min;
+        this.max = max;
+    }
+
+    private double clamp(double v) {
+        return Math.max(Math.min(v, max), min);
+    }
+
+    @Override
+    public double getDouble(double x, double z) {
+        return clamp(getTypedSource().getDouble(x, z));
+    }
+
+    @Override
+    public double getDouble(double x, double y, double z) {
+        return clamp(getTypedSource().getDouble(x, y, z));
+    }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        getTypedSource().fillDouble(xs, zs, out);
+
+        for (int i = 0; i < xs.length * zs.length; i++) {
+            out[i] = clamp(out[i]);
+        }
+    }
+}
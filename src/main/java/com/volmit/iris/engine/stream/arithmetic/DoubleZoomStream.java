@@ -0,0 +1,61 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream.arithmetic;
+
+import com.volmit.iris.engine.stream.BasicDoubleStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
+
+public class DoubleZoomStream extends BasicDoubleStream {
+    private final double ox;
+    private final double oy;
+    private final double oz;
+
+    public DoubleZoomStream(ProceduralDoubleStream stream, double x, double y, double z) {
+        super(stream);
+        this.ox = x;
+        this.oy = y;
+        this.oz = z;
+    }
+
+    @Override
+    public double getDouble(double x, double z) {
+        return getTypedSource().getDouble(x / ox, z / oz);
+    }
+
+    @Override
+    public double getDouble(double x, double y, double z) {
+        return getTypedSource().getDouble(x / ox, y / oy, z / oz);
+    }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        double[] sx = new double[xs.length];
+        double[] sz = new double[zs.length];
+
+        for (int i = 0; i < sx.length; i++) {
+            sx[i] = xs[i] / ox;
+        }
+
+        for (int i = 0; i < sz.length; i++) {
+            sz[i] = zs[i] / oz;
+        }
+
+        getTypedSource().fillDouble(sx, sz, out);
+    }
+}
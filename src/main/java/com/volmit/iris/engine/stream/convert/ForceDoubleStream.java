@@ -18,34 +18,35 @@
 
 package com.volmit.iris.engine.stream.convert;
 
-import com.volmit.iris.engine.stream.BasicStream;
+import com.volmit.iris.engine.stream.BasicLayer;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.engine.stream.ProceduralStream;
 
-public class ForceDoubleStream extends BasicStream<Double> {
-    private ProceduralStream<?> stream;
+public class ForceDoubleStream extends BasicLayer implements ProceduralDoubleStream {
+    private final ProceduralStream<?> stream;
 
     public ForceDoubleStream(ProceduralStream<?> stream) {
-        super(null);
+        super();
+        this.stream = stream;
     }
 
     @Override
-    public double toDouble(Double t) {
-        return t;
+    public ProceduralStream<Double> getTypedSource() {
+        return null;
     }
 
     @Override
-    public Double fromDouble(double d) {
-        return d;
+    public ProceduralStream<?> getSource() {
+        return stream;
     }
 
     @Override
-    public Double get(double x, double z) {
+    public double getDouble(double x, double z) {
         return stream.getDouble(x, z);
     }
 
     @Override
-    public Double get(double x, double y, double z) {
+    public double getDouble(double x, double y, double z) {
         return stream.getDouble(x, y, z);
     }
-
 }
@@ -95,4 +95,16 @@ public class BiHermiteStream<T> extends BasicStream<T> implements Interpolator<T
     public T get(double x, double y, double z) {
         return interpolate(x, z);
     }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        if (!GridInterpolation.fillBihermite(getTypedSource(), rx, ry, tension, bias, xs, zs, out)) {
+            ProceduralStream.fillPoints(this, xs, zs, out);
+            return;
+        }
+
+        for (int i = 0; i < xs.length * zs.length; i++) {
+            out[i] = toDouble(fromDouble(out[i]));
+        }
+    }
 }
@@ -20,30 +20,50 @@ package com.volmit.iris.engine.stream.interpolation;
 
 import com.volmit.iris.engine.stream.BasicStream;
 import com.volmit.iris.engine.stream.ProceduralStream;
+import com.volmit.iris.util.collection.KList;
 
 public class BiStarcastStream<T> extends BasicStream<T> implements Interpolator<T> {
     private final int rad;
     private final int checks;
+    private final double[] offsetX;
+    private final double[] offsetZ;
 
     public BiStarcastStream(ProceduralStream<T> stream, int rad, int checks) {
         super(stream);
         this.rad = rad;
         this.checks = checks;
-    }
-
-    public T interpolate(double x, double y) {
+        KList<Double> ox = new KList<>();
+        KList<Double> oz = new KList<>();
         double m = (360D / checks);
-        double v = 0;
 
         for (int i = 0; i < 360; i += m) {
             double sin = Math.sin(Math.toRadians(i));
             double cos = Math.cos(Math.toRadians(i));
-            double cx = x + ((rad * cos) - (rad * sin));
-            double cz = y + ((rad * sin) + (rad * cos));
-            v += getTypedSource().getDouble(cx, cz);
+            ox.add((rad * cos) - (rad * sin));
+            oz.add((rad * sin) + (rad * cos));
         }
 
-        return getTypedSource().fromDouble(v / checks);
+        offsetX = new double[ox.size()];
+        offsetZ = new double[oz.size()];
+
+        for (int i = 0; i < offsetX.length; i++) {
+            offsetX[i] = ox.get(i);
+            offsetZ[i] = oz.get(i);
+        }
+    }
+
+    private double sample(double x, double y) {
+        double v = 0;
+
+        for (int i = 0; i < offsetX.length; i++) {
+            v += getTypedSource().getDouble(x + offsetX[i], y + offsetZ[i]);
+        }
+
+        return v / checks;
+    }
+
+    public T interpolate(double x, double y) {
+        return getTypedSource().fromDouble(sample(x, y));
     }
 
     @Override
@@ -65,4 +85,13 @@ public class BiStarcastStream<T> extends BasicStream<T> implements Interpolator<
     public T get(double x, double y, double z) {
         return interpolate(x, z);
     }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        for (int k = 0; k < zs.length; k++) {
+            for (int i = 0; i < xs.length; i++) {
+                out[(k * xs.length) + i] = toDouble(fromDouble(sample(xs[i], zs[k])));
+            }
+        }
+    }
 }
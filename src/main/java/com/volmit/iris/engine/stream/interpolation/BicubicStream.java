@@ -87,4 +87,16 @@ public class BicubicStream<T> extends BasicStream<T> implements Interpolator<T>
     public T get(double x, double y, double z) {
         return interpolate(x, z);
     }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        if (!GridInterpolation.fillBicubic(getTypedSource(), rx, ry, xs, zs, out)) {
+            ProceduralStream.fillPoints(this, xs, zs, out);
+            return;
+        }
+
+        for (int i = 0; i < xs.length * zs.length; i++) {
+            out[i] = toDouble(fromDouble(out[i]));
+        }
+    }
 }
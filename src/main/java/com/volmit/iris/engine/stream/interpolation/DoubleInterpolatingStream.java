@@ -0,0 +1,48 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream.interpolation;
+
+import com.volmit.iris.engine.interpolation.InterpolationMethod;
+import com.volmit.iris.engine.interpolation.IrisInterpolation;
+import com.volmit.iris.engine.stream.BasicDoubleStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
+import com.volmit.iris.util.function.NoiseProvider;
+
+public class DoubleInterpolatingStream extends BasicDoubleStream {
+    private final InterpolationMethod type;
+    private final NoiseProvider np;
+    private final int rx;
+
+    public DoubleInterpolatingStream(ProceduralDoubleStream stream, int rx, InterpolationMethod type) {
+        super(stream);
+        this.type = type;
+        this.rx = rx;
+        this.np = stream::getDouble;
+    }
+
+    @Override
+    public double getDouble(double x, double z) {
+        return IrisInterpolation.getNoise(type, (int) x, (int) z, rx, np);
+    }
+
+    @Override
+    public double getDouble(double x, double y, double z) {
+        return getDouble(x, z);
+    }
+}
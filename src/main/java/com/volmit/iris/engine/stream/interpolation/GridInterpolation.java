@@ -0,0 +1,144 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream.interpolation;
+
+import com.volmit.iris.engine.interpolation.IrisInterpolation;
+import com.volmit.iris.engine.stream.ProceduralStream;
+
+/**
+ * Batch fills for the lattice interpolators. The lattice corners touched by a grid window
+ * are sampled once into a flat array and shared by every column that needs them. Corner
+ * coordinates and blend factors use the exact expressions of the per-sample streams, so
+ * results are identical to calling get(x, z) per column.
+ */
+public class GridInterpolation {
+    private static final int BILINEAR = 0;
+    private static final int BICUBIC = 1;
+    private static final int BIHERMITE = 2;
+
+    public static boolean fillBilinear(ProceduralStream<?> source, int rx, int ry, double[] xs, double[] zs, double[] out) {
+        return fill(BILINEAR, source, rx, ry, 0, 0, xs, zs, out);
+    }
+
+    public static boolean fillBicubic(ProceduralStream<?> source, int rx, int ry, double[] xs, double[] zs, double[] out) {
+        return fill(BICUBIC, source, rx, ry, 0, 0, xs, zs, out);
+    }
+
+    public static boolean fillBihermite(ProceduralStream<?> source, int rx, int ry, double tension, double bias, double[] xs, double[] zs, double[] out) {
+        return fill(BIHERMITE, source, rx, ry, tension, bias, xs, zs, out);
+    }
+
+    private static boolean fill(int mode, ProceduralStream<?> source, int rx, int ry, double tension, double bias, double[] xs, double[] zs, double[] out) {
+        int w = xs.length;
+        int d = zs.length;
+
+        if (w == 0 || d == 0) {
+            return true;
+        }
+
+        int before = mode == BILINEAR ? 0 : 1;
+        int span = mode == BILINEAR ? 2 : 4;
+        int[] fx = new int[w];
+        int[] fz = new int[d];
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < w; i++) {
+            fx[i] = (int) Math.floor(xs[i] / rx);
+            minX = Math.min(minX, fx[i]);
+            maxX = Math.max(maxX, fx[i]);
+        }
+
+        for (int i = 0; i < d; i++) {
+            fz[i] = (int) Math.floor(zs[i] / ry);
+            minZ = Math.min(minZ, fz[i]);
+            maxZ = Math.max(maxZ, fz[i]);
+        }
+
+        long lw = (long) maxX - minX + span;
+        long ld = (long) maxZ - minZ + span;
+
+        // Sparse windows (large zoom-out) would sample more corners than the plain path
+        if (lw * ld > (long) w * d * span * span) {
+            return false;
+        }
+
+        int lww = (int) lw;
+        int ox = minX - before;
+        int oz = minZ - before;
+        double[] lattice = new double[lww * (int) ld];
+
+        for (int j = 0; j < ld; j++) {
+            int cz = Math.round((oz + j) * ry);
+
+            for (int i = 0; i < lww; i++) {
+                lattice[(j * lww) + i] = source.getDouble(Math.round((ox + i) * rx), cz);
+            }
+        }
+
+        double[] px = new double[w];
+        double[] pz = new double[d];
+
+        for (int i = 0; i < w; i++) {
+            px[i] = IrisInterpolation.rangeScale(0, 1, Math.round(fx[i] * rx), Math.round((fx[i] + 1) * rx), xs[i]);
+        }
+
+        for (int i = 0; i < d; i++) {
+            pz[i] = IrisInterpolation.rangeScale(0, 1, Math.round(fz[i] * ry), Math.round((fz[i] + 1) * ry), zs[i]);
+        }
+
+        for (int k = 0; k < d; k++) {
+            int r0 = (fz[k] - oz - before) * lww;
+
+            for (int i = 0; i < w; i++) {
+                int c = r0 + fx[i] - ox - before;
+
+                if (mode == BILINEAR) {
+                    out[(k * w) + i] = IrisInterpolation.blerp(
+                            lattice[c], lattice[c + 1],
+                            lattice[c + lww], lattice[c + lww + 1],
+                            px[i], pz[k]);
+                    continue;
+                }
+
+                int r1 = c + lww;
+                int r2 = r1 + lww;
+                int r3 = r2 + lww;
+
+                //@builder
+                out[(k * w) + i] = mode == BICUBIC ? IrisInterpolation.bicubic(
+                        lattice[c], lattice[r1], lattice[r2], lattice[r3],
+                        lattice[c + 1], lattice[r1 + 1], lattice[r2 + 1], lattice[r3 + 1],
+                        lattice[c + 2], lattice[r1 + 2], lattice[r2 + 2], lattice[r3 + 2],
+                        lattice[c + 3], lattice[r1 + 3], lattice[r2 + 3], lattice[r3 + 3],
+                        px[i], pz[k]) : IrisInterpolation.bihermite(
+                        lattice[c], lattice[r1], lattice[r2], lattice[r3],
+                        lattice[c + 1], lattice[r1 + 1], lattice[r2 + 1], lattice[r3 + 1],
+                        lattice[c + 2], lattice[r1 + 2], lattice[r2 + 2], lattice[r3 + 2],
+                        lattice[c + 3], lattice[r1 + 3], lattice[r2 + 3], lattice[r3 + 3],
+                        px[i], pz[k], tension, bias);
+                //@done
+            }
+        }
+
+        return true;
+    }
+}
@@ -20,9 +20,10 @@ package com.volmit.iris.engine.stream.sources;
 
 import com.volmit.iris.engine.noise.CNG;
 import com.volmit.iris.engine.stream.BasicLayer;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
 import com.volmit.iris.engine.stream.ProceduralStream;
 
-public class CNGStream extends BasicLayer implements ProceduralStream<Double> {
+public class CNGStream extends BasicLayer implements ProceduralDoubleStream {
     private final CNG cng;
 
     public CNGStream(CNG cng) {
@@ -39,16 +40,6 @@ public class CNGStream extends BasicLayer implements ProceduralStream<Double> {
         this.cng = cng;
     }
 
-    @Override
-    public double toDouble(Double t) {
-        return t;
-    }
-
-    @Override
-    public Double fromDouble(double d) {
-        return d;
-    }
-
     @Override
     public ProceduralStream<Double> getTypedSource() {
         return null;
@@ -60,13 +51,31 @@ public class CNGStream extends BasicLayer implements ProceduralStream<Double> {
     }
 
     @Override
-    public Double get(double x, double z) {
-        return cng.noise((x + getOffsetX()) / getZoom(), (z + getOffsetZ()) / getZoom());
+    public double getDouble(double x, double z) {
+        return cng.compile().noise((x + getOffsetX()) / getZoom(), (z + getOffsetZ()) / getZoom());
     }
 
     @Override
-    public Double get(double x, double y, double z) {
-        return cng.noise((x + getOffsetX()) / getZoom(), (y + getOffsetY()) / getZoom(), (z + getOffsetZ()) * getZoom());
+    public double getDouble(double x, double y, double z) {
+        return cng.compile().noise((x + getOffsetX()) / getZoom(), (y + getOffsetY()) / getZoom(), (z + getOffsetZ()) * getZoom());
+    }
+
+    @Override
+    public void fillDouble(double[] xs, double[] zs, double[] out) {
+        int n = xs.length * zs.length;
+        double[] px = new double[n];
+        double[] pz = new double[n];
+
+        for (int k = 0; k < zs.length; k++) {
+            double sz = (zs[k] + getOffsetZ()) / getZoom();
+
+            for (int i = 0; i < xs.length; i++) {
+                px[(k * xs.length) + i] = (xs[i] + getOffsetX()) / getZoom();
+                pz[(k * xs.length) + i] = sz;
+            }
+        }
+
+        cng.noise(px, pz, out, n);
     }
 
 }
@@ -54,4 +54,13 @@ public class FunctionStream<T> extends BasicStream<T> {
     public T get(double x, double y, double z) {
         return f3.apply(x, y, z);
     }
+
+    @Override
+    public void fill(double[] xs, double[] zs, T[] out) {
+        for (int k = 0; k < zs.length; k++) {
+            for (int i = 0; i < xs.length; i++) {
+                out[(k * xs.length) + i] = f2.apply(xs[i], zs[k]);
+            }
+        }
+    }
 }
@@ -18,24 +18,22 @@
 
 package com.volmit.iris.engine.stream.utility;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
-import com.volmit.iris.engine.IrisComplex;
 import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.engine.cache.TileCache;
 import com.volmit.iris.engine.stream.BasicStream;
 import com.volmit.iris.engine.stream.ProceduralStream;
 
-public class CachedStream2D<T> extends BasicStream<T> implements ProceduralStream<T> {
+@SuppressWarnings("unchecked")
+public class CachedStream2D<T> extends BasicStream<T> implements ProceduralStream<T>, MeteredCache {
     private final ProceduralStream<T> stream;
-    private final ConcurrentLinkedHashMap<Long, T> cache;
+    private final TileCache cache;
+    private final Object[] tiles;
 
-    public CachedStream2D(ProceduralStream<T> stream, int size) {
+    public CachedStream2D(ProceduralStream<T> stream, int megabytes) {
         super();
         this.stream = stream;
-        cache = new ConcurrentLinkedHashMap.Builder<Long, T>()
-                .initialCapacity(size)
-                .maximumWeightedCapacity(size)
-                .concurrencyLevel(32)
-                .build();
+        cache = new TileCache(TileCache.tilesFor(megabytes, 8));
+        tiles = new Object[cache.getTiles() * TileCache.TILE_SIZE];
     }
 
     @Override
@@ -50,11 +48,55 @@ public class CachedStream2D<T> extends BasicStream<T> implements ProceduralStrea
 
     @Override
     public T get(double x, double z) {
-        return cache.compute(Cache.key((int) x, (int) z), (k, v) -> v != null ? v : stream.get((int) x, (int) z));
+        int bx = (int) x;
+        int bz = (int) z;
+        long key = Cache.key(bx >> 4, bz >> 4);
+        int index = TileCache.index(bx, bz);
+
+        for (int i = 0; i < cache.getWays(); i++) {
+            int slot = cache.slot(key, i);
+            long stamp = cache.read(slot, key);
+
+            if (stamp != 0) {
+                T v = (T) tiles[(slot * TileCache.TILE_SIZE) + index];
+
+                if (cache.validate(slot, stamp)) {
+                    return v;
+                }
+            }
+        }
+
+        return load(key, bx >> 4, bz >> 4)[index];
+    }
+
+    private T[] load(long key, int cx, int cz) {
+        double[] xs = new double[16];
+        double[] zs = new double[16];
+        T[] tile = (T[]) new Object[TileCache.TILE_SIZE];
+
+        for (int i = 0; i < 16; i++) {
+            xs[i] = (cx << 4) + i;
+            zs[i] = (cz << 4) + i;
+        }
+
+        stream.fill(xs, zs, tile);
+        int slot = cache.claim(key);
+
+        if (slot >= 0) {
+            System.arraycopy(tile, 0, tiles, slot * TileCache.TILE_SIZE, TileCache.TILE_SIZE);
+            cache.publish(slot);
+        }
+
+        return tile;
     }
 
     @Override
     public T get(double x, double y, double z) {
         return stream.get(x, y, z);
     }
+
+    @Override
+    public TileCache getCache() {
+        return cache;
+    }
 }
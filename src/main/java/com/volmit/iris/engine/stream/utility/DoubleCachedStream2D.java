@@ -0,0 +1,89 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.stream.utility;
+
+import com.volmit.iris.engine.cache.Cache;
+import com.volmit.iris.engine.cache.TileCache;
+import com.volmit.iris.engine.stream.BasicDoubleStream;
+import com.volmit.iris.engine.stream.ProceduralDoubleStream;
+
+public class DoubleCachedStream2D extends BasicDoubleStream implements MeteredCache {
+    private final TileCache cache;
+    private final double[] tiles;
+
+    public DoubleCachedStream2D(ProceduralDoubleStream stream, int megabytes) {
+        super(stream);
+        cache = new TileCache(TileCache.tilesFor(megabytes, 8));
+        tiles = new double[cache.getTiles() * TileCache.TILE_SIZE];
+    }
+
+    @Override
+    public double getDouble(double x, double z) {
+        int bx = (int) x;
+        int bz = (int) z;
+        long key = Cache.key(bx >> 4, bz >> 4);
+        int index = TileCache.index(bx, bz);
+
+        for (int i = 0; i < cache.getWays(); i++) {
+            int slot = cache.slot(key, i);
+            long stamp = cache.read(slot, key);
+
+            if (stamp != 0) {
+                double v = tiles[(slot * TileCache.TILE_SIZE) + index];
+
+                if (cache.validate(slot, stamp)) {
+                    return v;
+                }
+            }
+        }
+
+        return load(key, bx >> 4, bz >> 4)[index];
+    }
+
+    private double[] load(long key, int cx, int cz) {
+        double[] xs = new double[16];
+        double[] zs = new double[16];
+        double[] tile = new double[TileCache.TILE_SIZE];
+
+        for (int i = 0; i < 16; i++) {
+            xs[i] = (cx << 4) + i;
+            zs[i] = (cz << 4) + i;
+        }
+
+        getTypedSource().fillDouble(xs, zs, tile);
+        int slot = cache.claim(key);
+
+        if (slot >= 0) {
+            System.arraycopy(tile, 0, tiles, slot * TileCache.TILE_SIZE, TileCache.TILE_SIZE);
+            cache.publish(slot);
+        }
+
+        return tile;
+    }
+
+    @Override
+    public double getDouble(double x, double y, double z) {
+        return getTypedSource().getDouble(x, y, z);
+    }
+
+    @Override
+    public TileCache getCache() {
+        return cache;
+    }
+}
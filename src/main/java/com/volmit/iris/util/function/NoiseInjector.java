@@ -18,7 +18,24 @@
 
 package com.volmit.iris.util.function;
 
-@FunctionalInterface
+import java.util.function.DoubleBinaryOperator;
+
 public interface NoiseInjector {
-    double[] combine(double src, double value);
+    double combine(double src, double value);
+
+    double weight();
+
+    static NoiseInjector of(double weight, DoubleBinaryOperator combiner) {
+        return new NoiseInjector() {
+            @Override
+            public double combine(double src, double value) {
+                return combiner.applyAsDouble(src, value);
+            }
+
+            @Override
+            public double weight() {
+                return weight;
+            }
+        };
+    }
 }
@@ -18,25 +18,181 @@
 
 package com.volmit.iris.util.math;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 
+/**
+ * The generation RNG. By default it is a java.util.Random and reproduces its sequences bit for bit, including
+ * Random's atomic seed, so an RNG handed to several threads (the complex, actuators, deferred jigsaw placements)
+ * stays safe and existing worlds generate identically.
+ * <p>
+ * {@link #fast(long)} creates a SplitMix64 backed RNG for code that does not need Random compatibility. Its state
+ * advances with a single atomic add instead of a CAS loop, so it is safe to share too. The static
+ * {@link #mix(long, long, long)}, {@link #doubleAt(long, long, long)} and {@link #intAt(long, long, long, int)} are
+ * the allocation free, stateless keyed form of the same generator.
+ */
 public class RNG extends Random {
     private static final char[] CHARGEN = "1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ-=!@#$%^&*()_+`~[];',./<>?:\\\"{}|\\\\".toCharArray();
     private static final long serialVersionUID = 5222938581174415179L;
-    public static final RNG r = new RNG();
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final VarHandle STATE;
+    public static final RNG r = fast(System.nanoTime() ^ Thread.currentThread().getId());
     private final long sx;
+    private final boolean fast;
+    @SuppressWarnings("unused")
+    private volatile long state;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(RNG.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public RNG() {
         super();
         sx = 0;
+        fast = false;
     }
 
     public RNG(long seed) {
+        this(seed, false);
+    }
+
+    private RNG(long seed, boolean fast) {
         super(seed);
         this.sx = seed;
+        this.fast = fast;
+        state = seed;
+    }
+
+    /**
+     * Creates a SplitMix64 backed RNG. Its sequences differ from java.util.Random, never use it for anything that
+     * decides what an existing world looks like.
+     */
+    public static RNG fast(long seed) {
+        return new RNG(seed, true);
+    }
+
+    /**
+     * A SplitMix64 RNG keyed by a seed and a coordinate pair. Unlike {@link #at(long, long)}, keys that happen to sum
+     * to the same value get unrelated sequences.
+     */
+    public static RNG fastAt(long seed, long x, long z) {
+        return fast(mix(seed, x, z));
+    }
+
+    /**
+     * Same as new RNG(key).nextParallelRNG(seed) without the intermediate RNG, for per chunk or per coordinate RNGs
+     * such as new RNG(Cache.key(x, z)).nextParallelRNG(worldSeed). It has to stay Random compatible for existing
+     * worlds, so key and seed are simply added; new code should prefer {@link #fastAt(long, long, long)}.
+     */
+    public static RNG at(long key, long seed) {
+        return new RNG(key + seed);
+    }
+
+    /**
+     * The SplitMix64 finalizer, a well distributed 64 bit hash
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A stateless SplitMix64 hash of a seed and a coordinate pair
+     */
+    public static long mix(long seed, long x, long z) {
+        return mix(mix(mix(seed + GOLDEN_GAMMA) ^ x) ^ z);
+    }
+
+    /**
+     * A uniform double in [0, 1) keyed by a seed and a coordinate pair, without creating an RNG
+     */
+    public static double doubleAt(long seed, long x, long z) {
+        return (mix(seed, x, z) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * A uniform int in [0, bound) keyed by a seed and a coordinate pair, without creating an RNG
+     */
+    public static int intAt(long seed, long x, long z, int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+
+        return (int) (((mix(seed, x, z) >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * The first nextInt(bound) of new RNG(seed), without creating one. Use it where a Random compatible single
+     * draw decides what a world looks like.
+     */
+    public static int firstInt(long seed, int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+
+        long s = step(scramble(seed));
+        int r = (int) (s >>> (48 - 31));
+        int m = bound - 1;
+
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+
+        for (int u = r; u - (r = u % bound) + m < 0; ) {
+            s = step(s);
+            u = (int) (s >>> (48 - 31));
+        }
+
+        return r;
+    }
+
+    private static long scramble(long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
+    }
+
+    private static long step(long s) {
+        return (s * MULTIPLIER + ADDEND) & MASK;
+    }
+
+    private long nextFast() {
+        return mix((long) STATE.getAndAdd(this, GOLDEN_GAMMA) + GOLDEN_GAMMA);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        if (fast) {
+            return (int) (nextFast() >>> (64 - bits));
+        }
+
+        return super.next(bits);
+    }
+
+    @Override
+    public long nextLong() {
+        if (fast) {
+            return nextFast();
+        }
+
+        return super.nextLong();
     }
 
     /**
@@ -49,11 +205,11 @@ public class RNG extends Random {
     }
 
     public RNG nextParallelRNG(int signature) {
-        return new RNG(sx + signature);
+        return nextParallelRNG((long) signature);
     }
 
     public RNG nextParallelRNG(long signature) {
-        return new RNG(sx + signature);
+        return fast ? new RNG(mix(sx + signature * GOLDEN_GAMMA), true) : new RNG(sx + signature);
     }
 
     public String s(int length) {
@@ -63,7 +63,7 @@ public class Spiraler {
 
     public void next() {
         if ((-sizeX / 2 <= x) && (x <= sizeX / 2) && (-sizeZ / 2 <= z) && (z <= sizeZ / 2)) {
-            spiraled.on(x + ox, z + ox);
+            spiraled.on(x + ox, z + oz);
         }
 
         if ((x == z) || ((x < 0) && (x == -z)) || ((x > 0) && (x == 1 - z))) {
@@ -36,7 +36,9 @@ import org.bukkit.event.Listener;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -61,6 +63,14 @@ public abstract class VolmitPlugin extends JavaPlugin implements Listener {
     private KList<IController> cachedControllers;
     private KMap<Class<? extends IController>, IController> cachedClassControllers;
 
+    public VolmitPlugin() {
+        super();
+    }
+
+    protected VolmitPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
     public void selfDistruct() {
         HandlerList.unregisterAll((Plugin) this);
         getServer().getScheduler().cancelTasks(this);
@@ -0,0 +1,283 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.core.pregenerator.methods;
+
+import com.volmit.iris.core.IrisSettings;
+import com.volmit.iris.core.pregenerator.PregenListener;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicateCommandIO;
+import com.volmit.iris.core.pregenerator.syndicate.SyndicateNode;
+import com.volmit.iris.core.pregenerator.syndicate.command.*;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.collection.KMap;
+import com.volmit.iris.util.math.Position2;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the cluster coordinator against two loopback workers. One of them dies right after accepting its first
+ * lease, so its regions must expire and be handed to the other worker.
+ */
+public class SyndicateClusterPregenMethodTest {
+    private static final int LEASE_TIMEOUT = 1000;
+
+    @TempDir
+    File world;
+
+    @BeforeAll
+    public static void settings() {
+        IrisSettings.settings = new IrisSettings();
+        IrisSettings.settings.getConcurrency().setSyndicateLeaseTimeoutMS(LEASE_TIMEOUT);
+        IrisSettings.settings.getConcurrency().setSyndicateLeaseTargetSeconds(1);
+        IrisSettings.settings.getConcurrency().setSyndicateMaxLeaseRegions(2);
+    }
+
+    @Test
+    public void expiredLeaseIsReassigned() throws Exception {
+        LoopbackWorker healthy = new LoopbackWorker(false);
+        LoopbackWorker dying = new LoopbackWorker(true);
+        KList<SyndicateNode> nodes = new KList<>(healthy.node(), dying.node());
+        SyndicateClusterPregenMethod method = new SyndicateClusterPregenMethod(world, null, 1337, nodes);
+        RecordingListener listener = new RecordingListener();
+        KList<Position2> regions = new KList<>(new Position2(0, 0), new Position2(1, 0), new Position2(0, 1), new Position2(1, 1));
+        CountDownLatch done = new CountDownLatch(regions.size());
+
+        for (Position2 i : regions) {
+            Thread t = new Thread(() -> {
+                method.generateRegion(i.getX(), i.getZ(), listener);
+                done.countDown();
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!method.getStatus().contains(regions.size() + " queued") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        method.init();
+
+        try {
+            assertTrue(done.await(30, TimeUnit.SECONDS), "Not every region was delivered: " + method.getStatus());
+        } finally {
+            method.close();
+            healthy.close();
+            dying.close();
+        }
+
+        assertTrue(dying.leased.size() > 0, "The dying worker never got a lease");
+        assertTrue(method.getStatus().contains("1 expired"), method.getStatus());
+
+        for (Position2 i : dying.leased) {
+            assertTrue(listener.failed.contains(i), "Region " + i + " was not reported as failed");
+            assertEquals(healthy.node().getName(), listener.leasedTo.get(i), "Region " + i + " was not reassigned");
+        }
+
+        for (Position2 i : regions) {
+            File f = new File(world, "region/r." + i.getX() + "." + i.getZ() + ".mca");
+            assertTrue(f.isFile(), "Region " + i + " is missing");
+        }
+    }
+
+    /**
+     * Speaks just enough of the worker protocol: leased regions are ready at once and their region file is a
+     * few bytes naming the region
+     */
+    private static class LoopbackWorker {
+        private final ServerSocket server;
+        private final boolean dies;
+        private final SyndicateNode node;
+        private final Set<Position2> leased = ConcurrentHashMap.newKeySet();
+        private final Set<Position2> held = ConcurrentHashMap.newKeySet();
+
+        private LoopbackWorker(boolean dies) throws IOException {
+            this.dies = dies;
+            server = new ServerSocket(0);
+            node = new SyndicateNode("127.0.0.1", server.getLocalPort());
+            node.setInstalled(true);
+            Thread t = new Thread(this::serve, "Loopback Worker " + server.getLocalPort());
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private SyndicateNode node() {
+            return node;
+        }
+
+        private void serve() {
+            while (!server.isClosed()) {
+                try (Socket s = server.accept()) {
+                    DataInputStream in = new DataInputStream(s.getInputStream());
+                    DataOutputStream out = new DataOutputStream(s.getOutputStream());
+                    boolean die = handle(SyndicateCommandIO.read(in), out);
+                    out.flush();
+
+                    if (die) {
+                        close();
+                    }
+                } catch (Throwable ignored) {
+
+                }
+            }
+        }
+
+        private boolean handle(SyndicateCommand c, DataOutputStream out) throws IOException {
+            if (c instanceof SyndicateLease) {
+                leased.addAll(((SyndicateLease) c).getRegions());
+                held.addAll(((SyndicateLease) c).getRegions());
+                SyndicateCommandIO.write(new SyndicateOK(), out);
+                return dies;
+            }
+
+            if (c instanceof SyndicateHeartbeat) {
+                SyndicateCommandIO.write(SyndicateLeaseStatus.builder()
+                        .lease(((SyndicateHeartbeat) c).getLease())
+                        .ready(new KList<>(held))
+                        .build(), out);
+            } else if (c instanceof SyndicateFetchRegion) {
+                SyndicateFetchRegion f = (SyndicateFetchRegion) c;
+                byte[] data = ("r." + f.getX() + "." + f.getZ()).getBytes(StandardCharsets.UTF_8);
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                SyndicateCommandIO.write(SyndicateRegionData.builder()
+                        .x(f.getX()).z(f.getZ())
+                        .length(data.length).checksum(crc.getValue())
+                        .build(), out);
+                out.write(data);
+            } else if (c instanceof SyndicateRelease) {
+                KList<Position2> released = ((SyndicateRelease) c).getRegions();
+                held.removeAll(released);
+                SyndicateCommandIO.write(SyndicateLeaseStatus.builder()
+                        .lease(((SyndicateRelease) c).getLease())
+                        .released(released)
+                        .build(), out);
+            } else {
+                SyndicateCommandIO.write(new SyndicateOK(), out);
+            }
+
+            return false;
+        }
+
+        private void close() {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+
+            }
+        }
+    }
+
+    private static class RecordingListener implements PregenListener {
+        private final KMap<Position2, String> leasedTo = new KMap<>();
+        private final Set<Position2> failed = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onTick(double chunksPerSecond, double chunksPerMinute, double regionsPerMinute, double percent, int generated, int totalChunks, int chunksRemaining, long eta, long elapsed, String method) {
+
+        }
+
+        @Override
+        public void onChunkGenerating(int x, int z) {
+
+        }
+
+        @Override
+        public void onChunkGenerated(int x, int z) {
+
+        }
+
+        @Override
+        public void onRegionGenerated(int x, int z) {
+
+        }
+
+        @Override
+        public void onRegionGenerating(int x, int z) {
+
+        }
+
+        @Override
+        public void onRegionSkipped(int x, int z) {
+
+        }
+
+        @Override
+        public void onNetworkStarted(int x, int z) {
+
+        }
+
+        @Override
+        public void onNetworkLeased(int x, int z, String node) {
+            leasedTo.put(new Position2(x, z), node);
+        }
+
+        @Override
+        public void onNetworkFailed(int x, int z) {
+            failed.add(new Position2(x, z));
+        }
+
+        @Override
+        public void onNetworkReclaim(int revert) {
+
+        }
+
+        @Override
+        public void onNetworkGeneratedChunk(int x, int z) {
+
+        }
+
+        @Override
+        public void onNetworkDownloaded(int x, int z) {
+
+        }
+
+        @Override
+        public void onClose() {
+
+        }
+
+        @Override
+        public void onSaving() {
+
+        }
+
+        @Override
+        public void onChunkExistsInRegionGen(int x, int z) {
+
+        }
+    }
+}
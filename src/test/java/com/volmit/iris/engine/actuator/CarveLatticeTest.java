@@ -0,0 +1,79 @@
+/*
+ * Iris is a World Generator for Minecraft Bukkit Servers
+ * Copyright (c) 2021 Arcane Arts (Volmit Software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.volmit.iris.engine.actuator;
+
+import com.volmit.iris.engine.object.IrisCarveLayer;
+import com.volmit.iris.util.collection.KList;
+import com.volmit.iris.util.math.RNG;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares LATTICE carving against EXACT carving over a fixed seed and region. The lattice is an approximation,
+ * so this only bounds how many blocks may disagree.
+ */
+public class CarveLatticeTest {
+    private static final long SEED = 1337;
+    private static final int CHUNKS = 4;
+    private static final int TERRAIN_HEIGHT = 256;
+    private static final double MAX_MISMATCH = 0.05;
+
+    @Test
+    public void latticeStaysCloseToExact() {
+        IrisCarveLayer layer = new IrisCarveLayer();
+        layer.getStyle().setZoom(32);
+        KList<IrisCarveLayer> layers = new KList<>(layer);
+        RNG rng = new RNG(SEED);
+        long total = 0;
+        long carved = 0;
+        long mismatches = 0;
+
+        for (int cx = 0; cx < CHUNKS; cx++) {
+            for (int cz = 0; cz < CHUNKS; cz++) {
+                double[] xs = new double[16];
+                double[] zs = new double[16];
+
+                for (int i = 0; i < 16; i++) {
+                    xs[i] = (cx << 4) + i;
+                    zs[i] = (cz << 4) + i;
+                }
+
+                CarveLattice lattice = new CarveLattice(layers, true, 63, rng, xs, zs);
+
+                for (int xf = 0; xf < 16; xf++) {
+                    for (int zf = 0; zf < 16; zf++) {
+                        for (int y = layer.getMinHeight(); y <= layer.getMaxHeight(); y++) {
+                            boolean exact = layer.isCarved(rng, xs[xf], y, zs[zf]);
+                            total++;
+                            carved += exact ? 1 : 0;
+
+                            if (exact != lattice.isCarved(xf, y, zf, TERRAIN_HEIGHT)) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        assertTrue(carved > 0, "The carve layer never carved, the comparison proves nothing");
+        assertTrue(mismatches <= total * MAX_MISMATCH, mismatches + " of " + total + " blocks differ from EXACT carving");
+    }
+}